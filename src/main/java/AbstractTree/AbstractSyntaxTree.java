@@ -1,5 +1,7 @@
 package AbstractTree;
 
+import java.io.IOException;
+
 /**
  * @author DMarinov
  * Created on: 01/Mar/2019
@@ -23,6 +25,44 @@ public class AbstractSyntaxTree
         return root;
     }
     
+    /**
+     * Create flat copy of the tree, which is not changed by later changes to the tree.
+     *
+     * @param offHeap - Whether or not to store the nodes of the copy in a direct buffer outside of the heap.
+     *
+     * @return - Flat syntax tree.
+     */
+    public FlatSyntaxTree flatten(boolean offHeap)
+    {
+        return new FlatSyntaxTree(root, offHeap);
+    }
+    
+    /**
+     * Write the string representation of the tree.
+     *
+     * @param output - Output to write to.
+     *
+     * @throws IOException - If the output cannot be written.
+     */
+    public void render(Appendable output) throws IOException
+    {
+        root.render(output);
+    }
+    
+    /**
+     * Write the string representation of the tree, up to a depth and a number of nodes.
+     *
+     * @param output   - Output to write to.
+     * @param maxDepth - Depth of the deepest nodes to write, the root being at depth 0.
+     * @param maxNodes - Largest number of nodes to write.
+     *
+     * @throws IOException - If the output cannot be written.
+     */
+    public void render(Appendable output, int maxDepth, int maxNodes) throws IOException
+    {
+        root.render(output, maxDepth, maxNodes);
+    }
+    
     /**
      * Create string representation of the tree.
      *
@@ -0,0 +1,340 @@
+package AbstractTree;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class AstReader implements Closeable
+{
+    private static final NodeType[] TYPES = NodeType.values();
+    
+    private final InputStream input;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+    private int limit = 0;
+    private final List<String> pool = new ArrayList<>();
+    
+    // Nodes whose child nodes are still being read, the number of child nodes each of them is still missing and,
+    // for binary nodes, the bits of the child nodes which are still missing.
+    private Node[] parents = new Node[16];
+    private int[] remaining = new int[16];
+    private int[] children = new int[16];
+    
+    /**
+     * Create reader of trees written by an AstWriter and check the magic number and the version of the format.
+     *
+     * @param input - Stream to read the trees from.
+     *
+     * @throws IOException - If the stream cannot be read or was not written by an AstWriter of this version.
+     */
+    public AstReader(InputStream input) throws IOException
+    {
+        this.input = input;
+        
+        if (readInt() != AstWriter.MAGIC)
+        {
+            throw new IOException("Stream does not hold abstract trees!");
+        }
+        
+        int version = readInt();
+        
+        if (version != AstWriter.VERSION)
+        {
+            throw new IOException("Abstract trees of version " + version + " are not supported!");
+        }
+    }
+    
+    /**
+     * Read the next tree.
+     * The nodes are read into a stack of their parents instead of recursively, so that deep trees can be read.
+     *
+     * @return - Abstract syntax tree, or null if there are no more trees in the stream.
+     *
+     * @throws IOException - If the stream cannot be read or the tree is incomplete or damaged.
+     */
+    public AbstractSyntaxTree read() throws IOException
+    {
+        if (position == limit && !fill())
+        {
+            return null;
+        }
+        
+        pool.clear();
+        Node root = null;
+        int depth = 0;
+        
+        do
+        {
+            Node node = readNode(depth);
+            
+            if (depth == 0)
+            {
+                root = node;
+            }
+            else
+            {
+                attach(depth - 1, node);
+            }
+            
+            if (node != null && remaining[depth] > 0)
+            {
+                parents[depth++] = node;
+            }
+            
+            while (depth > 0 && remaining[depth - 1] == 0)
+            {
+                parents[--depth] = null;
+            }
+        }
+        while (depth > 0);
+        
+        return new AbstractSyntaxTree(root);
+    }
+    
+    /**
+     * Close the stream.
+     *
+     * @throws IOException - If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        input.close();
+    }
+    
+    /**
+     * Read a node without its child nodes, and store the number of its child nodes at a depth of the stack.
+     *
+     * @param depth - Depth of the stack for the node.
+     *
+     * @return - Node, or null for a missing node.
+     *
+     * @throws IOException - If the stream cannot be read or the node is damaged.
+     */
+    private Node readNode(int depth) throws IOException
+    {
+        if (depth == parents.length)
+        {
+            parents = Arrays.copyOf(parents, depth * 2);
+            remaining = Arrays.copyOf(remaining, depth * 2);
+            children = Arrays.copyOf(children, depth * 2);
+        }
+        
+        remaining[depth] = 0;
+        int kind = readVarint();
+        
+        if (kind == AstWriter.MISSING)
+        {
+            return null;
+        }
+        
+        int type = (kind >>> 1) - 1;
+        
+        if (type >= TYPES.length)
+        {
+            throw new IOException("Abstract tree has an unknown node type!");
+        }
+        
+        String value = readValue();
+        int count = readVarint();
+        
+        if ((kind & AstWriter.MULTI) != 0)
+        {
+            remaining[depth] = count;
+            return new MultiNode<>(value, TYPES[type]);
+        }
+        
+        if (count > (AstWriter.LEFT | AstWriter.RIGHT))
+        {
+            throw new IOException("Abstract tree has a binary node with more than two child nodes!");
+        }
+        
+        remaining[depth] = Integer.bitCount(count);
+        children[depth] = count;
+        return new BinaryNode<>(value, TYPES[type]);
+    }
+    
+    /**
+     * Add a node as the next child node of the parent at a depth of the stack.
+     *
+     * @param depth - Depth of the parent.
+     * @param node  - Child node.
+     */
+    private void attach(int depth, Node node)
+    {
+        Node parent = parents[depth];
+        remaining[depth]--;
+        
+        if (parent instanceof MultiNode)
+        {
+            ((MultiNode) parent).addNode(node);
+        }
+        else if ((children[depth] & AstWriter.LEFT) != 0)
+        {
+            ((BinaryNode) parent).setLeft(node);
+            children[depth] &= ~AstWriter.LEFT;
+        }
+        else
+        {
+            ((BinaryNode) parent).setRight(node);
+        }
+    }
+    
+    /**
+     * Read the value of a node, adding it to the pool if it is not in it yet.
+     *
+     * @return - Node's value, or null.
+     *
+     * @throws IOException - If the stream cannot be read or the value is damaged.
+     */
+    private String readValue() throws IOException
+    {
+        int index = readVarint();
+        
+        if (index == 0)
+        {
+            return null;
+        }
+        
+        if (index <= pool.size())
+        {
+            return pool.get(index - 1);
+        }
+        
+        if (index != pool.size() + 1)
+        {
+            throw new IOException("Abstract tree has a value which is not in the pool!");
+        }
+        
+        int length = readVarint();
+        String value;
+        
+        if (length <= limit - position)
+        {
+            value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+        }
+        else
+        {
+            byte[] bytes = new byte[length];
+            int read = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, read);
+            position = limit;
+            
+            while (read < length)
+            {
+                int count = input.read(bytes, read, length - read);
+                
+                if (count < 0)
+                {
+                    throw new EOFException("Abstract tree is incomplete!");
+                }
+                
+                read += count;
+            }
+            
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        
+        pool.add(value);
+        return value;
+    }
+    
+    /**
+     * Read an unsigned number written in groups of seven bits.
+     *
+     * @return - Number read.
+     *
+     * @throws IOException - If the stream cannot be read or the number is longer than five bytes.
+     */
+    private int readVarint() throws IOException
+    {
+        int value = 0;
+        
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            
+            if ((b & 0x80) == 0)
+            {
+                if (value < 0)
+                {
+                    break;
+                }
+                
+                return value;
+            }
+        }
+        
+        throw new IOException("Abstract tree has a number which is too large!");
+    }
+    
+    /**
+     * Read a number written as four bytes.
+     *
+     * @return - Number read.
+     *
+     * @throws IOException - If the stream cannot be read.
+     */
+    private int readInt() throws IOException
+    {
+        int value = 0;
+        
+        for (int i = 0; i < 4; i++)
+        {
+            value = value << 8 | readByte();
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Read a byte.
+     *
+     * @return - Byte read, from 0 to 255.
+     *
+     * @throws IOException - If the stream cannot be read or has ended.
+     */
+    private int readByte() throws IOException
+    {
+        if (position == limit && !fill())
+        {
+            throw new EOFException("Abstract tree is incomplete!");
+        }
+        
+        return buffer[position++] & 0xFF;
+    }
+    
+    /**
+     * Read the next bytes of the stream into the buffer.
+     *
+     * @return - Whether or not any bytes were read before the stream ended.
+     *
+     * @throws IOException - If the stream cannot be read.
+     */
+    private boolean fill() throws IOException
+    {
+        int count;
+        
+        do
+        {
+            count = input.read(buffer, 0, buffer.length);
+        }
+        while (count == 0);
+        
+        position = 0;
+        limit = Math.max(count, 0);
+        
+        return count > 0;
+    }
+}
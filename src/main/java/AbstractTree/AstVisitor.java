@@ -0,0 +1,197 @@
+package AbstractTree;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public interface AstVisitor<R>
+{
+    /**
+     * Visit loop node.
+     *
+     * @param node - Loop node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitLoop(Node node);
+    
+    /**
+     * Visit conditional node.
+     *
+     * @param node - Conditional node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitCondition(Node node);
+    
+    /**
+     * Visit infix operation node.
+     *
+     * @param node - Infix operation node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitInfixOperation(Node node);
+    
+    /**
+     * Visit print node.
+     *
+     * @param node - Print node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitPrint(Node node);
+    
+    /**
+     * Visit file node.
+     *
+     * @param node - File node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitFile(Node node);
+    
+    /**
+     * Visit block node.
+     *
+     * @param node - Block node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitBlock(Node node);
+    
+    /**
+     * Visit lines node.
+     *
+     * @param node - Lines node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitLines(Node node);
+    
+    /**
+     * Visit body node.
+     *
+     * @param node - Body node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitBody(Node node);
+    
+    /**
+     * Visit else node.
+     *
+     * @param node - Else node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitElse(Node node);
+    
+    /**
+     * Visit leaf node.
+     *
+     * @param node - Leaf node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitLeaf(Node node);
+    
+    /**
+     * Visit if node.
+     *
+     * @param node - If node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitIf(Node node);
+    
+    /**
+     * Visit assignment node.
+     *
+     * @param node - Assignment node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitAssignment(Node node);
+    
+    /**
+     * Visit negation node.
+     *
+     * @param node - Negation node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitNegation(Node node);
+    
+    /**
+     * Visit not operation node.
+     *
+     * @param node - Not operation node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitNot(Node node);
+    
+    /**
+     * Visit function node.
+     *
+     * @param node - Function node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitFunction(Node node);
+    
+    /**
+     * Visit signature node.
+     *
+     * @param node - Signature node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitSignature(Node node);
+    
+    /**
+     * Visit name node.
+     *
+     * @param node - Name node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitName(Node node);
+    
+    /**
+     * Visit argument node.
+     *
+     * @param node - Argument node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitArg(Node node);
+    
+    /**
+     * Visit return node.
+     *
+     * @param node - Return node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitReturn(Node node);
+    
+    /**
+     * Visit function call node.
+     *
+     * @param node - Function call node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitCall(Node node);
+    
+    /**
+     * Visit variable declaration node.
+     *
+     * @param node - Variable declaration node.
+     *
+     * @return - Result of the visit.
+     */
+    R visitDeclaration(Node node);
+}
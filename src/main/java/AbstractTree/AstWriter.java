@@ -0,0 +1,241 @@
+package AbstractTree;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class AstWriter implements Closeable, Flushable
+{
+    static final int MAGIC = 0x43505854;
+    static final int VERSION = 2;
+    
+    // After the magic number and the version, every tree is written as its nodes, each node before its child nodes.
+    // A node is its kind, its value and its child count, all written as varints. The kind is 0 for a missing node,
+    // otherwise the type of the node plus one, shifted left by one bit, with the lowest bit set for multi nodes.
+    // The value is 0 for no value, otherwise its index in the pool of the tree plus one, followed by the value as
+    // UTF-8 if it is not in the pool yet. The child count of a binary node has a bit for each of its child nodes
+    // which is not missing, the left node being the lowest bit, and only those child nodes follow.
+    static final int MISSING = 0;
+    static final int MULTI = 1;
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    
+    private final OutputStream output;
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+    private final Map<String, Integer> pool = new HashMap<>();
+    private Node[] stack = new Node[16];
+    
+    /**
+     * Create writer of trees and write the magic number and the version of the format.
+     *
+     * @param output - Stream to write the trees to.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    public AstWriter(OutputStream output) throws IOException
+    {
+        this.output = output;
+        writeInt(MAGIC);
+        writeInt(VERSION);
+    }
+    
+    /**
+     * Write a tree. The bytes are buffered, so the tree is only in the stream once the writer is flushed.
+     * The nodes are taken from a stack instead of recursively, so that deep trees can be written. Subtrees which
+     * are shared are written once for every time they are used.
+     *
+     * @param tree - Tree to be written.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    public void write(AbstractSyntaxTree tree) throws IOException
+    {
+        pool.clear();
+        int size = 0;
+        stack[size++] = tree.getRoot();
+        
+        while (size > 0)
+        {
+            Node node = stack[--size];
+            
+            if (node == null)
+            {
+                writeVarint(MISSING);
+                continue;
+            }
+            
+            boolean isMulti = node instanceof MultiNode;
+            writeVarint((node.getType().ordinal() + 1) << 1 | (isMulti ? MULTI : 0));
+            writeValue(node.getValue());
+            
+            int count = node.getNodeCount();
+            
+            if (isMulti)
+            {
+                writeVarint(count);
+            }
+            else
+            {
+                BinaryNode binary = (BinaryNode) node;
+                writeVarint((binary.getLeft() != null ? LEFT : 0) | (binary.getRight() != null ? RIGHT : 0));
+            }
+            
+            if (size + count > stack.length)
+            {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, size + count));
+            }
+            
+            for (int i = count - 1; i >= 0; i--)
+            {
+                stack[size++] = node.getNode(i);
+            }
+        }
+        
+        Arrays.fill(stack, null);
+    }
+    
+    /**
+     * Write the buffered bytes to the stream and flush it.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        output.write(buffer, 0, position);
+        position = 0;
+        output.flush();
+    }
+    
+    /**
+     * Flush and close the stream.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+    
+    /**
+     * Write the value of a node, adding it to the pool if it is not in it yet.
+     *
+     * @param value - Node's value, or null.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    private void writeValue(Object value) throws IOException
+    {
+        if (value == null)
+        {
+            writeVarint(0);
+            return;
+        }
+        
+        String text = value.toString();
+        Integer index = pool.get(text);
+        
+        if (index != null)
+        {
+            writeVarint(index + 1);
+            return;
+        }
+        
+        pool.put(text, pool.size());
+        writeVarint(pool.size());
+        
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        
+        if (bytes.length > buffer.length - position)
+        {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+        
+        if (bytes.length > buffer.length)
+        {
+            output.write(bytes);
+            return;
+        }
+        
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+    
+    /**
+     * Write an unsigned number in groups of seven bits, lowest first, with the highest bit of every byte but the
+     * last set.
+     *
+     * @param value - Number to be written.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    private void writeVarint(int value) throws IOException
+    {
+        if (buffer.length - position < 5)
+        {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+        
+        while ((value & ~0x7F) != 0)
+        {
+            buffer[position++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        
+        buffer[position++] = (byte) value;
+    }
+    
+    /**
+     * Write a number as four bytes, highest first.
+     *
+     * @param value - Number to be written.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    private void writeInt(int value) throws IOException
+    {
+        for (int shift = 24; shift >= 0; shift -= 8)
+        {
+            writeByte(value >>> shift);
+        }
+    }
+    
+    /**
+     * Write a byte.
+     *
+     * @param value - Byte to be written, in the lowest bits.
+     *
+     * @throws IOException - If the stream cannot be written.
+     */
+    private void writeByte(int value) throws IOException
+    {
+        if (position == buffer.length)
+        {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+        
+        buffer[position++] = (byte) value;
+    }
+}
@@ -13,8 +13,9 @@ public class BinaryNode <T> extends Node
     private Node<T> left;
     private Node<T> right;
     
-    public BinaryNode(T value)
+    public BinaryNode(T value, NodeType type)
     {
+        super(type);
         this.value = value;
         this.left = null;
         this.right = null;
@@ -53,58 +54,74 @@ public class BinaryNode <T> extends Node
     }
     
     /**
-     * Add a node as a left child.
-     *
-     * @param left - Node to add.
-     */
-    public void setLeft(Node<T> left)
-    {
-        this.left = left;
-    }
-    
-    /**
-     * Add a node as a right child.
+     * Return the number of child nodes, without creating a list of them.
      *
-     * @param right - Node to add.
+     * @return - Number of nodes.
      */
-    public void setRight(Node<T> right)
+    public int getNodeCount()
     {
-        this.right = right;
+        return (left != null ? 1 : 0) + (right != null ? 1 : 0);
     }
     
     /**
-     * Create string representation of the node and its child nodes recursively.
+     * Return a child node, without creating a list of the child nodes.
      *
-     * @param prefix - Prefix to be used for the node.
-     * @param isTail - Is the node a tail node.
+     * @param index - Position of the child node, as in the list of all child nodes.
      *
-     * @return - String representation of the node.
+     * @return - Child node.
      */
-    String stringRepresentation(String prefix, boolean isTail)
+    public Node<T> getNode(int index)
     {
-        String string = prefix + (isTail ? "└── " : "├── ") + this.value.toString();
-        
-        if (left != null)
+        if (index == 0 && left != null)
         {
-            string = string + "\n" + left.stringRepresentation(prefix + (isTail ? "    " : "│   "), (right == null));
+            return left;
         }
         
-        if (right != null)
+        if (index == (left != null ? 1 : 0) && right != null)
         {
-            string = string + "\n" + right.stringRepresentation(prefix + (isTail ? "    " : "│   "), true);
+            return right;
         }
         
-        return string;
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getNodeCount());
     }
     
     /**
-     * Create string representation of the node.
+     * Return the left child.
      *
-     * @return - String representation of the node.
+     * @return - Left node, or null.
      */
-    @Override
-    public String toString()
+    public Node<T> getLeft()
     {
-        return stringRepresentation("", true);
+        return left;
+    }
+    
+    /**
+     * Return the right child.
+     *
+     * @return - Right node, or null.
+     */
+    public Node<T> getRight()
+    {
+        return right;
+    }
+    
+    /**
+     * Add a node as a left child.
+     *
+     * @param left - Node to add.
+     */
+    public void setLeft(Node<T> left)
+    {
+        this.left = left;
+    }
+    
+    /**
+     * Add a node as a right child.
+     *
+     * @param right - Node to add.
+     */
+    public void setRight(Node<T> right)
+    {
+        this.right = right;
     }
 }
\ No newline at end of file
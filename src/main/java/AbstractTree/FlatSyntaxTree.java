@@ -0,0 +1,246 @@
+package AbstractTree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class FlatSyntaxTree
+{
+    private static final NodeType[] TYPES = NodeType.values();
+    private static final int FIELDS = 3;
+    private static final int TYPE = 0;
+    private static final int VALUE = 1;
+    private static final int FIRST = 2;
+    private static final int MISSING = -1;
+    
+    // Every node is a record of its type, the pool index of its value and the index of its first child.
+    // The nodes are stored breadth first, so the children of a node follow each other.
+    private final IntBuffer nodes;
+    private final int size;
+    private final int presentSize;
+    private final String[] values;
+    private final double[] numbers;
+    
+    /**
+     * Create flat tree from the nodes of a tree.
+     *
+     * @param root    - Root of the tree.
+     * @param offHeap - Whether or not to store the nodes in a direct buffer outside of the heap.
+     */
+    FlatSyntaxTree(Node root, boolean offHeap)
+    {
+        List<Node> order = new ArrayList<>();
+        order.add(root);
+        
+        for (int i = 0; i < order.size(); i++)
+        {
+            Node node = order.get(i);
+            
+            if (node != null)
+            {
+                for (int j = 0; j < node.getNodeCount(); j++)
+                {
+                    order.add(node.getNode(j));
+                }
+            }
+        }
+        
+        size = order.size();
+        
+        if (offHeap)
+        {
+            nodes = ByteBuffer.allocateDirect(size * FIELDS * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        else
+        {
+            nodes = IntBuffer.allocate(size * FIELDS);
+        }
+        
+        Map<String, Integer> pool = new HashMap<>();
+        List<String> poolValues = new ArrayList<>();
+        int next = 1;
+        int present = 0;
+        
+        for (int i = 0; i < size; i++)
+        {
+            Node node = order.get(i);
+            int record = i * FIELDS;
+            
+            nodes.put(record + FIRST, next);
+            
+            if (node == null)
+            {
+                nodes.put(record + TYPE, MISSING);
+                nodes.put(record + VALUE, MISSING);
+                continue;
+            }
+            
+            String value = String.valueOf(node.getValue());
+            Integer index = pool.get(value);
+            
+            if (index == null)
+            {
+                index = poolValues.size();
+                pool.put(value, index);
+                poolValues.add(value);
+            }
+            
+            nodes.put(record + TYPE, node.getType().ordinal());
+            nodes.put(record + VALUE, index);
+            next += node.getNodeCount();
+            present++;
+        }
+        
+        presentSize = present;
+        values = poolValues.toArray(new String[0]);
+        numbers = new double[values.length];
+        
+        for (int i = 0; i < values.length; i++)
+        {
+            numbers[i] = parseNumber(values[i]);
+        }
+    }
+    
+    /**
+     * Parse a value as a number literal.
+     *
+     * @param value - Value to be parsed.
+     *
+     * @return - Number of the literal, or NaN if the value is not a number literal.
+     */
+    private static double parseNumber(String value)
+    {
+        // Number literals start with a digit, names with a letter.
+        if (value.isEmpty() || !Character.isDigit(value.charAt(0)))
+        {
+            return Double.NaN;
+        }
+        
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            return Double.NaN;
+        }
+    }
+    
+    /**
+     * Return the root of the tree.
+     *
+     * @return - Index of the root node.
+     */
+    public int getRoot()
+    {
+        return 0;
+    }
+    
+    /**
+     * Return the number of nodes in the tree, including missing nodes.
+     *
+     * @return - Number of nodes.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Return the number of nodes in the tree, without missing nodes.
+     *
+     * @return - Number of nodes.
+     */
+    public int presentSize()
+    {
+        return presentSize;
+    }
+    
+    /**
+     * Check if the nodes are stored in a direct buffer outside of the heap.
+     *
+     * @return - Whether or not the nodes are stored outside of the heap.
+     */
+    public boolean isOffHeap()
+    {
+        return nodes.isDirect();
+    }
+    
+    /**
+     * Return the type of a node.
+     *
+     * @param node - Index of the node.
+     *
+     * @return - Type of the node, or null if the node is missing.
+     */
+    public NodeType getType(int node)
+    {
+        int type = nodes.get(node * FIELDS + TYPE);
+        return type == MISSING ? null : TYPES[type];
+    }
+    
+    /**
+     * Return the value of a node.
+     *
+     * @param node - Index of the node.
+     *
+     * @return - Node's value, or null if the node is missing.
+     */
+    public String getValue(int node)
+    {
+        int value = nodes.get(node * FIELDS + VALUE);
+        return value == MISSING ? null : values[value];
+    }
+    
+    /**
+     * Return the value of a number node, which is parsed once for all nodes with the same literal.
+     *
+     * @param node - Index of the node.
+     *
+     * @return - Node's number, or NaN if the node is not a number.
+     */
+    public double getNumber(int node)
+    {
+        int value = nodes.get(node * FIELDS + VALUE);
+        return value == MISSING ? Double.NaN : numbers[value];
+    }
+    
+    /**
+     * Return the number of child nodes of a node.
+     *
+     * @param node - Index of the node.
+     *
+     * @return - Number of child nodes.
+     */
+    public int getNodeCount(int node)
+    {
+        int end = node + 1 < size ? nodes.get((node + 1) * FIELDS + FIRST) : size;
+        return end - nodes.get(node * FIELDS + FIRST);
+    }
+    
+    /**
+     * Return a child node of a node.
+     *
+     * @param node  - Index of the node.
+     * @param index - Position of the child node.
+     *
+     * @return - Index of the child node.
+     */
+    public int getNode(int node, int index)
+    {
+        if (index < 0 || index >= getNodeCount(node))
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getNodeCount(node));
+        }
+        
+        return nodes.get(node * FIELDS + FIRST) + index;
+    }
+}
@@ -12,8 +12,9 @@ public class MultiNode <T> extends Node
     private T value;
     private List<Node<T>> nodes;
     
-    public MultiNode(T value)
+    public MultiNode(T value, NodeType type)
     {
+        super(type);
         this.value = value;
         nodes = new ArrayList<>();
     }
@@ -39,46 +40,34 @@ public class MultiNode <T> extends Node
     }
     
     /**
-     * Add child node.
+     * Return the number of child nodes, without creating a list of them.
      *
-     * @param node - Node to add.
+     * @return - Number of nodes.
      */
-    public void addNode(Node node)
+    public int getNodeCount()
     {
-        nodes.add(node);
+        return nodes.size();
     }
     
     /**
-     * Create string representation of the node and its child nodes recursively.
+     * Return a child node, without creating a list of the child nodes.
      *
-     * @param prefix - Prefix to be used for the node.
-     * @param isTail - Is the node a tail node.
+     * @param index - Position of the child node, as in the list of all child nodes.
      *
-     * @return - String representation of the node.
+     * @return - Child node.
      */
-    @Override
-    String stringRepresentation(String prefix, boolean isTail)
+    public Node<T> getNode(int index)
     {
-        StringBuilder string = new StringBuilder(prefix + (isTail ? "└── " : "├── ") + this.value.toString());
-        
-        for (int i = 0; i < nodes.size(); i++)
-        {
-            if (nodes.get(i) != null)
-            {
-                string.append("\n").append(nodes.get(i).stringRepresentation(prefix + (isTail ? "    " : "│   "), (i + 1 >= nodes.size())));
-            }
-        }
-        return string.toString();
+        return nodes.get(index);
     }
     
     /**
-     * Create string representation of the node.
+     * Add child node.
      *
-     * @return - String representation of the node.
+     * @param node - Node to add.
      */
-    @Override
-    public String toString()
+    public void addNode(Node node)
     {
-        return stringRepresentation("", true);
+        nodes.add(node);
     }
 }
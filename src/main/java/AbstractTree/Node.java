@@ -1,5 +1,9 @@
 package AbstractTree;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -8,147 +12,247 @@ import java.util.List;
  */
 public abstract class Node <T>
 {
+    private static final int CHUNK_SIZE = 8192;
+    
+    private final NodeType type;
+    private int line;
+    private int column;
+    
     /**
-     * Create string representation of the node and its child nodes recursively.
+     * Create node of a type.
      *
-     * @param prefix - Prefix to be used for the node.
-     * @param isTail - Is the node a tail node.
-     *
-     * @return - String representation of the node.
+     * @param type - Type of the node.
      */
-    abstract String stringRepresentation(String prefix, boolean isTail);
+    protected Node(NodeType type)
+    {
+        this.type = type;
+    }
     
     /**
-     * Return the value of the node.
+     * Set the position of the token the node was created from, at which the semantic errors of the node are
+     * reported. The position is not part of the string representation and is not kept by flat or written trees.
      *
-     * @return - Node's value.
+     * @param line   - Line of the token.
+     * @param column - Position in line of the token.
      */
-    abstract public T getValue();
+    public void setPosition(int line, int column)
+    {
+        this.line = line;
+        this.column = column;
+    }
     
     /**
-     * Return a list of all child nodes.
+     * Return the line of the token the node was created from.
      *
-     * @return - List of nodes.
+     * @return - Line of the node, 0 if it has no position.
      */
-    abstract public List<Node<T>> getNodes();
+    public int getLine()
+    {
+        return line;
+    }
     
     /**
-     * Return the node type based on its value.
+     * Return the position in line of the token the node was created from.
      *
-     * @return - Type of the node.
+     * @return - Position in line of the node.
      */
-    public NodeType getType()
+    public int getColumn()
     {
-        if (getValue().equals("print"))
-        {
-            return NodeType.PRINT;
-        }
-        
-        if (getValue().equals("="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
-    
-        if (getValue().equals("+="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
-    
-        if (getValue().equals("-="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
-    
-        if (getValue().equals("*="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
+        return column;
+    }
     
-        if (getValue().equals("/="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
+    /**
+     * Write the string representation of the node and all of its child nodes.
+     *
+     * @param output - Output to write to.
+     *
+     * @throws IOException - If the output cannot be written.
+     */
+    public void render(Appendable output) throws IOException
+    {
+        render(output, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
     
-        if (getValue().equals("%="))
-        {
-            return NodeType.ASSIGNMENT;
-        }
-        
-        if (getValue().equals("loop"))
-        {
-            return NodeType.LOOP;
-        }
-        
-        if (getValue().equals("conditional"))
-        {
-            return NodeType.CONDITION;
-        }
-        
-        if (getValue().equals("file"))
-        {
-            return NodeType.FILE;
-        }
+    /**
+     * Write the string representation of the node and its child nodes, up to a depth and a number of nodes.
+     * Nodes left out because of a limit are shown as "...".
+     * The nodes are taken from a stack instead of recursively, so that deep trees such as long chains of
+     * operations can be represented. The lines are written in chunks, so that large trees are not held in
+     * memory as a whole.
+     *
+     * @param output   - Output to write to.
+     * @param maxDepth - Depth of the deepest nodes to write, the node itself being at depth 0.
+     * @param maxNodes - Largest number of nodes to write.
+     *
+     * @throws IOException - If the output cannot be written.
+     */
+    public void render(Appendable output, int maxDepth, int maxNodes) throws IOException
+    {
+        StringBuilder chunk = new StringBuilder();
+        StringBuilder indent = new StringBuilder();
+        Deque<Line> stack = new ArrayDeque<>();
+        stack.push(new Line(this, true, 0, 0));
+        int written = 0;
         
-        if (getValue().equals("block"))
+        while (!stack.isEmpty())
         {
-            return NodeType.BLOCK;
+            Line line = stack.pop();
+            
+            // The prefix of a node is the prefix of its parent followed by the indent of its parent.
+            indent.setLength(line.indent);
+            
+            if (written > 0)
+            {
+                chunk.append("\n");
+            }
+            
+            chunk.append(indent).append(line.isTail ? "└── " : "├── ");
+            
+            if (line.node == null || written == maxNodes)
+            {
+                chunk.append("...");
+                
+                if (written == maxNodes)
+                {
+                    break;
+                }
+                
+                written++;
+                continue;
+            }
+            
+            chunk.append(line.node.getValue().toString());
+            indent.append(line.isTail ? "    " : "│   ");
+            written++;
+            
+            int count = line.node.getNodeCount();
+            
+            if (line.depth == maxDepth && count > 0)
+            {
+                stack.push(new Line(null, true, indent.length(), line.depth + 1));
+                count = 0;
+            }
+            
+            for (int i = count - 1; i >= 0; i--)
+            {
+                Node node = line.node.getNode(i);
+                
+                if (node != null)
+                {
+                    stack.push(new Line(node, i + 1 >= count, indent.length(), line.depth + 1));
+                }
+            }
+            
+            if (chunk.length() >= CHUNK_SIZE)
+            {
+                output.append(chunk);
+                chunk.setLength(0);
+            }
         }
         
-        if (getValue().equals("lines"))
-        {
-            return NodeType.LINES;
-        }
+        output.append(chunk);
+    }
+    
+    /**
+     * Create string representation of the node.
+     *
+     * @return - String representation of the node.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder string = new StringBuilder();
         
-        if (getValue().equals("body"))
+        try
         {
-            return NodeType.BODY;
+            render(string);
         }
-        
-        if (getValue().equals("if"))
+        catch (IOException e)
         {
-            return NodeType.IF;
+            // Appending to a string builder never fails.
+            throw new UncheckedIOException(e);
         }
         
-        if (getValue().equals("else"))
-        {
-            return NodeType.ELSE;
-        }
+        return string.toString();
+    }
     
-        if (getValue().equals("function"))
-        {
-            return NodeType.FUNCTION;
-        }
+    /**
+     * Return the value of the node.
+     *
+     * @return - Node's value.
+     */
+    abstract public T getValue();
     
-        if (getValue().equals("signature"))
-        {
-            return NodeType.SIGNATURE;
-        }
+    /**
+     * Return a list of all child nodes.
+     *
+     * @return - List of nodes.
+     */
+    abstract public List<Node<T>> getNodes();
     
-        if (getValue().equals("name"))
-        {
-            return NodeType.NAME;
-        }
+    /**
+     * Return the number of child nodes, without creating a list of them.
+     *
+     * @return - Number of nodes.
+     */
+    abstract public int getNodeCount();
     
-        if (getValue().equals("return"))
-        {
-            return NodeType.RETURN;
-        }
+    /**
+     * Return a child node, without creating a list of the child nodes.
+     *
+     * @param index - Position of the child node, as in the list of all child nodes.
+     *
+     * @return - Child node.
+     */
+    abstract public Node<T> getNode(int index);
     
-        if (getValue().equals("arg"))
-        {
-            return NodeType.ARG;
-        }
-        
-        if (getNodes().size() == 0)
-        {
-            return NodeType.LEAF;
-        }
+    /**
+     * Return the type of the node, which is given when the node is created.
+     *
+     * @return - Type of the node.
+     */
+    public NodeType getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Call the method of a visitor for the type of the node.
+     *
+     * @param visitor - Visitor to call.
+     * @param <R>     - Type of the visitor's result.
+     *
+     * @return - Result of the visitor.
+     */
+    public <R> R accept(AstVisitor<R> visitor)
+    {
+        return type.accept(visitor, this);
+    }
+    
+    /**
+     * Node waiting to be added to the string representation.
+     */
+    private static class Line
+    {
+        private final Node node;
+        private final boolean isTail;
+        private final int indent;
+        private final int depth;
         
-        if (getNodes().size() == 1 && getValue().equals("-"))
+        /**
+         * Create line of the string representation.
+         *
+         * @param node   - Node of the line, or null for nodes left out because of the depth limit.
+         * @param isTail - Is the node a tail node.
+         * @param indent - Length of the prefix of the node.
+         * @param depth  - Depth of the node.
+         */
+        Line(Node node, boolean isTail, int indent, int depth)
         {
-            return NodeType.NEGATION;
+            this.node = node;
+            this.isTail = isTail;
+            this.indent = indent;
+            this.depth = depth;
         }
-        
-        return NodeType.INFIXOP;
     }
 }
@@ -0,0 +1,201 @@
+package AbstractTree;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class NodeTable
+{
+    private Node[] table = new Node[64];
+    private int size = 0;
+    
+    /**
+     * Replace the subtrees of a tree by equal subtrees already in the table, so that equal subtrees are shared
+     * and can be compared by identity.
+     * Binary nodes are shared once their child nodes are shared, multi nodes are kept as they are, because
+     * their child nodes can still be changed. Shared nodes must not be changed, as they can be used more than
+     * once. The nodes are taken from a stack instead of recursively, so that deep trees can be shared.
+     *
+     * @param root - Root of the tree.
+     *
+     * @return - Shared root of the tree.
+     */
+    public Node share(Node root)
+    {
+        Node[] stack = new Node[16];
+        int[] next = new int[16];
+        int depth = 0;
+        stack[depth++] = root;
+        Node shared = root;
+        
+        while (depth > 0)
+        {
+            Node node = stack[depth - 1];
+            int index = next[depth - 1];
+            
+            if (index < node.getNodeCount())
+            {
+                next[depth - 1]++;
+                Node child = node.getNode(index);
+                
+                if (child != null)
+                {
+                    if (depth == stack.length)
+                    {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                        next = Arrays.copyOf(next, depth * 2);
+                    }
+                    
+                    stack[depth] = child;
+                    next[depth] = 0;
+                    depth++;
+                }
+                
+                continue;
+            }
+            
+            depth--;
+            shared = node instanceof BinaryNode ? intern((BinaryNode) node) : node;
+            
+            if (depth > 0 && shared != node)
+            {
+                replace(stack[depth - 1], next[depth - 1] - 1, shared);
+            }
+        }
+        
+        return shared;
+    }
+    
+    /**
+     * Return the number of nodes in the table.
+     *
+     * @return - Number of shared nodes.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Find the node in the table equal to a node whose child nodes are shared, adding the node if there is none.
+     *
+     * @param node - Node to be found.
+     *
+     * @return - Equal node from the table.
+     */
+    private Node intern(BinaryNode node)
+    {
+        int mask = table.length - 1;
+        
+        for (int i = hash(node) & mask; ; i = (i + 1) & mask)
+        {
+            Node entry = table[i];
+            
+            if (entry == null)
+            {
+                table[i] = node;
+                size++;
+                
+                if (size * 2 > table.length)
+                {
+                    resize();
+                }
+                
+                return node;
+            }
+            
+            if (isEqual((BinaryNode) entry, node))
+            {
+                return entry;
+            }
+        }
+    }
+    
+    /**
+     * Check if two nodes with shared child nodes are equal.
+     *
+     * @param first  - First node.
+     * @param second - Second node.
+     *
+     * @return - Whether or not the nodes are equal.
+     */
+    private static boolean isEqual(BinaryNode first, BinaryNode second)
+    {
+        return first.getType() == second.getType()
+                && Objects.equals(first.getValue(), second.getValue())
+                && first.getLeft() == second.getLeft()
+                && first.getRight() == second.getRight();
+    }
+    
+    /**
+     * Calculate the hash of a node with shared child nodes.
+     *
+     * @param node - Node to be hashed.
+     *
+     * @return - Hash of the node.
+     */
+    private static int hash(BinaryNode node)
+    {
+        int hash = node.getType().hashCode();
+        hash = hash * 31 + Objects.hashCode(node.getValue());
+        hash = hash * 31 + System.identityHashCode(node.getLeft());
+        hash = hash * 31 + System.identityHashCode(node.getRight());
+        
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Double the size of the table.
+     */
+    private void resize()
+    {
+        Node[] old = table;
+        table = new Node[old.length * 2];
+        int mask = table.length - 1;
+        
+        for (Node node : old)
+        {
+            if (node != null)
+            {
+                int i = hash((BinaryNode) node) & mask;
+                
+                while (table[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                
+                table[i] = node;
+            }
+        }
+    }
+    
+    /**
+     * Replace a child node of a node.
+     *
+     * @param parent - Node whose child node is replaced.
+     * @param index  - Position of the child node, as in the list of all child nodes.
+     * @param child  - New child node.
+     */
+    private static void replace(Node parent, int index, Node child)
+    {
+        if (parent instanceof MultiNode)
+        {
+            ((MultiNode) parent).getNodes().set(index, child);
+            return;
+        }
+        
+        BinaryNode binary = (BinaryNode) parent;
+        
+        if (index == 0 && binary.getLeft() != null)
+        {
+            binary.setLeft(child);
+        }
+        else
+        {
+            binary.setRight(child);
+        }
+    }
+}
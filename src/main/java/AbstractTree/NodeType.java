@@ -6,5 +6,184 @@ package AbstractTree;
  */
 public enum  NodeType
 {
-    LOOP, CONDITION, INFIXOP, PRINT, FILE, BLOCK, LINES, BODY, ELSE, LEAF, IF, ASSIGNMENT, NEGATION, FUNCTION, SIGNATURE, NAME, ARG, RETURN
+    LOOP
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitLoop(node);
+        }
+    },
+    CONDITION
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitCondition(node);
+        }
+    },
+    INFIXOP
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitInfixOperation(node);
+        }
+    },
+    PRINT
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitPrint(node);
+        }
+    },
+    FILE
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitFile(node);
+        }
+    },
+    BLOCK
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitBlock(node);
+        }
+    },
+    LINES
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitLines(node);
+        }
+    },
+    BODY
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitBody(node);
+        }
+    },
+    ELSE
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitElse(node);
+        }
+    },
+    LEAF
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitLeaf(node);
+        }
+    },
+    IF
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitIf(node);
+        }
+    },
+    ASSIGNMENT
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitAssignment(node);
+        }
+    },
+    NEGATION
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitNegation(node);
+        }
+    },
+    NOT
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitNot(node);
+        }
+    },
+    FUNCTION
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitFunction(node);
+        }
+    },
+    SIGNATURE
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitSignature(node);
+        }
+    },
+    NAME
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitName(node);
+        }
+    },
+    ARG
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitArg(node);
+        }
+    },
+    RETURN
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitReturn(node);
+        }
+    },
+    CALL
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitCall(node);
+        }
+    },
+    DECLARATION
+    {
+        @Override
+        <R> R accept(AstVisitor<R> visitor, Node node)
+        {
+            return visitor.visitDeclaration(node);
+        }
+    };
+    
+    /**
+     * Call the method of a visitor for this type. Every type overrides the method, so the method of the visitor
+     * is chosen by the type of the node instead of by a switch.
+     *
+     * @param visitor - Visitor to call.
+     * @param node    - Node of this type.
+     * @param <R>     - Type of the visitor's result.
+     *
+     * @return - Result of the visitor.
+     */
+    abstract <R> R accept(AstVisitor<R> visitor, Node node);
 }
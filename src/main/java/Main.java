@@ -1,5 +1,8 @@
+import copyex.DecisionProfiler;
 import gui.CopyexGUI;
 
+import java.io.File;
+
 /**
  * @author DMarinov
  * Created on: 01/Mar/2019
@@ -8,11 +11,36 @@ public class Main
 {
     /**
      * Main starting point of the application.
+     * With the arguments --profile and a list of files, the files are parsed with the decision profiler and
+     * the profile is printed instead of starting the user interface.
      *
      * @param args - Arguments.
      */
     public static void main(String[] args)
     {
+        if (args.length > 0 && args[0].equals("--profile"))
+        {
+            profile(args);
+            return;
+        }
+        
         new CopyexGUI();
     }
+    
+    /**
+     * Profile the decisions of the parser over the files given as arguments and print the profile.
+     *
+     * @param args - Arguments, starting with --profile.
+     */
+    private static void profile(String[] args)
+    {
+        DecisionProfiler profiler = new DecisionProfiler();
+        
+        for (int i = 1; i < args.length; i++)
+        {
+            profiler.profile(new File(args[i]));
+        }
+        
+        System.out.print(profiler.report());
+    }
 }
@@ -0,0 +1,19 @@
+package compiler;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class CompileAbortedException extends RuntimeException
+{
+    /**
+     * Exception used for stopping a compilation which ran out of its budget or was interrupted.
+     * It is not an error of the code, so it is thrown to the caller instead of being reported as one.
+     *
+     * @param message - Reason the compilation was stopped.
+     */
+    public CompileAbortedException(String message)
+    {
+        super("Compilation aborted!\n" + message);
+    }
+}
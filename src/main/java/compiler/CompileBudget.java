@@ -0,0 +1,130 @@
+package compiler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class CompileBudget
+{
+    // Number of steps between two checks of the clock, which is a power of two so that steps can be masked.
+    public static final int CHECK_INTERVAL = 1024;
+    
+    private final Thread owner;
+    private final long start;
+    private final long timeLimit;
+    private final int maxTokens;
+    private final int maxNodes;
+    private final AtomicInteger nodes = new AtomicInteger();
+    private int checkedTokens = 0;
+    
+    /**
+     * Create budget for a compilation started by the current thread.
+     * The compilation is stopped once it runs longer than the time limit, lexes more tokens or creates more nodes
+     * than allowed, or the current thread is interrupted, even if the work is done by other threads.
+     *
+     * @param timeLimit - Largest number of nanoseconds the compilation may take, 0 for no limit.
+     * @param maxTokens - Largest number of tokens of the code, 0 for no limit.
+     * @param maxNodes  - Largest number of nodes of the abstract syntax tree, 0 for no limit.
+     */
+    public CompileBudget(long timeLimit, int maxTokens, int maxNodes)
+    {
+        this.owner = Thread.currentThread();
+        this.start = System.nanoTime();
+        this.timeLimit = timeLimit;
+        this.maxTokens = maxTokens;
+        this.maxNodes = maxNodes;
+    }
+    
+    /**
+     * Stop the compilation if the thread which started it was interrupted or the time limit has passed.
+     * Reading the clock is not free, so long loops call this once every CHECK_INTERVAL steps.
+     *
+     * @throws CompileAbortedException - If the compilation must be stopped.
+     */
+    public void check()
+    {
+        if (owner.isInterrupted())
+        {
+            throw new CompileAbortedException("Compilation was interrupted!");
+        }
+        
+        if (timeLimit > 0 && System.nanoTime() - start > timeLimit)
+        {
+            throw new CompileAbortedException("Compilation took longer than " + TimeUnit.NANOSECONDS.toMillis(timeLimit) + " ms!");
+        }
+    }
+    
+    /**
+     * Stop the compilation if the code has more tokens than allowed, and check the time once every
+     * CHECK_INTERVAL tokens. Lexing the code again counts the same tokens, so the number of tokens lexed so far
+     * is given instead of the number of new tokens. The tokens are only lexed by the thread which started the
+     * compilation.
+     *
+     * @param tokens - Number of tokens lexed so far.
+     *
+     * @throws CompileAbortedException - If the compilation must be stopped.
+     */
+    public void checkTokens(int tokens)
+    {
+        if (maxTokens > 0 && tokens > maxTokens)
+        {
+            throw new CompileAbortedException("Code has more than " + maxTokens + " tokens!");
+        }
+        
+        // Tokens can be counted in batches, and the count starts again when the code is lexed again.
+        if (tokens - checkedTokens >= CHECK_INTERVAL || tokens < checkedTokens)
+        {
+            checkedTokens = tokens;
+            check();
+        }
+    }
+    
+    /**
+     * Start counting the nodes of a new abstract syntax tree, which may already hold nodes created before.
+     *
+     * @param nodes - Number of nodes the tree already holds.
+     */
+    public void resetNodes(int nodes)
+    {
+        this.nodes.set(nodes);
+    }
+    
+    /**
+     * Return the number of nodes counted since the tree was started.
+     *
+     * @return - Number of nodes.
+     */
+    public int getNodes()
+    {
+        return nodes.get();
+    }
+    
+    /**
+     * Count a node created for the abstract syntax tree, and stop the compilation as soon as the tree has more
+     * nodes than allowed. The nodes of a tree may be created by several threads at once.
+     *
+     * @throws CompileAbortedException - If the tree has more nodes than allowed.
+     */
+    public void addNode()
+    {
+        checkNodes(nodes.incrementAndGet());
+    }
+    
+    /**
+     * Stop the compilation if the abstract syntax tree has more nodes than allowed.
+     *
+     * @param nodes - Number of nodes of the tree.
+     *
+     * @throws CompileAbortedException - If the compilation must be stopped.
+     */
+    public void checkNodes(int nodes)
+    {
+        if (maxNodes > 0 && nodes > maxNodes)
+        {
+            throw new CompileAbortedException("Abstract syntax tree has more than " + maxNodes + " nodes!");
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package compiler;
 
 import AbstractTree.AbstractSyntaxTree;
-import AbstractTree.Node;
+import AbstractTree.FlatSyntaxTree;
 import AbstractTree.NodeType;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * @author DMarinov
@@ -12,10 +14,45 @@ import java.util.List;
  */
 public class PythonCompiler
 {
+    private static final int NODE = 0;
+    private static final int OPERATOR = 1;
+    private static final int OPEN = 2;
+    private static final int CLOSE = 3;
+    
     private Integer indentLevel = 0;
+    private FlatSyntaxTree tree;
+    private int[] stack = new int[16];
+    private int stackSize = 0;
+    private boolean parallelFunctions = false;
+    private CompileBudget budget;
+    private int steps = 0;
+    
+    /**
+     * Enable or disable compiling the top-level blocks and functions in parallel.
+     * When enabled every child of the file node is compiled by a fork/join task with its own compiler, and the
+     * python code of the children is joined in the order of the code, so it is the same as compiled sequentially.
+     *
+     * @param parallelFunctions - Whether or not to compile the functions in parallel.
+     */
+    public void setParallelFunctions(boolean parallelFunctions)
+    {
+        this.parallelFunctions = parallelFunctions;
+    }
+    
+    /**
+     * Set the budget of the compilation, which is checked while the tree is walked.
+     *
+     * @param budget - Budget of the compilation, null to compile without one.
+     */
+    public void setBudget(CompileBudget budget)
+    {
+        this.budget = budget;
+    }
     
     /**
      * Compile abstract tree into python code.
+     * The tree is copied into a flat tree on the heap every time it is compiled. To compile a tree more than once,
+     * or to store it outside of the heap, flatten it once and compile the flat tree instead.
      *
      * @param tree - Abstract syntax tree.
      *
@@ -23,7 +60,42 @@ public class PythonCompiler
      */
     public String compilePython(AbstractSyntaxTree tree)
     {
-        return walk(tree.getRoot());
+        return compilePython(tree.flatten(false));
+    }
+    
+    /**
+     * Compile flat tree into python code.
+     *
+     * @param tree - Flat syntax tree.
+     *
+     * @return - Compiled python.
+     *
+     * @throws CompileAbortedException - If the tree has more nodes than the budget allows, the time limit has passed
+     *                                 or the thread which started the compilation was interrupted.
+     */
+    public String compilePython(FlatSyntaxTree tree)
+    {
+        this.tree = tree;
+        
+        try
+        {
+            if (budget != null)
+            {
+                budget.checkNodes(tree.presentSize());
+            }
+            
+            if (parallelFunctions && tree.getType(tree.getRoot()) == NodeType.FILE)
+            {
+                return walkFileParallel(tree.getRoot());
+            }
+            
+            return walkLine(tree.getRoot());
+        }
+        finally
+        {
+            this.tree = null;
+            stackSize = 0;
+        }
     }
     
     /**
@@ -33,92 +105,122 @@ public class PythonCompiler
      *
      * @return - Compiled python code.
      */
-    private String walk(Node node)
+    private String walk(int node)
     {
-        if (node == null)
+        step();
+        NodeType type = tree.getType(node);
+        
+        if (type == null)
         {
             return "";
         }
         
         StringBuilder code = new StringBuilder();
-        List<Node> nodes = node.getNodes();
         
-        if (node.getType() == NodeType.LEAF)
-        {
-            return walkLeaf(node, code);
-        }
-        else if (node.getType() == NodeType.ASSIGNMENT)
-        {
-            return walkAssignment(node, code, nodes);
-        }
-        else if (node.getType() == NodeType.NEGATION)
-        {
-            return walkNegation(node, code, nodes);
-        }
-        else if (node.getType() == NodeType.RETURN)
-        {
-            return walkReturn(node, code, nodes);
-        }
-        else if (node.getType() == NodeType.INFIXOP)
-        {
-            return walkInfixop(node, code, nodes);
-        }
-        else if (node.getType() == NodeType.PRINT)
-        {
-            return walkPrint(code, nodes);
-        }
-        else if (node.getType() == NodeType.NAME)
+        switch (type)
         {
-            return walkName(node, code);
-        }
-        else if (node.getType() == NodeType.ARG)
-        {
-            return walkArgs(node, code);
-        }
-        else if (node.getType() == NodeType.CONDITION)
-        {
-            return walkConditional(code, nodes);
+            case LEAF:
+            case NEGATION:
+            case NOT:
+            case INFIXOP:
+                walkExpression(node, code);
+                return code.toString();
+            case ASSIGNMENT:
+                return walkAssignment(node, code);
+            case RETURN:
+                return walkReturn(node, code);
+            case PRINT:
+                return walkPrint(node, code);
+            case NAME:
+                return walkName(node, code);
+            case ARG:
+                return walkArgs(node, code);
+            case CONDITION:
+                return walkConditional(node, code);
+            case LOOP:
+                return walkLoop(node, code);
+            case FUNCTION:
+                return walkFunction(node, code);
+            case CALL:
+                return walkCall(node, code);
+            case DECLARATION:
+                return "";
+            case LINES:
+                for (int i = 0; i < tree.getNodeCount(node); i++)
+                {
+                    code.append(walkLine(tree.getNode(node, i)));
+                }
+                
+                return code.toString();
+            default:
+                for (int i = 0; i < tree.getNodeCount(node); i++)
+                {
+                    code.append(walk(tree.getNode(node, i)));
+                }
+                
+                return code.toString();
         }
-        else if (node.getType() == NodeType.LOOP)
+    }
+    
+    /**
+     * Count a step of walking the tree, and check the budget once every CHECK_INTERVAL steps.
+     */
+    private void step()
+    {
+        if (budget != null && (++steps & (CompileBudget.CHECK_INTERVAL - 1)) == 0)
         {
-            return walkLoop(code, nodes);
+            budget.check();
         }
-        else if (node.getType() == NodeType.FUNCTION)
+    }
+    
+    /**
+     * Walk file node and compile its children into python in parallel.
+     *
+     * @param node - File node.
+     *
+     * @return - Compiled python code.
+     */
+    private String walkFileParallel(int node)
+    {
+        String[] children = new String[tree.getNodeCount(node)];
+        
+        if (children.length > 0)
         {
-            return walkFunction(code, nodes);
+            ForkJoinPool.commonPool().invoke(new ChildTask(tree, budget, node, children, 0, children.length));
         }
-        else
+        
+        StringBuilder code = new StringBuilder();
+        
+        for (String child : children)
         {
-            for (Node n : nodes)
-            {
-                code.append(walk(n));
-            }
-            
-            return code.toString();
+            code.append(child);
         }
+        
+        return code.toString();
     }
     
     /**
-     * Walk function nodes and compile them into python.
+     * Walk function node and compile it into python.
      *
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of function nodes.
+     * @param node - Function node.
+     * @param code - String builder holding compiled code.
      *
      * @return - Compiled python code.
      */
-    private String walkFunction(StringBuilder code, List<Node> nodes)
+    private String walkFunction(int node, StringBuilder code)
     {
         code.append("def ");
         
-        List<Node> signature = nodes.get(0).getNodes();
-        code.append(walk(signature.get(0)));
+        int signature = tree.getNode(node, 0);
+        int size = tree.getNodeCount(signature);
+        code.append(walk(tree.getNode(signature, 0)));
         
         code.append("(");
-        for (int i = 1; i < signature.size(); i++)
+        for (int i = 1; i < size; i++)
         {
-            code.append(walk(signature.get(i)));
+            code.append(walk(tree.getNode(signature, i)));
             
-            if (i < signature.size() - 1)
+            if (i < size - 1)
             {
                 code.append(",");
             }
@@ -127,9 +229,7 @@ public class PythonCompiler
         
         indentLevel = indentLevel + 1;
         
-        List<Node> body = nodes.get(1).getNodes();
-        
-        walkLines(code, body);
+        walkLines(code, tree.getNode(node, 1));
         
         indentLevel = indentLevel - 1;
         code.append("\n");
@@ -137,24 +237,67 @@ public class PythonCompiler
     }
     
     /**
-     * Walk loop nodes and compile them into python.
+     * Walk function call node and compile it into python.
+     *
+     * @param node - Function call node.
+     * @param code - String builder holding compiled code.
+     *
+     * @return - Compiled python code.
+     */
+    private String walkCall(int node, StringBuilder code)
+    {
+        code.append(tree.getValue(node)).append("(");
+        
+        for (int i = 0; i < tree.getNodeCount(node); i++)
+        {
+            if (i > 0)
+            {
+                code.append(",");
+            }
+            
+            code.append(walk(tree.getNode(node, i)));
+        }
+        
+        code.append(")");
+        
+        return code.toString();
+    }
+    
+    /**
+     * Walk a line and compile it into python. Function calls are the only lines which do not end the line
+     * themselves, as they can also be the value of an assignment.
      *
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of loop nodes.
+     * @param node - Line node.
      *
      * @return - Compiled python code.
      */
-    private String walkLoop(StringBuilder code, List<Node> nodes)
+    private String walkLine(int node)
+    {
+        if (tree.getType(node) == NodeType.CALL)
+        {
+            return walk(node) + "\n";
+        }
+        
+        return walk(node);
+    }
+    
+    /**
+     * Walk loop node and compile it into python.
+     *
+     * @param node - Loop node.
+     * @param code - String builder holding compiled code.
+     *
+     * @return - Compiled python code.
+     */
+    private String walkLoop(int node, StringBuilder code)
     {
         code.append("while ");
-        code.append(walk(nodes.get(0)));
+        code.append(walk(tree.getNode(node, 0)));
         code.append(":\n");
         
         indentLevel = indentLevel + 1;
         
-        List<Node> body = nodes.get(1).getNodes();
-        
-        walkLines(code, body);
+        walkLines(code, tree.getNode(node, 1));
         
         indentLevel = indentLevel - 1;
         
@@ -169,10 +312,9 @@ public class PythonCompiler
      *
      * @return - Compiled python code.
      */
-    private String walkArgs(Node node, StringBuilder code)
+    private String walkArgs(int node, StringBuilder code)
     {
-        List<Node> name = node.getNodes();
-        code.append(name.get(0).getValue());
+        code.append(tree.getValue(tree.getNode(node, 0)));
         return code.toString();
     }
     
@@ -184,63 +326,41 @@ public class PythonCompiler
      *
      * @return - Compiled python code.
      */
-    private String walkName(Node node, StringBuilder code)
+    private String walkName(int node, StringBuilder code)
     {
-        List<Node> name = node.getNodes();
-        code.append(name.get(0).getValue());
+        code.append(tree.getValue(tree.getNode(node, 0)));
         return code.toString();
     }
     
     /**
-     * Walk print nodes and compile them into python.
+     * Walk print node and compile it into python.
      *
-     * @param code  -  String builder holding compiled code.
-     * @param nodes -  List of print nodes.
+     * @param node -  Print node.
+     * @param code -  String builder holding compiled code.
      *
      * @return - Compiled python code.
      */
-    private String walkPrint(StringBuilder code, List<Node> nodes)
+    private String walkPrint(int node, StringBuilder code)
     {
         code.append("print(");
-        code.append(walk(nodes.get(0)));
+        code.append(walk(tree.getNode(node, 0)));
         code.append(")\n");
         return code.toString();
     }
     
-    /**
-     * Walk infix operator node and compile it into python.
-     *
-     * @param node  - Infix operator node.
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of nodes for body of infix operator.
-     *
-     * @return - Compiled python code.
-     */
-    private String walkInfixop(Node node, StringBuilder code, List<Node> nodes)
-    {
-        code.append(walk(nodes.get(0)));
-        code.append(" ");
-        code.append(node.getValue()).append(" ");
-        node.getType();
-        code.append(walk(nodes.get(1)));
-        
-        return code.toString();
-    }
-    
     /**
      * Walk return node and compile it into python.
      *
-     * @param node  - Return node.
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of nodes for body of return operator.
+     * @param node - Return node.
+     * @param code - String builder holding compiled code.
      *
      * @return - Compiled python code.
      */
-    private String walkReturn(Node node, StringBuilder code, List<Node> nodes)
+    private String walkReturn(int node, StringBuilder code)
     {
-        code.append(node.getValue());
+        code.append(tree.getValue(node));
         code.append(" ");
-        code.append(walk(nodes.get(0)));
+        code.append(walk(tree.getNode(node, 0)));
         
         return code.toString();
     }
@@ -248,28 +368,26 @@ public class PythonCompiler
     /**
      * Walk conditional node and compile it into python.
      *
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of nodes for the conditional operator.
+     * @param node - Conditional node.
+     * @param code - String builder holding compiled code.
      *
      * @return - Compiled python code.
      */
-    private String walkConditional(StringBuilder code, List<Node> nodes)
+    private String walkConditional(int node, StringBuilder code)
     {
         code.append("if ");
         
-        code.append(walk(nodes.get(0)));
+        code.append(walk(tree.getNode(node, 0)));
         code.append(":");
         code.append("\n");
         
         indentLevel = indentLevel + 1;
         
-        List<Node> ifBody = nodes.get(1).getNodes();
-        
-        walkLines(code, ifBody);
+        walkLines(code, tree.getNode(node, 1));
         
         indentLevel = indentLevel - 1;
         
-        if (nodes.size() == 3)
+        if (tree.getNodeCount(node) == 3)
         {
             for (int i = 0; i < indentLevel * 4; i++)
             {
@@ -279,9 +397,7 @@ public class PythonCompiler
             
             indentLevel = indentLevel + 1;
             
-            List<Node> elseBody = nodes.get(2).getNodes();
-            
-            walkLines(code, elseBody);
+            walkLines(code, tree.getNode(node, 2));
             
             indentLevel = indentLevel - 1;
         }
@@ -290,73 +406,195 @@ public class PythonCompiler
     }
     
     /**
-     * Walk negation node and compile it into python.
+     * Walk assignment node and compile it into python. The variable of an initialisation is the child of its
+     * declaration node.
      *
-     * @param node  - Negation node.
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of nodes for body of negation node.
+     * @param node - Assignment node.
+     * @param code - String builder holding compiled code.
      *
      * @return - Compiled python code.
      */
-    private String walkNegation(Node node, StringBuilder code, List<Node> nodes)
+    private String walkAssignment(int node, StringBuilder code)
     {
-        code.append(node.getValue());
-        code.append(walk(nodes.get(0)));
+        int variable = tree.getNode(node, 0);
+        
+        if (tree.getType(variable) == NodeType.DECLARATION)
+        {
+            variable = tree.getNode(variable, 0);
+        }
+        
+        code.append(walk(variable));
+        code.append(" ").append(tree.getValue(node)).append(" ");
+        code.append(walk(tree.getNode(node, 1)));
+        code.append("\n");
         
         return code.toString();
     }
     
     /**
-     * Walk assignment node and compile it into python.
+     * Walk an expression and compile it into python.
+     * The nodes are taken from a stack instead of recursively, so that long chains of operations, which are
+     * nested as deep as they are long, can be compiled. Operands which bind less tightly than their operation,
+     * because they were grouped in the code, are put in parentheses.
      *
-     * @param node  - Assignment node.
-     * @param code  - String builder holding compiled code.
-     * @param nodes - List of nodes for body of assignment node.
+     * @param node - Root node of the expression.
+     * @param code - String builder holding compiled code.
+     */
+    private void walkExpression(int node, StringBuilder code)
+    {
+        // Each entry of the stack is a node shifted by two bits, with the kind of the entry in the lowest bits.
+        // Entries below the base belong to an enclosing expression.
+        int base = stackSize;
+        push(node, NODE);
+        
+        while (stackSize > base)
+        {
+            step();
+            int entry = stack[--stackSize];
+            int next = entry >> 2;
+            
+            switch (entry & 3)
+            {
+                case OPERATOR:
+                    code.append(" ").append(tree.getValue(next)).append(" ");
+                    continue;
+                case OPEN:
+                    code.append("(");
+                    continue;
+                case CLOSE:
+                    code.append(")");
+                    continue;
+            }
+            
+            switch (tree.getType(next))
+            {
+                case LEAF:
+                    code.append(tree.getValue(next));
+                    break;
+                case NEGATION:
+                    code.append(tree.getValue(next));
+                    pushOperand(next, tree.getNode(next, 0), false);
+                    break;
+                case NOT:
+                    code.append(tree.getValue(next)).append(" ");
+                    pushOperand(next, tree.getNode(next, 0), false);
+                    break;
+                case INFIXOP:
+                    pushOperand(next, tree.getNode(next, 1), true);
+                    push(next, OPERATOR);
+                    pushOperand(next, tree.getNode(next, 0), false);
+                    break;
+                default:
+                    code.append(walk(next));
+            }
+        }
+    }
+    
+    /**
+     * Push an operand of an operation to the stack, in parentheses if it binds less tightly than the operation.
      *
-     * @return - Compiled python code.
+     * @param operation - Operation node.
+     * @param operand   - Operand node, nothing is compiled for a missing node.
+     * @param isRight   - Whether or not the operand is the right operand of an infix operation, which also needs
+     *                  parentheses if it binds as tightly as the operation.
      */
-    private String walkAssignment(Node node, StringBuilder code, List<Node> nodes)
+    private void pushOperand(int operation, int operand, boolean isRight)
     {
-        code.append(walk(nodes.get(0)));
-        code.append(" ").append(node.getValue()).append(" ");
-        node.getType();
-        code.append(walk(nodes.get(1)));
-        code.append("\n");
+        if (tree.getType(operand) == null)
+        {
+            return;
+        }
         
-        return code.toString();
+        int difference = precedence(operand) - precedence(operation);
+        boolean parentheses = difference < 0 || (difference == 0 && isRight);
+        
+        if (parentheses)
+        {
+            push(0, CLOSE);
+        }
+        
+        push(operand, NODE);
+        
+        if (parentheses)
+        {
+            push(0, OPEN);
+        }
     }
     
     /**
-     * Walk leaf node and compile it into python.
+     * Push an entry to the stack of the expression being compiled.
      *
-     * @param node - Leaf node.
-     * @param code - String builder holding compiled code.
+     * @param node - Node of the entry.
+     * @param kind - Kind of the entry.
+     */
+    private void push(int node, int kind)
+    {
+        if (stackSize == stack.length)
+        {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        
+        stack[stackSize++] = node << 2 | kind;
+    }
+    
+    /**
+     * Return the precedence of an expression node in python, with higher precedence binding more tightly.
      *
-     * @return - Compiled python code.
+     * @param node - Expression node.
+     *
+     * @return - Precedence of the node.
      */
-    private String walkLeaf(Node node, StringBuilder code)
+    private int precedence(int node)
     {
-        code.append(node.getValue());
-        return code.toString();
+        switch (tree.getType(node))
+        {
+            case INFIXOP:
+                switch (tree.getValue(node))
+                {
+                    case "or":
+                        return 1;
+                    case "and":
+                        return 2;
+                    case "+":
+                    case "-":
+                        return 5;
+                    case "*":
+                    case "/":
+                    case "%":
+                        return 6;
+                    default:
+                        // Comparisons.
+                        return 4;
+                }
+            case NOT:
+                return 3;
+            case NEGATION:
+                return 7;
+            default:
+                return 8;
+        }
     }
     
     /**
-     * Walk lines node and compile them into python.
+     * Walk the lines of a body node and compile them into python. Declarations have no python code, so they
+     * are left out instead of being indented.
      *
-     * @param code   - String builder holding compiled code.
-     * @param ifBody - List of line nodes.
+     * @param code - String builder holding compiled code.
+     * @param body - Body node.
      */
-    private void walkLines(StringBuilder code, List<Node> ifBody)
+    private void walkLines(StringBuilder code, int body)
     {
-        for (Node n : ifBody)
+        for (int i = 0; i < tree.getNodeCount(body); i++)
         {
-            if (n.getType() == NodeType.LINES)
+            int n = tree.getNode(body, i);
+            
+            if (tree.getType(n) == NodeType.LINES)
             {
-                List<Node> lines = n.getNodes();
-                
-                for (Node l : lines)
+                for (int j = 0; j < tree.getNodeCount(n); j++)
                 {
-                    if (l != null)
+                    int l = tree.getNode(n, j);
+                    
+                    if (tree.getType(l) != null && tree.getType(l) != NodeType.DECLARATION)
                     {
                         indent(code, l);
                     }
@@ -375,12 +613,65 @@ public class PythonCompiler
      * @param code - String builder holding compiled code.
      * @param l    - Lines to walk with indent.
      */
-    private void indent(StringBuilder code, Node l)
+    private void indent(StringBuilder code, int l)
     {
         for (int i = 0; i < indentLevel * 4; i++)
         {
             code.append(" ");
         }
-        code.append(walk(l));
+        code.append(walkLine(l));
+    }
+    
+    /**
+     * Task compiling a range of the children of the file node, split in halves until each task compiles a
+     * single child.
+     */
+    private static class ChildTask extends RecursiveAction
+    {
+        private final FlatSyntaxTree tree;
+        private final CompileBudget budget;
+        private final int file;
+        private final String[] children;
+        private final int from;
+        private final int to;
+        
+        /**
+         * Create task for a range of the children of the file node.
+         *
+         * @param tree     - Flat syntax tree, which is only read.
+         * @param budget   - Budget of the compilation, or null.
+         * @param file     - File node.
+         * @param children - Compiled python code of every child.
+         * @param from     - Position of the first child.
+         * @param to       - Position after the last child.
+         */
+        ChildTask(FlatSyntaxTree tree, CompileBudget budget, int file, String[] children, int from, int to)
+        {
+            this.tree = tree;
+            this.budget = budget;
+            this.file = file;
+            this.children = children;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Compile the child of the task, or split the range between two tasks.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                PythonCompiler compiler = new PythonCompiler();
+                compiler.tree = tree;
+                compiler.budget = budget;
+                children[from] = compiler.walk(tree.getNode(file, from));
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChildTask(tree, budget, file, children, from, middle), new ChildTask(tree, budget, file, children, middle, to));
+        }
     }
 }
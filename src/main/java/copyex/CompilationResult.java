@@ -0,0 +1,97 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public final class CompilationResult
+{
+    private final AbstractSyntaxTree tree;
+    private final String python;
+    private final List<CopyexDiagnostic> diagnostics;
+    private final long parseTime;
+    private final long compileTime;
+    
+    /**
+     * Create result of a compilation.
+     *
+     * @param tree        - Abstract syntax tree of the code, or null if the code could not be parsed.
+     * @param python      - Compiled python code, or null if the code could not be compiled.
+     * @param diagnostics - Errors of the code.
+     * @param parseTime   - Nanoseconds spent parsing the code.
+     * @param compileTime - Nanoseconds spent compiling the tree.
+     */
+    CompilationResult(AbstractSyntaxTree tree, String python, List<CopyexDiagnostic> diagnostics, long parseTime, long compileTime)
+    {
+        this.tree = tree;
+        this.python = python;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.parseTime = parseTime;
+        this.compileTime = compileTime;
+    }
+    
+    /**
+     * Check if the code was compiled without errors.
+     *
+     * @return - Whether or not the code was compiled.
+     */
+    public boolean isSuccessful()
+    {
+        return python != null;
+    }
+    
+    /**
+     * Return the abstract syntax tree of the code. The tree belongs to this result only.
+     *
+     * @return - Abstract syntax tree, or null if the code could not be parsed.
+     */
+    public AbstractSyntaxTree getTree()
+    {
+        return tree;
+    }
+    
+    /**
+     * Return the compiled python code.
+     *
+     * @return - Compiled python code, or null if the code could not be compiled.
+     */
+    public String getPython()
+    {
+        return python;
+    }
+    
+    /**
+     * Return the errors of the code, which is the error that stopped the compilation.
+     *
+     * @return - Errors of the code, empty if it was compiled.
+     */
+    public List<CopyexDiagnostic> getDiagnostics()
+    {
+        return diagnostics;
+    }
+    
+    /**
+     * Return the time spent parsing and checking the code, or reading it from the cache.
+     *
+     * @return - Parse time in nanoseconds.
+     */
+    public long getParseTime()
+    {
+        return parseTime;
+    }
+    
+    /**
+     * Return the time spent compiling the tree into python, or reading it from the cache.
+     *
+     * @return - Compile time in nanoseconds.
+     */
+    public long getCompileTime()
+    {
+        return compileTime;
+    }
+}
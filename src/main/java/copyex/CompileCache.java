@@ -0,0 +1,404 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+import AbstractTree.AstReader;
+import AbstractTree.AstWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class CompileCache
+{
+    // Raised whenever the python or the tree compiled from the same code changes, so that older entries are not used.
+    private static final int VERSION = 2;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final int capacity;
+    private final Path directory;
+    private final boolean storeTrees;
+    private final Map<String, CachedCode> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    /**
+     * Create cache which keeps the compiled code in memory only.
+     *
+     * @param capacity - Largest number of entries kept in memory.
+     */
+    public CompileCache(int capacity)
+    {
+        this(capacity, null, false);
+    }
+    
+    /**
+     * Create cache which keeps the compiled code in memory and in a directory.
+     * The entries in memory are evicted once there are more of them than the capacity, least recently used first,
+     * while the entries in the directory are kept until they are deleted.
+     *
+     * @param capacity   - Largest number of entries kept in memory.
+     * @param directory  - Directory to store the entries in, or null to keep them in memory only.
+     * @param storeTrees - Whether or not to store the abstract syntax tree of the code with its python code, so that
+     *                   parsing code which is cached is skipped as well.
+     */
+    public CompileCache(int capacity, File directory, boolean storeTrees)
+    {
+        this.capacity = capacity;
+        this.directory = directory == null ? null : directory.toPath();
+        this.storeTrees = storeTrees;
+        this.entries = new LinkedHashMap<String, CachedCode>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCode> eldest)
+            {
+                if (size() <= CompileCache.this.capacity)
+                {
+                    return false;
+                }
+                
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Return the number of look ups which found the code in memory.
+     *
+     * @return - Number of hits in memory.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+    
+    /**
+     * Return the number of look ups which found the code in the directory but not in memory.
+     *
+     * @return - Number of hits in the directory.
+     */
+    public long getDiskHits()
+    {
+        return diskHits.get();
+    }
+    
+    /**
+     * Return the number of look ups which did not find the code.
+     *
+     * @return - Number of misses.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+    
+    /**
+     * Return the number of entries which were evicted from memory.
+     *
+     * @return - Number of evictions.
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+    
+    /**
+     * Return the number of entries in memory.
+     *
+     * @return - Number of entries in memory.
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * Remove all entries from memory. The entries in the directory are kept.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+    
+    /**
+     * Create the key of a code, which is a hash of the code, the version of the compiler and the grammar, and
+     * the options the code is compiled with.
+     *
+     * @param code    - Code to be compiled.
+     * @param options - Options the code is compiled with.
+     *
+     * @return - Key of the code as hexadecimal digits.
+     */
+    String key(String code, String options)
+    {
+        MessageDigest digest;
+        
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        
+        String header = VERSION + ":" + CopyexParser._serializedATN.hashCode() + ":" + options + "\n";
+        digest.update(header.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest(code.getBytes(StandardCharsets.UTF_8));
+        
+        char[] key = new char[hash.length * 2];
+        
+        for (int i = 0; i < hash.length; i++)
+        {
+            key[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            key[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        
+        return new String(key);
+    }
+    
+    /**
+     * Look up the entry of a code in memory and then in the directory.
+     *
+     * @param key - Key of the code.
+     *
+     * @return - Entry of the code, or null if it is not cached.
+     */
+    CachedCode get(String key)
+    {
+        synchronized (entries)
+        {
+            CachedCode entry = entries.get(key);
+            
+            if (entry != null)
+            {
+                hits.incrementAndGet();
+                return entry;
+            }
+        }
+        
+        CachedCode entry = load(key);
+        
+        if (entry == null)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        diskHits.incrementAndGet();
+        
+        synchronized (entries)
+        {
+            entries.put(key, entry);
+        }
+        
+        return entry;
+    }
+    
+    /**
+     * Add the compiled code of a code to memory and to the directory.
+     *
+     * @param key    - Key of the code.
+     * @param python - Compiled python code.
+     * @param tree   - Abstract syntax tree of the code, which is only stored if trees are stored.
+     */
+    void put(String key, String python, AbstractSyntaxTree tree)
+    {
+        byte[] treeBytes = storeTrees ? write(tree) : null;
+        CachedCode entry = new CachedCode(python, treeBytes);
+        
+        synchronized (entries)
+        {
+            entries.put(key, entry);
+        }
+        
+        store(key, entry);
+    }
+    
+    /**
+     * Read the entry of a code from the directory.
+     *
+     * @param key - Key of the code.
+     *
+     * @return - Entry of the code, or null if it is not in the directory.
+     */
+    private CachedCode load(String key)
+    {
+        if (directory == null)
+        {
+            return null;
+        }
+        
+        try
+        {
+            String python = new String(Files.readAllBytes(directory.resolve(key + ".py")), StandardCharsets.UTF_8);
+            byte[] treeBytes = null;
+            
+            if (storeTrees)
+            {
+                try
+                {
+                    treeBytes = Files.readAllBytes(directory.resolve(key + ".ast"));
+                }
+                catch (NoSuchFileException e)
+                {
+                    // The code was stored without its tree, so only compiling it is skipped.
+                }
+            }
+            
+            return new CachedCode(python, treeBytes);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * Write the entry of a code to the directory.
+     * Every file is written to a temporary file first and then moved in place, so that other processes never
+     * read a partly written entry. The python code is moved last, as it marks the entry as complete.
+     *
+     * @param key   - Key of the code.
+     * @param entry - Entry of the code.
+     */
+    private void store(String key, CachedCode entry)
+    {
+        if (directory == null)
+        {
+            return;
+        }
+        
+        try
+        {
+            Files.createDirectories(directory);
+            
+            if (entry.treeBytes != null)
+            {
+                storeFile(key + ".ast", entry.treeBytes);
+            }
+            
+            storeFile(key + ".py", entry.python.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            // The entry is only kept in memory if it cannot be stored.
+        }
+    }
+    
+    /**
+     * Write a file of the directory through a temporary file.
+     *
+     * @param name  - Name of the file.
+     * @param bytes - Content of the file.
+     *
+     * @throws IOException - If the file cannot be written.
+     */
+    private void storeFile(String name, byte[] bytes) throws IOException
+    {
+        Path temporary = Files.createTempFile(directory, name, ".tmp");
+        
+        try
+        {
+            Files.write(temporary, bytes);
+            Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    /**
+     * Serialize an abstract syntax tree.
+     *
+     * @param tree - Tree to be serialized.
+     *
+     * @return - Bytes of the tree, or null if it could not be serialized.
+     */
+    private static byte[] write(AbstractSyntaxTree tree)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        
+        try (AstWriter writer = new AstWriter(bytes))
+        {
+            writer.write(tree);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Compiled code of a code, with the serialized abstract syntax tree of the code if trees are stored.
+     */
+    static class CachedCode
+    {
+        private final String python;
+        private final byte[] treeBytes;
+        
+        private CachedCode(String python, byte[] treeBytes)
+        {
+            this.python = python;
+            this.treeBytes = treeBytes;
+        }
+        
+        /**
+         * Return the compiled python code.
+         *
+         * @return - Compiled python code.
+         */
+        String getPython()
+        {
+            return python;
+        }
+        
+        /**
+         * Read a new copy of the abstract syntax tree, which can be changed without changing the entry.
+         *
+         * @return - Abstract syntax tree, or null if the tree is not stored or cannot be read.
+         */
+        AbstractSyntaxTree getTree()
+        {
+            if (treeBytes == null)
+            {
+                return null;
+            }
+            
+            try (AstReader reader = new AstReader(new ByteArrayInputStream(treeBytes)))
+            {
+                return reader.read();
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package copyex;
+
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+
+import java.util.ArrayList;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class CompileContext
+{
+    private static final ThreadLocal<CompileContext> CONTEXT = ThreadLocal.withInitial(CompileContext::new);
+    // Largest number of tokens whose list capacity the token stream keeps when it is given a new token source.
+    private static final int MAX_KEPT_TOKENS = 1 << 16;
+    
+    private final CopyexLexer lexer;
+    private final CommonTokenStream tokens;
+    private final CopyexParser parser;
+    private final CopyexParserErrorStrategy errorStrategy = new CopyexParserErrorStrategy();
+    private final BailErrorStrategy bailStrategy = new BailErrorStrategy();
+    private final HandWrittenLexer handWrittenLexer = new HandWrittenLexer();
+    private final TokenBuffer buffer = new TokenBuffer();
+    private final TokenBufferSource bufferSource;
+    private CompileBudget budget;
+    
+    /**
+     * Create lexer, token stream and parser without an input.
+     */
+    private CompileContext()
+    {
+        lexer = new CopyexLexer(null);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new CopyexLexerErrorListener());
+        tokens = new CommonTokenStream(lexer)
+        {
+            @Override
+            protected int fetch(int n)
+            {
+                int fetched = super.fetch(n);
+                
+                if (budget != null)
+                {
+                    budget.checkTokens(size());
+                }
+                
+                return fetched;
+            }
+            
+            @Override
+            public void setTokenSource(TokenSource tokenSource)
+            {
+                // Clearing the list of tokens keeps its capacity.
+                if (tokens.size() > MAX_KEPT_TOKENS)
+                {
+                    tokens = new ArrayList<>();
+                }
+                
+                super.setTokenSource(tokenSource);
+            }
+        };
+        bufferSource = new TokenBufferSource(lexer);
+        parser = new CopyexParser(null);
+    }
+    
+    /**
+     * Return the context of the current thread.
+     * The context is reused by every compilation on the thread, so it must not be shared between threads.
+     *
+     * @return - Context of the current thread.
+     */
+    static CompileContext get()
+    {
+        return CONTEXT.get();
+    }
+    
+    /**
+     * Set the budget of the compilation run on the current thread.
+     * The tokens are counted as the token stream fetches them from the lexer for the parser, and as the hand-written
+     * lexer adds them to the token buffer, so both lexing and parsing stop once the budget is spent.
+     *
+     * @param budget - Budget of the compilation, null once it is finished.
+     */
+    void setBudget(CompileBudget budget)
+    {
+        this.budget = budget;
+        buffer.setBudget(budget);
+    }
+    
+    /**
+     * Detach the last input, its tokens and the budget from the context once a compilation is finished, so that
+     * the thread does not keep them alive until its next compilation. The parser is reset with a new prediction
+     * simulator, as the old one keeps the last context it predicted in, which holds on to the parse tree.
+     * The prediction states are shared by the parsers of every thread and are kept.
+     */
+    void release()
+    {
+        setBudget(null);
+        
+        lexer.setInputStream(null);
+        tokens.setTokenSource(lexer);
+        buffer.release();
+        bufferSource.reset(buffer);
+        
+        listen(null);
+        parser.setTokenStream(null);
+        ParserATNSimulator interpreter = parser.getInterpreter();
+        parser.setInterpreter(new ParserATNSimulator(parser, parser.getATN(), interpreter.decisionToDFA, interpreter.getSharedContextCache()));
+    }
+    
+    /**
+     * Reset the lexer and the token stream to read from the start of an input.
+     * The token buffer keeps its capacity from the previous compilation, up to the capacity kept by release.
+     *
+     * @param input       - Characters to be lexed.
+     * @param line        - Line at which the characters start.
+     * @param column      - Position in line at which the characters start.
+     * @param handWritten - Whether or not to lex the characters with the hand-written lexer.
+     *
+     * @return - Token stream over the input.
+     */
+    CommonTokenStream open(CharStream input, int line, int column, boolean handWritten)
+    {
+        if (handWritten)
+        {
+            handWrittenLexer.lex(input, line, column, buffer);
+            bufferSource.reset(buffer);
+            tokens.setTokenSource(bufferSource);
+        }
+        else
+        {
+            input.seek(0);
+            lexer.setInputStream(input);
+            lexer.setLine(line);
+            lexer.setCharPositionInLine(column);
+            tokens.setTokenSource(lexer);
+        }
+        
+        return tokens;
+    }
+    
+    /**
+     * Lex a new input into the token buffer.
+     * If the input is not lexed with the hand-written lexer, the tokens of the lexer are copied into the buffer
+     * and lexer errors are thrown.
+     *
+     * @param input       - Characters to be lexed.
+     * @param line        - Line at which the characters start.
+     * @param column      - Position in line at which the characters start.
+     * @param handWritten - Whether or not to lex the characters with the hand-written lexer.
+     *
+     * @return - Buffer with the tokens, which is incomplete if the hand-written lexer found an error.
+     */
+    TokenBuffer lex(CharStream input, int line, int column, boolean handWritten)
+    {
+        if (handWritten)
+        {
+            handWrittenLexer.lex(input, line, column, buffer);
+            return buffer;
+        }
+        
+        open(input, line, column, false).fill();
+        buffer.reset(input);
+        
+        for (Token token : tokens.getTokens())
+        {
+            buffer.add(token.getType(), token.getStartIndex(), token.getStopIndex(), token.getLine(), token.getCharPositionInLine());
+        }
+        
+        buffer.finish();
+        
+        return buffer;
+    }
+    
+    /**
+     * Reset the parser to read from the start of the token stream with full LL prediction and the Copyex
+     * error strategy.
+     *
+     * @param listener - Listener notified while parsing instead of building a parse tree, null to build one.
+     *
+     * @return - Parser over the token stream.
+     */
+    CopyexParser parser(ParseTreeListener listener)
+    {
+        parser.setErrorHandler(errorStrategy);
+        tokens.seek(0);
+        parser.setTokenStream(tokens);
+        // The state is not reset with the token stream, but the file rule is invoked from it.
+        parser.setState(ATNState.INVALID_STATE_NUMBER);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.removeErrorListeners();
+        parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        listen(listener);
+        
+        return parser;
+    }
+    
+    /**
+     * Reset the parser to read from the start of the token stream with SLL prediction, stopping at the
+     * first error without reporting it.
+     *
+     * @param listener - Listener notified while parsing instead of building a parse tree, null to build one.
+     *
+     * @return - Parser over the token stream.
+     */
+    CopyexParser sllParser(ParseTreeListener listener)
+    {
+        parser.setErrorHandler(bailStrategy);
+        tokens.seek(0);
+        parser.setTokenStream(tokens);
+        parser.setState(ATNState.INVALID_STATE_NUMBER);
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        listen(listener);
+        
+        return parser;
+    }
+    
+    /**
+     * Replace the parse listener of the parser. The parser only builds a parse tree if there is no listener.
+     *
+     * @param listener - Listener notified while parsing, or null.
+     */
+    private void listen(ParseTreeListener listener)
+    {
+        parser.removeParseListeners();
+        parser.setBuildParseTree(listener == null);
+        
+        if (listener != null)
+        {
+            parser.addParseListener(listener);
+        }
+    }
+    
+    /**
+     * Return the lexer of the context.
+     *
+     * @return - Lexer.
+     */
+    CopyexLexer getLexer()
+    {
+        return lexer;
+    }
+    
+    /**
+     * Return the token stream of the context.
+     *
+     * @return - Token stream.
+     */
+    CommonTokenStream getTokens()
+    {
+        return tokens;
+    }
+}
@@ -0,0 +1,330 @@
+package copyex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public final class CompileOptions
+{
+    private boolean twoStageParsing;
+    private boolean handWrittenParsing;
+    private boolean handWrittenLexing;
+    private boolean directTreeBuilding;
+    private boolean subtreeSharing;
+    private boolean parallelFunctions;
+    private boolean offHeapTree;
+    private long timeLimit;
+    private int maxTokens;
+    private int maxNodes;
+    private CompileCache compileCache;
+    
+    /**
+     * Create options with every optimisation disabled and no cache.
+     */
+    public CompileOptions()
+    {
+    }
+    
+    /**
+     * Create a copy of options, which is changed by one of the with methods before it is returned. Options are
+     * never changed once they have been returned.
+     *
+     * @param options - Options to be copied.
+     */
+    private CompileOptions(CompileOptions options)
+    {
+        twoStageParsing = options.twoStageParsing;
+        handWrittenParsing = options.handWrittenParsing;
+        handWrittenLexing = options.handWrittenLexing;
+        directTreeBuilding = options.directTreeBuilding;
+        subtreeSharing = options.subtreeSharing;
+        parallelFunctions = options.parallelFunctions;
+        offHeapTree = options.offHeapTree;
+        timeLimit = options.timeLimit;
+        maxTokens = options.maxTokens;
+        maxNodes = options.maxNodes;
+        compileCache = options.compileCache;
+    }
+    
+    /**
+     * Return a copy of the options with two-stage parsing enabled or disabled.
+     *
+     * @param twoStageParsing - Whether or not to use two-stage parsing, see Copyex.setTwoStageParsing.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withTwoStageParsing(boolean twoStageParsing)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.twoStageParsing = twoStageParsing;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with the hand-written parser enabled or disabled.
+     *
+     * @param handWrittenParsing - Whether or not to use the hand-written parser, see
+     *                           Copyex.setHandWrittenParsing.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withHandWrittenParsing(boolean handWrittenParsing)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.handWrittenParsing = handWrittenParsing;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with the hand-written lexer enabled or disabled.
+     *
+     * @param handWrittenLexing - Whether or not to use the hand-written lexer, see Copyex.setHandWrittenLexing.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withHandWrittenLexing(boolean handWrittenLexing)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.handWrittenLexing = handWrittenLexing;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with building the tree while parsing enabled or disabled.
+     *
+     * @param directTreeBuilding - Whether or not to build the tree while parsing, see
+     *                           Copyex.setDirectTreeBuilding.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withDirectTreeBuilding(boolean directTreeBuilding)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.directTreeBuilding = directTreeBuilding;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with sharing of equal subtrees enabled or disabled.
+     *
+     * @param subtreeSharing - Whether or not to share equal subtrees, see Copyex.setSubtreeSharing.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withSubtreeSharing(boolean subtreeSharing)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.subtreeSharing = subtreeSharing;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with checking and compiling the functions in parallel enabled or disabled.
+     *
+     * @param parallelFunctions - Whether or not to handle the functions in parallel, see
+     *                          Copyex.setParallelFunctions.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withParallelFunctions(boolean parallelFunctions)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.parallelFunctions = parallelFunctions;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with storing the compiled tree outside of the heap enabled or disabled.
+     *
+     * @param offHeapTree - Whether or not to store the compiled tree outside of the heap, see
+     *                    Copyex.setOffHeapTree.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withOffHeapTree(boolean offHeapTree)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.offHeapTree = offHeapTree;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with a time limit for every compilation.
+     *
+     * @param timeLimit - Longest time a compilation may take, 0 for no limit, see Copyex.setTimeLimit.
+     * @param unit      - Unit of the time limit.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withTimeLimit(long timeLimit, TimeUnit unit)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.timeLimit = unit.toNanos(timeLimit);
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with the largest number of tokens of a code.
+     *
+     * @param maxTokens - Largest number of tokens, 0 for no limit, see Copyex.setMaxTokens.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withMaxTokens(int maxTokens)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.maxTokens = maxTokens;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with the largest number of nodes of the abstract syntax tree of a code.
+     *
+     * @param maxNodes - Largest number of nodes, 0 for no limit, see Copyex.setMaxNodes.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withMaxNodes(int maxNodes)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.maxNodes = maxNodes;
+        
+        return options;
+    }
+    
+    /**
+     * Return a copy of the options with a cache of compiled code, which is shared by every compilation using it.
+     *
+     * @param compileCache - Cache of compiled code, null to compile all code.
+     *
+     * @return - New options.
+     */
+    public CompileOptions withCompileCache(CompileCache compileCache)
+    {
+        CompileOptions options = new CompileOptions(this);
+        options.compileCache = compileCache;
+        
+        return options;
+    }
+    
+    /**
+     * Check if two-stage parsing is enabled.
+     *
+     * @return - Whether or not to use two-stage parsing.
+     */
+    public boolean isTwoStageParsing()
+    {
+        return twoStageParsing;
+    }
+    
+    /**
+     * Check if the hand-written parser is enabled.
+     *
+     * @return - Whether or not to use the hand-written parser.
+     */
+    public boolean isHandWrittenParsing()
+    {
+        return handWrittenParsing;
+    }
+    
+    /**
+     * Check if the hand-written lexer is enabled.
+     *
+     * @return - Whether or not to use the hand-written lexer.
+     */
+    public boolean isHandWrittenLexing()
+    {
+        return handWrittenLexing;
+    }
+    
+    /**
+     * Check if building the tree while parsing is enabled.
+     *
+     * @return - Whether or not to build the tree while parsing.
+     */
+    public boolean isDirectTreeBuilding()
+    {
+        return directTreeBuilding;
+    }
+    
+    /**
+     * Check if sharing of equal subtrees is enabled.
+     *
+     * @return - Whether or not to share equal subtrees.
+     */
+    public boolean isSubtreeSharing()
+    {
+        return subtreeSharing;
+    }
+    
+    /**
+     * Check if checking and compiling the functions in parallel is enabled.
+     *
+     * @return - Whether or not to handle the functions in parallel.
+     */
+    public boolean isParallelFunctions()
+    {
+        return parallelFunctions;
+    }
+    
+    /**
+     * Check if storing the compiled tree outside of the heap is enabled.
+     *
+     * @return - Whether or not to store the compiled tree outside of the heap.
+     */
+    public boolean isOffHeapTree()
+    {
+        return offHeapTree;
+    }
+    
+    /**
+     * Return the time limit of a compilation.
+     *
+     * @return - Longest time a compilation may take in nanoseconds, 0 for no limit.
+     */
+    public long getTimeLimit()
+    {
+        return timeLimit;
+    }
+    
+    /**
+     * Return the largest number of tokens of a code.
+     *
+     * @return - Largest number of tokens, 0 for no limit.
+     */
+    public int getMaxTokens()
+    {
+        return maxTokens;
+    }
+    
+    /**
+     * Return the largest number of nodes of the abstract syntax tree of a code.
+     *
+     * @return - Largest number of nodes, 0 for no limit.
+     */
+    public int getMaxNodes()
+    {
+        return maxNodes;
+    }
+    
+    /**
+     * Return the cache of compiled code.
+     *
+     * @return - Cache of compiled code, or null if all code is compiled.
+     */
+    public CompileCache getCompileCache()
+    {
+        return compileCache;
+    }
+}
@@ -1,11 +1,41 @@
 package copyex;
 
 import AbstractTree.AbstractSyntaxTree;
+import AbstractTree.Node;
+import AbstractTree.NodeTable;
+import compiler.CompileAbortedException;
+import compiler.CompileBudget;
 import compiler.PythonCompiler;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author DMarinov
@@ -13,10 +43,208 @@ import org.antlr.v4.runtime.tree.ParseTree;
  */
 public class Copyex
 {
+    private static final Pattern LOCATION = Pattern.compile("Location:? (?:line )?(\\d+):(\\d+)");
+    private static final String[] WARM_UP_SAMPLES = {"factorial", "fibonacci", "float", "nested", "odd_even", "power", "scopes", "tri_recursion"};
+    
     private AbstractSyntaxTree abstractTree;
     private ParseTree tree;
     private CopyexLexer lexer;
     private CopyexParser parser;
+    private boolean twoStageParsing = false;
+    private boolean handWrittenParsing = false;
+    private boolean handWrittenLexing = false;
+    private boolean directTreeBuilding = false;
+    private boolean subtreeSharing = false;
+    private boolean parallelFunctions = false;
+    private boolean offHeapTree = false;
+    private long timeLimit = 0;
+    private int maxTokens = 0;
+    private int maxNodes = 0;
+    private CompileBudget budget;
+    private IncrementalParser incrementalParser;
+    private CompileCache compileCache;
+    private String cacheKey;
+    private String cachedPython;
+    
+    /**
+     * Create instance whose options are set by its setters.
+     */
+    public Copyex()
+    {
+    }
+    
+    /**
+     * Create instance for a single compilation with the given options.
+     *
+     * @param options - Options to compile with.
+     */
+    private Copyex(CompileOptions options)
+    {
+        twoStageParsing = options.isTwoStageParsing();
+        handWrittenParsing = options.isHandWrittenParsing();
+        handWrittenLexing = options.isHandWrittenLexing();
+        directTreeBuilding = options.isDirectTreeBuilding();
+        subtreeSharing = options.isSubtreeSharing();
+        parallelFunctions = options.isParallelFunctions();
+        offHeapTree = options.isOffHeapTree();
+        timeLimit = options.getTimeLimit();
+        maxTokens = options.getMaxTokens();
+        maxNodes = options.getMaxNodes();
+        compileCache = options.getCompileCache();
+    }
+    
+    /**
+     * Enable or disable two-stage parsing.
+     * When enabled the code is first parsed with SLL prediction and only re-parsed with full LL prediction
+     * if the first attempt fails. Error messages are the same in both modes.
+     *
+     * @param twoStageParsing - Whether or not to use two-stage parsing.
+     */
+    public void setTwoStageParsing(boolean twoStageParsing)
+    {
+        this.twoStageParsing = twoStageParsing;
+    }
+    
+    /**
+     * Enable or disable the hand-written parser.
+     * When enabled the tokens are parsed by a recursive descent parser which creates the abstract syntax tree
+     * directly. Code with syntax errors is parsed again with the ANTLR parser, so error messages are the same.
+     *
+     * @param handWrittenParsing - Whether or not to use the hand-written parser.
+     */
+    public void setHandWrittenParsing(boolean handWrittenParsing)
+    {
+        this.handWrittenParsing = handWrittenParsing;
+    }
+    
+    /**
+     * Enable or disable the hand-written lexer.
+     * When enabled the code is lexed by a table-driven lexer which stores the tokens in primitive arrays
+     * instead of token objects. Characters it cannot lex are passed to the ANTLR lexer, so error messages
+     * are the same.
+     *
+     * @param handWrittenLexing - Whether or not to use the hand-written lexer.
+     */
+    public void setHandWrittenLexing(boolean handWrittenLexing)
+    {
+        this.handWrittenLexing = handWrittenLexing;
+    }
+    
+    /**
+     * Enable or disable building the abstract syntax tree while parsing.
+     * When enabled the parser does not build a parse tree, the nodes are created by a parse listener as soon
+     * as the parser exits a rule. Code with syntax errors is parsed again with a parse tree, so error messages
+     * are the same.
+     *
+     * @param directTreeBuilding - Whether or not to build the abstract syntax tree while parsing.
+     */
+    public void setDirectTreeBuilding(boolean directTreeBuilding)
+    {
+        this.directTreeBuilding = directTreeBuilding;
+    }
+    
+    /**
+     * Enable or disable sharing of equal subtrees.
+     * When enabled the equal expressions and statements of a parsed tree are replaced by a single node, so
+     * that the tree takes less memory and equal subtrees can be compared by identity. The nodes of the tree
+     * must then not be changed.
+     *
+     * @param subtreeSharing - Whether or not to share equal subtrees.
+     */
+    public void setSubtreeSharing(boolean subtreeSharing)
+    {
+        this.subtreeSharing = subtreeSharing;
+    }
+    
+    /**
+     * Enable or disable checking and compiling the functions in parallel.
+     * When enabled the body of every function is checked, turned into nodes and compiled into python by a fork/join
+     * task, and the results are joined in the order of the code, so the python code and the error messages are
+     * the same as when the functions are handled one after another. The hand-written parser and building the tree
+     * while parsing create the nodes as they parse, so with them only checking and compiling is parallel.
+     *
+     * @param parallelFunctions - Whether or not to handle the functions in parallel.
+     */
+    public void setParallelFunctions(boolean parallelFunctions)
+    {
+        this.parallelFunctions = parallelFunctions;
+    }
+    
+    /**
+     * Enable or disable storing the compiled tree outside of the heap.
+     * The compiler walks a flat copy of the abstract syntax tree, which is made every time the tree is compiled.
+     * When enabled the nodes of the copy are stored in a direct buffer outside of the heap, so that compiling
+     * large trees puts less pressure on the garbage collector. The abstract syntax tree is still kept on the heap,
+     * as it is returned by parse and stored in the cache.
+     *
+     * @param offHeapTree - Whether or not to store the compiled tree outside of the heap.
+     */
+    public void setOffHeapTree(boolean offHeapTree)
+    {
+        this.offHeapTree = offHeapTree;
+    }
+    
+    /**
+     * Set how long parsing and compiling a code may take, counted from the start of parsing.
+     * The lexer, the parsers, the visitor and the python compiler check the time as they go, and stop with a
+     * CompileAbortedException once it has passed. They stop the same way if the thread which started parsing
+     * is interrupted, with or without a time limit.
+     *
+     * @param timeLimit - Longest time the compilation may take, 0 for no limit.
+     * @param unit      - Unit of the time limit.
+     */
+    public void setTimeLimit(long timeLimit, TimeUnit unit)
+    {
+        this.timeLimit = unit.toNanos(timeLimit);
+    }
+    
+    /**
+     * Set the largest number of tokens of a code. Lexing and parsing stop with a CompileAbortedException once
+     * the code has more tokens.
+     *
+     * @param maxTokens - Largest number of tokens, 0 for no limit.
+     */
+    public void setMaxTokens(int maxTokens)
+    {
+        this.maxTokens = maxTokens;
+    }
+    
+    /**
+     * Set the largest number of nodes of the abstract syntax tree of a code. Compiling stops with a
+     * CompileAbortedException if the tree has more nodes, before any python code is created.
+     *
+     * @param maxNodes - Largest number of nodes, 0 for no limit.
+     */
+    public void setMaxNodes(int maxNodes)
+    {
+        this.maxNodes = maxNodes;
+    }
+    
+    /**
+     * Enable or disable incremental parsing.
+     * When enabled the parsed blocks are kept between calls of parse and only the blocks touched by
+     * an edit are parsed and visited again.
+     *
+     * @param incrementalParsing - Whether or not to use incremental parsing.
+     */
+    public void setIncrementalParsing(boolean incrementalParsing)
+    {
+        this.incrementalParser = incrementalParsing ? new IncrementalParser(this) : null;
+    }
+    
+    /**
+     * Set the cache of compiled code, which can be shared by several instances.
+     * When set, parse looks the code up by a hash of the code, the compiler version and the parsing options, and
+     * compile returns the python code of code which was compiled before instead of compiling it again. If the
+     * cache stores trees, the tree is read from the cache instead of parsing the code as well. Code is not looked
+     * up with incremental parsing, which keeps its own parsed blocks.
+     *
+     * @param compileCache - Cache of compiled code, null to compile all code.
+     */
+    public void setCompileCache(CompileCache compileCache)
+    {
+        this.compileCache = compileCache;
+    }
     
     /**
      * Parse a string of code using the custom Copyex lexer and parser.
@@ -24,41 +252,493 @@ public class Copyex
      * @param code - Code to be parsed.
      *
      * @return - Abstract Syntax Tree representing the parsed code.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
      */
     public AbstractSyntaxTree parse(String code)
     {
-        CharStream input = CharStreams.fromString(code);
+        cacheKey = null;
+        cachedPython = null;
+        
+        if (incrementalParser == null)
+        {
+            return parse(CharStreams.fromString(code));
+        }
+        
+        budget = new CompileBudget(timeLimit, maxTokens, maxNodes);
+        CompileContext.get().setBudget(budget);
+        
         try
         {
-            lexer = new CopyexLexer(input);
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(new CopyexLexerErrorListener());
-            parser = new CopyexParser(new CommonTokenStream(lexer));
-            parser.setErrorHandler(new CopyexParserErrorStrategy());
-            tree = parser.file();
-            CopyexVisitor visitor = new CopyexVisitor();
-            abstractTree = new AbstractSyntaxTree(visitor.visit(tree));
+            abstractTree = incrementalParser.parse(code, budget);
+            share(abstractTree.getRoot());
             return abstractTree;
         }
+        catch (CompileAbortedException e)
+        {
+            tree = null;
+            throw e;
+        }
         catch (Exception e)
         {
             tree = null;
             System.out.println(e.getMessage());
             return null;
         }
+        finally
+        {
+            CompileContext.get().release();
+        }
+    }
+    
+    /**
+     * Parse a file of code using the custom Copyex lexer and parser.
+     * The file is memory-mapped and the lexer reads directly from the mapped buffer.
+     *
+     * @param file - File with code to be parsed.
+     *
+     * @return - Abstract Syntax Tree representing the parsed code.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    public AbstractSyntaxTree parse(File file)
+    {
+        cacheKey = null;
+        cachedPython = null;
+        CharStream input;
+        
+        try
+        {
+            input = openFile(file.toPath());
+        }
+        catch (IOException e)
+        {
+            tree = null;
+            System.out.println(e.getMessage());
+            return null;
+        }
+        
+        return parse(input);
+    }
+    
+    /**
+     * Open a file as a char stream backed by a memory-mapped buffer.
+     * Files with non ASCII characters are decoded as UTF-8 instead.
+     *
+     * @param path - Path of the file.
+     *
+     * @return - Char stream with the code.
+     *
+     * @throws IOException - If the file cannot be read.
+     */
+    private CharStream openFile(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException("File " + path + " is too large!");
+            }
+            
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            
+            if (MappedCharStream.isAscii(buffer))
+            {
+                return new MappedCharStream(buffer, path.toString());
+            }
+        }
+        
+        return CharStreams.fromPath(path);
+    }
+    
+    /**
+     * Parse a stream of characters using the custom Copyex lexer and parser.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Abstract Syntax Tree representing the parsed code.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    private AbstractSyntaxTree parse(CharStream input)
+    {
+        try
+        {
+            return parseTree(input);
+        }
+        catch (CompileAbortedException e)
+        {
+            tree = null;
+            cacheKey = null;
+            throw e;
+        }
+        catch (Exception e)
+        {
+            tree = null;
+            cacheKey = null;
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Parse a stream of characters, or read its tree from the cache.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Abstract Syntax Tree representing the parsed code.
+     *
+     * @throws RuntimeException - If the code cannot be lexed, parsed or checked.
+     */
+    private AbstractSyntaxTree parseTree(CharStream input)
+    {
+        budget = new CompileBudget(timeLimit, maxTokens, maxNodes);
+        
+        if (compileCache != null)
+        {
+            String key = compileCache.key(input.getText(Interval.of(0, input.size() - 1)), cacheOptions());
+            CompileCache.CachedCode entry = compileCache.get(key);
+            
+            if (entry == null)
+            {
+                cacheKey = key;
+            }
+            else
+            {
+                cachedPython = entry.getPython();
+                AbstractSyntaxTree cachedTree = entry.getTree();
+                
+                if (cachedTree != null)
+                {
+                    tree = null;
+                    abstractTree = new AbstractSyntaxTree(share(cachedTree.getRoot()));
+                    return abstractTree;
+                }
+            }
+        }
+        
+        CompileContext.get().setBudget(budget);
+        
+        try
+        {
+            Node root = handWrittenParsing ? parseHandWritten(input) : parseWithAntlr(input);
+            check(root);
+            abstractTree = new AbstractSyntaxTree(share(root));
+            return abstractTree;
+        }
+        finally
+        {
+            CompileContext.get().release();
+        }
+    }
+    
+    /**
+     * Return the options which change how code is parsed, as part of the key of the code in the cache.
+     * Subtree sharing is not one of them, as it is applied to cached trees after they are read.
+     *
+     * @return - Parsing options.
+     */
+    private String cacheOptions()
+    {
+        return "twoStage=" + twoStageParsing + ",handWritten=" + handWrittenParsing + ",handWrittenLexer=" + handWrittenLexing + ",direct=" + directTreeBuilding;
+    }
+    
+    /**
+     * Share the equal subtrees of a tree, if subtree sharing is enabled.
+     *
+     * @param root - Root of the tree.
+     *
+     * @return - Root of the shared tree.
+     */
+    private Node share(Node root)
+    {
+        return subtreeSharing ? new NodeTable().share(root) : root;
+    }
+    
+    /**
+     * Parse a stream of characters using the hand-written parser.
+     * If the code cannot be lexed or parsed it is parsed again with the ANTLR parser to report the error.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Root node of the code.
+     */
+    private Node parseHandWritten(CharStream input)
+    {
+        tree = null;
+        
+        try
+        {
+            TokenBuffer tokens = CompileContext.get().lex(input, 1, 0, handWrittenLexing);
+            
+            if (tokens.isComplete())
+            {
+                return new HandWrittenParser(tokens, budget).parseFile();
+            }
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            // Lexer and syntax errors are reported by the ANTLR parser below.
+        }
+        
+        return parseWithAntlr(input);
+    }
+    
+    /**
+     * Parse a stream of characters using the ANTLR parser.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Root node of the code.
+     */
+    private Node parseWithAntlr(CharStream input)
+    {
+        if (directTreeBuilding)
+        {
+            return parseDirect(input);
+        }
+        
+        tree = parseFile(input, 1, 0);
+        return createTree(tree);
+    }
+    
+    /**
+     * Parse a stream of characters and build the abstract syntax tree while parsing.
+     * If the code cannot be lexed or parsed it is parsed again with a parse tree to report the error.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Root node of the code.
+     */
+    private Node parseDirect(CharStream input)
+    {
+        tree = null;
+        
+        try
+        {
+            CopyexTreeBuilder builder = new CopyexTreeBuilder(CompileContext.get().getTokens(), budget);
+            parseFile(input, 1, 0, builder);
+            
+            if (!builder.hasSyntaxError())
+            {
+                return builder.getRoot();
+            }
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            // Lexer and syntax errors are reported by the parser below.
+        }
+        
+        tree = parseFile(input, 1, 0);
+        return createTree(tree);
+    }
+    
+    /**
+     * Create the abstract syntax tree of a parse tree.
+     *
+     * @param tree - Parse tree of the code.
+     *
+     * @return - Root node of the code.
+     */
+    private Node createTree(ParseTree tree)
+    {
+        budget.resetNodes(0);
+        
+        if (parallelFunctions && tree instanceof CopyexParser.FileContext)
+        {
+            return new ParallelAnalyzer(budget).createTree((CopyexParser.FileContext) tree);
+        }
+        
+        CopyexVisitor visitor = new CopyexVisitor(budget);
+        return visitor.visit(tree);
+    }
+    
+    /**
+     * Check the semantics of an abstract syntax tree, whichever parser created it.
+     * The functions of the code are declared before it is checked, so they can be called before they are defined.
+     *
+     * @param root - Root node of the code.
+     *
+     * @throws CopyexException - If the code is not semantically correct.
+     */
+    private void check(Node root)
+    {
+        if (parallelFunctions)
+        {
+            new ParallelAnalyzer(budget).check(root);
+            return;
+        }
+        
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.setBudget(budget);
+        analyzer.visit(root);
+    }
+    
+    /**
+     * Run the lexer and parser of the current thread over a stream of characters.
+     *
+     * @param input  - Characters to be parsed.
+     * @param line   - Line at which the characters start.
+     * @param column - Position in line at which the characters start.
+     *
+     * @return - Parse tree of the code.
+     */
+    CopyexParser.FileContext parseFile(CharStream input, int line, int column)
+    {
+        return parseFile(input, line, column, null);
+    }
+    
+    /**
+     * Run the lexer and parser of the current thread over a stream of characters.
+     * If a listener is given, the parser notifies it instead of building a parse tree.
+     *
+     * @param input    - Characters to be parsed.
+     * @param line     - Line at which the characters start.
+     * @param column   - Position in line at which the characters start.
+     * @param listener - Listener notified while parsing, null to build a parse tree.
+     *
+     * @return - Parse tree of the code, without children if a listener is given.
+     */
+    private CopyexParser.FileContext parseFile(CharStream input, int line, int column, ParseTreeListener listener)
+    {
+        CompileContext context = CompileContext.get();
+        context.open(input, line, column, handWrittenLexing);
+        lexer = context.getLexer();
+        
+        if (twoStageParsing)
+        {
+            return parseTwoStage(context, input, line, column, listener);
+        }
+        
+        parser = context.parser(listener);
+        return parser.file();
+    }
+    
+    /**
+     * Parse the tokens with SLL prediction and a bail out strategy first.
+     * If that fails the code is lexed and parsed again with full LL prediction and the custom error strategy,
+     * which reports the same errors as the single stage parsing. The code is lexed again, because the first
+     * stage can read further ahead than the second and stop at a lexer error which comes after a syntax error.
+     *
+     * @param context  - Compile context holding the token stream of the code.
+     * @param input    - Characters to be parsed.
+     * @param line     - Line at which the characters start.
+     * @param column   - Position in line at which the characters start.
+     * @param listener - Listener notified while parsing, null to build a parse tree.
+     *
+     * @return - Parse tree of the code.
+     */
+    private CopyexParser.FileContext parseTwoStage(CompileContext context, CharStream input, int line, int column, ParseTreeListener listener)
+    {
+        parser = context.sllParser(listener);
+        
+        try
+        {
+            return parser.file();
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            context.open(input, line, column, handWrittenLexing);
+            parser = context.parser(listener);
+            return parser.file();
+        }
+    }
+    
+    /**
+     * Check a string of code and collect all of its errors instead of stopping at the first one.
+     *
+     * @param code - Code to be checked.
+     *
+     * @return - Errors of the code ordered by location, empty if there are none.
+     */
+    public List<CopyexDiagnostic> diagnose(String code)
+    {
+        return diagnose(CharStreams.fromString(code));
+    }
+    
+    /**
+     * Check a file of code and collect all of its errors instead of stopping at the first one.
+     *
+     * @param file - File with code to be checked.
+     *
+     * @return - Errors of the code ordered by location, empty if there are none.
+     */
+    public List<CopyexDiagnostic> diagnose(File file)
+    {
+        CharStream input;
+        
+        try
+        {
+            input = openFile(file.toPath());
+        }
+        catch (IOException e)
+        {
+            System.out.println(e.getMessage());
+            return null;
+        }
+        
+        return diagnose(input);
+    }
+    
+    /**
+     * Check a stream of characters and collect all of its errors.
+     * The lexer skips characters it does not recognize, the parser recovers from syntax errors and the semantic
+     * checks continue with the next statement, so one run reports every error of the code.
+     *
+     * @param input - Characters to be checked.
+     *
+     * @return - Errors of the code ordered by location.
+     */
+    private List<CopyexDiagnostic> diagnose(CharStream input)
+    {
+        List<CopyexDiagnostic> diagnostics = new ArrayList<>();
+        
+        CopyexLexer diagnosticLexer = new CopyexLexer(input);
+        diagnosticLexer.removeErrorListeners();
+        diagnosticLexer.addErrorListener(new CopyexLexerErrorListener(diagnostics));
+        
+        CopyexParser diagnosticParser = new CopyexParser(new CommonTokenStream(diagnosticLexer));
+        diagnosticParser.removeErrorListeners();
+        diagnosticParser.setErrorHandler(new CopyexParserErrorStrategy(diagnostics));
+        
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(diagnostics);
+        analyzer.visit(new DiagnosticVisitor().visit(diagnosticParser.file()));
+        
+        diagnostics.sort(Comparator.comparingInt(CopyexDiagnostic::getLine).thenComparingInt(CopyexDiagnostic::getColumn));
+        
+        return diagnostics;
     }
     
     /**
      * Compile the abstract syntax tree into python code.
+     * If the parsed code was found in the cache its cached python code is returned, otherwise the python code
+     * is added to the cache.
      *
      * @return - Compiled python code.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
      */
     public String compile()
     {
         try
         {
-            PythonCompiler compiler = new PythonCompiler();
-            return compiler.compilePython(abstractTree);
+            return compileTree();
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
         }
         catch (Exception e)
         {
@@ -67,4 +747,257 @@ public class Copyex
             return null;
         }
     }
+    
+    /**
+     * Compile the abstract syntax tree into python code, or read it from the cache.
+     *
+     * @return - Compiled python code.
+     */
+    private String compileTree()
+    {
+        if (cachedPython != null)
+        {
+            return cachedPython;
+        }
+        
+        PythonCompiler compiler = new PythonCompiler();
+        compiler.setParallelFunctions(parallelFunctions);
+        compiler.setBudget(budget);
+        String python = compiler.compilePython(abstractTree.flatten(offHeapTree));
+        
+        if (cacheKey != null)
+        {
+            compileCache.put(cacheKey, python, abstractTree);
+            cacheKey = null;
+        }
+        
+        return python;
+    }
+    
+    /**
+     * Compile a string of code into python.
+     * Unlike parse and compile, the compilation keeps no state between calls, so it can be run from several
+     * threads at once. Every thread reuses its own lexer and parser, while the prediction states of the parser
+     * and the cache of the options are shared.
+     *
+     * @param code    - Code to be compiled.
+     * @param options - Options to compile the code with.
+     *
+     * @return - Result of the compilation, with the error of the code if it could not be compiled.
+     *
+     * @throws CompileAbortedException - If the budget of the options is spent or the thread is interrupted.
+     */
+    public static CompilationResult compile(String code, CompileOptions options)
+    {
+        return new Copyex(options).compile(CharStreams.fromString(code));
+    }
+    
+    /**
+     * Compile a file of code into python.
+     * Unlike parse and compile, the compilation keeps no state between calls, so it can be run from several
+     * threads at once.
+     *
+     * @param file    - File with code to be compiled.
+     * @param options - Options to compile the code with.
+     *
+     * @return - Result of the compilation, with the error of the code if it could not be compiled.
+     *
+     * @throws IOException             - If the file cannot be read.
+     * @throws CompileAbortedException - If the budget of the options is spent or the thread is interrupted.
+     */
+    public static CompilationResult compile(File file, CompileOptions options) throws IOException
+    {
+        Copyex copyex = new Copyex(options);
+        return copyex.compile(copyex.openFile(file.toPath()));
+    }
+    
+    /**
+     * Parse and compile a stream of characters, timing both stages.
+     *
+     * @param input - Characters to be compiled.
+     *
+     * @return - Result of the compilation.
+     */
+    private CompilationResult compile(CharStream input)
+    {
+        long start = System.nanoTime();
+        AbstractSyntaxTree result;
+        
+        try
+        {
+            result = parseTree(input);
+        }
+        catch (RuntimeException e)
+        {
+            return new CompilationResult(null, null, Collections.singletonList(diagnostic(e)), System.nanoTime() - start, 0);
+        }
+        
+        long parsed = System.nanoTime();
+        String python = compileTree();
+        
+        return new CompilationResult(result, python, Collections.emptyList(), parsed - start, System.nanoTime() - parsed);
+    }
+    
+    /**
+     * Create the diagnostic of an error which stopped a compilation.
+     * Lexer and syntax errors only have their location in their message.
+     *
+     * @param e - Error of the compilation.
+     *
+     * @return - Diagnostic of the error.
+     *
+     * @throws RuntimeException - If the error is not an error of the code.
+     */
+    private static CopyexDiagnostic diagnostic(RuntimeException e)
+    {
+        if (e instanceof CopyexException)
+        {
+            CopyexException error = (CopyexException) e;
+            return new CopyexDiagnostic(CopyexDiagnostic.Kind.SEMANTIC, error.getMessage(), error.getLine(), error.getColumn());
+        }
+        
+        CopyexDiagnostic.Kind kind;
+        
+        if (e instanceof ParseCancellationException)
+        {
+            kind = CopyexDiagnostic.Kind.SYNTAX;
+        }
+        else if (e.getClass() == RuntimeException.class)
+        {
+            kind = CopyexDiagnostic.Kind.LEXER;
+        }
+        else
+        {
+            throw e;
+        }
+        
+        Matcher location = LOCATION.matcher(e.getMessage());
+        
+        if (!location.find())
+        {
+            return new CopyexDiagnostic(kind, e.getMessage(), 0, 0);
+        }
+        
+        return new CopyexDiagnostic(kind, e.getMessage(), Integer.parseInt(location.group(1)), Integer.parseInt(location.group(2)));
+    }
+    
+    /**
+     * Compile a file of code into python while it is read, writing the python code of every top-level block as
+     * soon as it is parsed. Only the block being parsed and the scopes are kept in memory, so the memory does not
+     * grow with the size of the file.
+     *
+     * @param file   - File with code to be compiled.
+     * @param output - Writer for the python code.
+     *
+     * @return - Whether or not the code was compiled without errors.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    public boolean compile(File file, Writer output)
+    {
+        try (Reader input = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+        {
+            return compile(input, output);
+        }
+        catch (IOException e)
+        {
+            System.out.println(e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Compile code into python while it is read, writing the python code of every top-level block as soon as it
+     * is parsed. The errors are the same as the errors of parse, but the python code of the blocks before an
+     * error has already been written. As the rest of the code is not read yet, functions can only be called by the
+     * code after them.
+     *
+     * @param input  - Reader of the code.
+     * @param output - Writer for the python code.
+     *
+     * @return - Whether or not the code was compiled without errors.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    public boolean compile(Reader input, Writer output)
+    {
+        budget = new CompileBudget(timeLimit, maxTokens, maxNodes);
+        
+        try
+        {
+            new StreamingCompiler(output, budget).compile(input);
+            return true;
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            System.out.println(e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Parse and compile the sample programs bundled with Copyex.
+     * The prediction states of the parser are shared by every parser, so the first compilations after the
+     * warm-up do not have to compute them.
+     */
+    public static void warmUp()
+    {
+        for (String sample : WARM_UP_SAMPLES)
+        {
+            try (InputStream input = Copyex.class.getResourceAsStream("/input/" + sample + ".copyex"))
+            {
+                if (input == null)
+                {
+                    continue;
+                }
+                
+                Copyex copyex = new Copyex();
+                
+                if (copyex.parse(CharStreams.fromStream(input)) != null)
+                {
+                    copyex.compile();
+                }
+            }
+            catch (IOException e)
+            {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Save the prediction states of the parser so that they can be restored in a new process.
+     * The states cover the code compiled so far, so they should be saved after a warm-up or after compiling
+     * code which is representative of the code compiled later.
+     *
+     * @param file - File to save the states to.
+     *
+     * @throws IOException - If the file cannot be written.
+     */
+    public static void saveDfaSnapshot(File file) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+        {
+            DfaSnapshot.save(out);
+        }
+    }
+    
+    /**
+     * Restore the prediction states of the parser from a file saved with saveDfaSnapshot.
+     * The states which the parser has computed so far are replaced, so the snapshot should be restored at start up.
+     *
+     * @param file - File with the saved states.
+     *
+     * @return - Whether or not the states were restored, which fails if they were saved from a different grammar.
+     *
+     * @throws IOException - If the file cannot be read.
+     */
+    public static boolean loadDfaSnapshot(File file) throws IOException
+    {
+        return DfaSnapshot.load(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
 }
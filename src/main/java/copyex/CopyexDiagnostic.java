@@ -0,0 +1,88 @@
+package copyex;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class CopyexDiagnostic
+{
+    /**
+     * Stage of the compilation which found the error.
+     */
+    public enum Kind
+    {
+        LEXER, SYNTAX, SEMANTIC
+    }
+    
+    private final Kind kind;
+    private final String message;
+    private final int line;
+    private final int column;
+    
+    /**
+     * Create diagnostic for an error in the code.
+     *
+     * @param kind    - Stage which found the error.
+     * @param message - Error message, in the same form as the message of a failed compilation.
+     * @param line    - Line of the error.
+     * @param column  - Position in line of the error.
+     */
+    CopyexDiagnostic(Kind kind, String message, int line, int column)
+    {
+        this.kind = kind;
+        this.message = message;
+        this.line = line;
+        this.column = column;
+    }
+    
+    /**
+     * Return the stage which found the error.
+     *
+     * @return - Kind of the error.
+     */
+    public Kind getKind()
+    {
+        return kind;
+    }
+    
+    /**
+     * Return the error message.
+     *
+     * @return - Error message.
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+    
+    /**
+     * Return the line of the error.
+     *
+     * @return - Line of the error.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+    
+    /**
+     * Return the position in line of the error.
+     *
+     * @return - Position in line of the error.
+     */
+    public int getColumn()
+    {
+        return column;
+    }
+    
+    /**
+     * Create string representation of the diagnostic.
+     *
+     * @return - Error message.
+     */
+    @Override
+    public String toString()
+    {
+        return message;
+    }
+}
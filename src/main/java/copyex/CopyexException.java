@@ -6,13 +6,40 @@ package copyex;
  */
 class CopyexException extends RuntimeException
 {
+    private final int line;
+    private final int column;
+    
     /**
      * Custom Copyex exception used for reporting parse errors.
      *
      * @param message - Error message of the exception.
+     * @param line    - Line of the error.
+     * @param column  - Position in line of the error.
      */
-    CopyexException(String message)
+    CopyexException(String message, int line, int column)
     {
         super(message);
+        this.line = line;
+        this.column = column;
+    }
+    
+    /**
+     * Return the line of the error.
+     *
+     * @return - Line of the error.
+     */
+    int getLine()
+    {
+        return line;
+    }
+    
+    /**
+     * Return the position in line of the error.
+     *
+     * @return - Position in line of the error.
+     */
+    int getColumn()
+    {
+        return column;
     }
 }
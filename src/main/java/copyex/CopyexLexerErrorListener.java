@@ -4,12 +4,34 @@ import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 
+import java.util.List;
+
 /**
  * @author DMarinov
  * Created on: 01/Mar/2019
  */
 public class CopyexLexerErrorListener extends BaseErrorListener
 {
+    private final List<CopyexDiagnostic> diagnostics;
+    
+    /**
+     * Create listener which stops lexing at the first error.
+     */
+    public CopyexLexerErrorListener()
+    {
+        this(null);
+    }
+    
+    /**
+     * Create listener which adds the errors to a list of diagnostics and lets the lexer skip the character.
+     *
+     * @param diagnostics - List of diagnostics, or null to stop lexing at the first error.
+     */
+    CopyexLexerErrorListener(List<CopyexDiagnostic> diagnostics)
+    {
+        this.diagnostics = diagnostics;
+    }
+    
     /**
      * Custom implementation of the lexer method for reporting syntax errors.
      * This method adheres to the copyex error message standard.
@@ -24,6 +46,13 @@ public class CopyexLexerErrorListener extends BaseErrorListener
     @Override
     public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e)
     {
-        throw new RuntimeException("Unrecognized character error!\n" + msg + "\nLocation " + line + ":" + charPositionInLine);
+        String message = "Unrecognized character error!\n" + msg + "\nLocation " + line + ":" + charPositionInLine;
+        
+        if (diagnostics == null)
+        {
+            throw new RuntimeException(message);
+        }
+        
+        diagnostics.add(new CopyexDiagnostic(CopyexDiagnostic.Kind.LEXER, message, line, charPositionInLine));
     }
 }
\ No newline at end of file
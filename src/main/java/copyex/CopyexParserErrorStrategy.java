@@ -4,6 +4,8 @@ import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.IntervalSet;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
+import java.util.List;
+
 /**
  * @author DMarinov
  * Created on: 01/Mar/2019
@@ -13,8 +15,53 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
     private static final String ERROR_MESSAGE = "Got a %s but expected %s!\nLocation: line %s:%s";
     private static final String TOKEN_DISPLAY_FORMAT = "<%s>";
     
+    private final List<CopyexDiagnostic> diagnostics;
+    private String recoveredError;
+    
+    /**
+     * Create error strategy which stops parsing at the first error.
+     */
+    public CopyexParserErrorStrategy()
+    {
+        this(null);
+    }
+    
+    /**
+     * Create error strategy which adds the errors to a list of diagnostics and recovers from them.
+     *
+     * @param diagnostics - List of diagnostics, or null to stop parsing at the first error.
+     */
+    CopyexParserErrorStrategy(List<CopyexDiagnostic> diagnostics)
+    {
+        this.diagnostics = diagnostics;
+    }
+    
+    /**
+     * Return the first error the parser recovered from while stopping at the first error.
+     * Only no viable alternative errors are recovered from, in which case the parse is not complete.
+     *
+     * @return - Message of the error, or null if the parser did not recover from an error.
+     */
+    String getRecoveredError()
+    {
+        return recoveredError;
+    }
+    
+    /**
+     * Forget the error the parser recovered from when the parser is reset.
+     *
+     * @param recognizer - Parser object.
+     */
+    @Override
+    public void reset(Parser recognizer)
+    {
+        super.reset(recognizer);
+        recoveredError = null;
+    }
+    
     /**
      * Override the default recovering and instead rise an error.
+     * When collecting diagnostics the default recovering is used.
      *
      * @param recognizer - Parser object
      *
@@ -23,6 +70,11 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
     @Override
     public Token recoverInline(Parser recognizer) throws RecognitionException
     {
+        if (diagnostics != null)
+        {
+            return super.recoverInline(recognizer);
+        }
+        
         InputMismatchException e = new InputMismatchException(recognizer);
         reportError(recognizer, e);
         throw e;
@@ -30,6 +82,7 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
     
     /**
      * Override the default report error to throw custom Input mismatch errors.
+     * When collecting diagnostics every error is reported, except errors found while recovering from another one.
      *
      * @param recognizer - Parser object.
      * @param error      - Original recognition error.
@@ -37,10 +90,19 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
     @Override
     public void reportError(Parser recognizer, RecognitionException error)
     {
+        if (diagnostics != null && !beginRecovery(recognizer))
+        {
+            return;
+        }
+        
         if (error instanceof InputMismatchException)
         {
             reportInputMismatch(recognizer, (InputMismatchException) error);
         }
+        else if (error instanceof NoViableAltException)
+        {
+            reportNoViableAlternative(recognizer, (NoViableAltException) error);
+        }
     }
     
     /**
@@ -58,7 +120,41 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
         
         String msg = "Input mismatch error!\n" + String.format(ERROR_MESSAGE, getTokenErrorDisplay(e.getOffendingToken()), token, line, position);
         
-        throw new ParseCancellationException(msg, e);
+        if (diagnostics == null)
+        {
+            throw new ParseCancellationException(msg, e);
+        }
+        
+        report(msg, e.getOffendingToken());
+    }
+    
+    /**
+     * Override the default report no viable alternative error to collect custom no viable alternative errors.
+     * When stopping at the first error, the first of them is remembered instead.
+     *
+     * @param recognizer - Parser object.
+     * @param e          - No viable alternative error.
+     */
+    @Override
+    protected void reportNoViableAlternative(Parser recognizer, NoViableAltException e)
+    {
+        Integer line = e.getOffendingToken().getLine();
+        Integer position = e.getOffendingToken().getCharPositionInLine();
+        String token = e.getExpectedTokens().toString(recognizer.getVocabulary());
+        
+        String msg = "No viable alternative error!\n" + String.format(ERROR_MESSAGE, getTokenErrorDisplay(e.getOffendingToken()), token, line, position);
+        
+        if (diagnostics == null)
+        {
+            if (recoveredError == null)
+            {
+                recoveredError = msg;
+            }
+            
+            return;
+        }
+        
+        report(msg, e.getOffendingToken());
     }
     
     /**
@@ -69,6 +165,11 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
     @Override
     protected void reportUnwantedToken(Parser recognizer)
     {
+        if (diagnostics != null && !beginRecovery(recognizer))
+        {
+            return;
+        }
+        
         Token token = recognizer.getCurrentToken();
         Integer line = token.getLine();
         Integer position = token.getCharPositionInLine();
@@ -76,7 +177,65 @@ public class CopyexParserErrorStrategy extends DefaultErrorStrategy
         
         String msg = "Extraneous input error!\n" + String.format(ERROR_MESSAGE, getTokenErrorDisplay(token), expecting.toString(recognizer.getVocabulary()), line, position);
         
-        throw new ParseCancellationException(msg);
+        if (diagnostics == null)
+        {
+            throw new ParseCancellationException(msg);
+        }
+        
+        report(msg, token);
+    }
+    
+    /**
+     * Override the default report missing token to collect custom missing input errors.
+     * Only used when collecting diagnostics, as otherwise the parser does not recover.
+     *
+     * @param recognizer - Parser object
+     */
+    @Override
+    protected void reportMissingToken(Parser recognizer)
+    {
+        if (!beginRecovery(recognizer))
+        {
+            return;
+        }
+        
+        Token token = recognizer.getCurrentToken();
+        Integer line = token.getLine();
+        Integer position = token.getCharPositionInLine();
+        IntervalSet expecting = getExpectedTokens(recognizer);
+        
+        String msg = "Missing input error!\n" + String.format(ERROR_MESSAGE, getTokenErrorDisplay(token), expecting.toString(recognizer.getVocabulary()), line, position);
+        
+        report(msg, token);
+    }
+    
+    /**
+     * Start recovering from an error, unless the parser is recovering already.
+     *
+     * @param recognizer - Parser object.
+     *
+     * @return - Whether or not the error should be reported.
+     */
+    private boolean beginRecovery(Parser recognizer)
+    {
+        if (inErrorRecoveryMode(recognizer))
+        {
+            return false;
+        }
+        
+        beginErrorCondition(recognizer);
+        return true;
+    }
+    
+    /**
+     * Add a syntax error to the diagnostics.
+     *
+     * @param msg   - Error message.
+     * @param token - Token at which the error was found.
+     */
+    private void report(String msg, Token token)
+    {
+        diagnostics.add(new CopyexDiagnostic(CopyexDiagnostic.Kind.SYNTAX, msg, token.getLine(), token.getCharPositionInLine()));
     }
     
     /**
@@ -0,0 +1,805 @@
+package copyex;
+
+import AbstractTree.BinaryNode;
+import AbstractTree.MultiNode;
+import AbstractTree.Node;
+import AbstractTree.NodeType;
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class CopyexTreeBuilder extends CopyexParserBaseListener
+{
+    private final TokenStream tokens;
+    private final Consumer<Node> output;
+    private final CompileBudget budget;
+    private final List<Node> nodes = new ArrayList<>();
+    private int[] blocks = new int[16];
+    private int blockCount;
+    private int lines;
+    private int statement;
+    private Node root;
+    private boolean syntaxError;
+    private Node pending;
+    private boolean hasPending;
+    private int unitMark;
+    private int steps = 0;
+    
+    /**
+     * Create tree builder, which has to be added as a parse listener to a parser reading from the token stream.
+     * The nodes are created when the parser exits a rule, in the same shape as the nodes of the CopyexVisitor,
+     * so the parser does not have to build a parse tree.
+     *
+     * The budget of the compilation is checked once every CHECK_INTERVAL exited rules, as the tokens may all
+     * be lexed before the parser starts.
+     *
+     * @param tokens - Token stream read by the parser.
+     * @param budget - Budget of the compilation, or null.
+     */
+    CopyexTreeBuilder(TokenStream tokens, CompileBudget budget)
+    {
+        this(tokens, null, budget);
+    }
+    
+    /**
+     * Create tree builder which passes every top-level statement, conditional, loop and function to an output
+     * instead of adding it to the tree, so that the nodes of the code are never all in memory at once.
+     * The tokens of a top-level node are kept by the token stream until the node is created.
+     *
+     * @param tokens - Token stream read by the parser.
+     * @param output - Output of the top-level nodes, or null to build the whole tree.
+     * @param budget - Budget of the compilation, or null.
+     */
+    CopyexTreeBuilder(TokenStream tokens, Consumer<Node> output, CompileBudget budget)
+    {
+        this.tokens = tokens;
+        this.output = output;
+        this.budget = budget;
+    }
+    
+    /**
+     * Return the abstract syntax tree of the parsed code.
+     *
+     * @return - Root node of the code.
+     */
+    Node getRoot()
+    {
+        return root;
+    }
+    
+    /**
+     * Check if the parser recovered from a syntax error, in which case the nodes are not complete.
+     *
+     * @return - Whether or not there was a syntax error.
+     */
+    boolean hasSyntaxError()
+    {
+        return syntaxError;
+    }
+    
+    /**
+     * Pass the last top-level node to the output, once the whole code was parsed.
+     * A top-level node is only passed on when the next one starts, as the parser also exits the rules it
+     * abandons because of a syntax error.
+     */
+    void flush()
+    {
+        if (hasPending && !syntaxError)
+        {
+            output.accept(pending);
+        }
+        
+        pending = null;
+        hasPending = false;
+    }
+    
+    /**
+     * Reset the builder when the file rule is entered and remember where blocks start.
+     *
+     * @param context - Entered context.
+     */
+    @Override
+    public void enterEveryRule(ParserRuleContext context)
+    {
+        if (output != null && isTopLevel(context))
+        {
+            flush();
+            unitMark = tokens.mark();
+        }
+        
+        switch (context.getRuleIndex())
+        {
+            case CopyexParser.RULE_file:
+                if (budget != null)
+                {
+                    budget.resetNodes(0);
+                }
+                
+                nodes.clear();
+                blockCount = 0;
+                root = null;
+                syntaxError = false;
+                break;
+            case CopyexParser.RULE_codeBlock:
+                if (blockCount == blocks.length)
+                {
+                    blocks = Arrays.copyOf(blocks, blockCount * 2);
+                }
+                
+                blocks[blockCount++] = nodes.size();
+                break;
+            case CopyexParser.RULE_block:
+                // Lines cannot contain other blocks, so the start of the current lines is enough.
+                lines = nodes.size();
+                break;
+            case CopyexParser.RULE_line:
+                // The only nodes a function call statement creates before its own are those of its parameters.
+                statement = nodes.size();
+                break;
+        }
+    }
+    
+    /**
+     * Remember contexts which the parser recovered from, and check the budget once every CHECK_INTERVAL exits.
+     * When the nodes are passed to an output, the top-level nodes are taken out of the tree.
+     *
+     * @param context - Exited context.
+     *
+     * @throws compiler.CompileAbortedException - If the time limit has passed or the compilation was interrupted.
+     */
+    @Override
+    public void exitEveryRule(ParserRuleContext context)
+    {
+        if (budget != null && (++steps & (CompileBudget.CHECK_INTERVAL - 1)) == 0)
+        {
+            budget.check();
+        }
+        
+        if (context.exception != null)
+        {
+            syntaxError = true;
+        }
+        
+        if (output == null)
+        {
+            return;
+        }
+        
+        if (isTopLevel(context))
+        {
+            pending = pop();
+            hasPending = !syntaxError;
+            tokens.release(unitMark);
+        }
+        else if (context instanceof CopyexParser.CodeBlockContext && context.getParent() instanceof CopyexParser.FileBlockContext)
+        {
+            // Only the empty nodes of the top-level lines are left in the block.
+            pop();
+        }
+    }
+    
+    /**
+     * Create the signature of the function once its name and type are read, before its arguments are added to it.
+     *
+     * @param node - Matched token.
+     */
+    @Override
+    public void visitTerminal(TerminalNode node)
+    {
+        if (node.getSymbol().getType() == CopyexLexer.LPAREN && node.getParent() instanceof CopyexParser.FunctionContext)
+        {
+            CopyexParser.FunctionContext context = (CopyexParser.FunctionContext) node.getParent();
+            
+            MultiNode<String> signature = multiNode("signature", NodeType.SIGNATURE);
+            BinaryNode<String> funcName = binaryNode(context.type.getText(), NodeType.NAME);
+            funcName.setLeft(leaf(context.name));
+            signature.addNode(funcName);
+            
+            push(signature);
+        }
+    }
+    
+    /**
+     * Remember tokens which the parser skipped to recover from a syntax error.
+     *
+     * @param node - Skipped token.
+     */
+    @Override
+    public void visitErrorNode(ErrorNode node)
+    {
+        syntaxError = true;
+    }
+    
+    /**
+     * Create file node.
+     *
+     * @param context - File context.
+     */
+    @Override
+    public void exitFile(CopyexParser.FileContext context)
+    {
+        MultiNode node = multiNode("file", NodeType.FILE);
+        
+        for (Node block : nodes)
+        {
+            node.addNode(block);
+        }
+        
+        nodes.clear();
+        root = node;
+    }
+    
+    /**
+     * Create code block node, named after the rule it belongs to.
+     *
+     * @param context - Code block context.
+     */
+    @Override
+    public void exitCodeBlock(CopyexParser.CodeBlockContext context)
+    {
+        push(popAll(blockNode(context.getParent()), blocks[--blockCount]));
+    }
+    
+    /**
+     * Create lines node.
+     *
+     * @param context - Lines context.
+     */
+    @Override
+    public void exitLines(CopyexParser.LinesContext context)
+    {
+        push(popAll(multiNode("lines", NodeType.LINES), lines));
+    }
+    
+    /**
+     * Create number initialisation node.
+     *
+     * @param context - Number initialisation context.
+     */
+    @Override
+    public void exitInitNum(CopyexParser.InitNumContext context)
+    {
+        push(assignment(context.assign.getText(), declaration(context.def, context.name), pop()));
+    }
+    
+    /**
+     * Create number declaration node.
+     *
+     * @param context - Number declaration context.
+     */
+    @Override
+    public void exitDeclarationNum(CopyexParser.DeclarationNumContext context)
+    {
+        push(declaration(context.def, context.name));
+    }
+    
+    /**
+     * Create number assignment node.
+     *
+     * @param context - Number assignment context.
+     */
+    @Override
+    public void exitAssignmentNum(CopyexParser.AssignmentNumContext context)
+    {
+        push(assignment(context.assign.getText(), leaf(context.name), pop()));
+    }
+    
+    /**
+     * Create boolean initialisation node.
+     *
+     * @param context - Boolean initialisation context.
+     */
+    @Override
+    public void exitInitBool(CopyexParser.InitBoolContext context)
+    {
+        push(assignment(context.assign.getText(), declaration(context.def, context.name), pop()));
+    }
+    
+    /**
+     * Create boolean declaration node.
+     *
+     * @param context - Boolean declaration context.
+     */
+    @Override
+    public void exitDeclarationBool(CopyexParser.DeclarationBoolContext context)
+    {
+        push(declaration(context.def, context.name));
+    }
+    
+    /**
+     * Create boolean assignment node.
+     *
+     * @param context - Boolean assignment context.
+     */
+    @Override
+    public void exitAssignmentBool(CopyexParser.AssignmentBoolContext context)
+    {
+        push(assignment(context.assign.getText(), leaf(context.name), pop()));
+    }
+    
+    /**
+     * Create function call node.
+     *
+     * @param context - Function call context.
+     */
+    @Override
+    public void exitFunctionCall(CopyexParser.FunctionCallContext context)
+    {
+        push(popAll(call(context.value), statement));
+    }
+    
+    /**
+     * Create function assignment node.
+     *
+     * @param context - Function assignment context.
+     */
+    @Override
+    public void exitAssignmentFunction(CopyexParser.AssignmentFunctionContext context)
+    {
+        Node call = popAll(call(context.value), statement);
+        push(assignment(context.assign.getText(), leaf(context.name), call));
+    }
+    
+    /**
+     * Create augmented assignment node.
+     *
+     * @param context - Augmented assignment context.
+     */
+    @Override
+    public void exitAugmented(CopyexParser.AugmentedContext context)
+    {
+        push(assignment(context.operator.getText() + context.assign.getText(), leaf(context.name), pop()));
+    }
+    
+    /**
+     * Create evaluation node.
+     *
+     * @param context - Evaluation context.
+     */
+    @Override
+    public void exitEvaluation(CopyexParser.EvaluationContext context)
+    {
+        BinaryNode node = binaryNode(context.op.getText(), NodeType.PRINT);
+        node.setLeft(pop());
+        push(node);
+    }
+    
+    /**
+     * Create conditional node.
+     *
+     * @param context - Conditional context.
+     */
+    @Override
+    public void exitConditional(CopyexParser.ConditionalContext context)
+    {
+        Node conditionFalse = context.elseBlock != null ? pop() : null;
+        Node conditionTrue = pop();
+        
+        MultiNode<String> node = multiNode("conditional", NodeType.CONDITION);
+        node.addNode(pop());
+        node.addNode(conditionTrue);
+        
+        if (conditionFalse != null)
+        {
+            node.addNode(conditionFalse);
+        }
+        
+        push(node);
+    }
+    
+    /**
+     * Create loop node.
+     *
+     * @param context - Loop context.
+     */
+    @Override
+    public void exitLoop(CopyexParser.LoopContext context)
+    {
+        Node body = pop();
+        
+        BinaryNode<String> node = binaryNode("loop", NodeType.LOOP);
+        node.setLeft(pop());
+        node.setRight(body);
+        
+        push(node);
+    }
+    
+    /**
+     * Add the arguments of the function to its signature.
+     *
+     * @param context - Arguments context.
+     */
+    @Override
+    public void exitArguments(CopyexParser.ArgumentsContext context)
+    {
+        MultiNode signature = (MultiNode) nodes.get(nodes.size() - 1);
+        
+        // Every argument is a type and a name, followed by a comma.
+        for (int i = context.start.getTokenIndex(); i < context.stop.getTokenIndex(); i += 3)
+        {
+            BinaryNode<String> arg = binaryNode(tokens.get(i).getText(), NodeType.ARG);
+            arg.setLeft(leaf(tokens.get(i + 1)));
+            signature.addNode(arg);
+        }
+    }
+    
+    /**
+     * Create return node of a number function.
+     *
+     * @param context - Number return context.
+     */
+    @Override
+    public void exitReturnNum(CopyexParser.ReturnNumContext context)
+    {
+        unary("return", NodeType.RETURN);
+    }
+    
+    /**
+     * Create return node of a boolean function.
+     *
+     * @param context - Boolean return context.
+     */
+    @Override
+    public void exitReturnBool(CopyexParser.ReturnBoolContext context)
+    {
+        unary("return", NodeType.RETURN);
+    }
+    
+    /**
+     * Create function node.
+     *
+     * @param context - Function context.
+     */
+    @Override
+    public void exitFunction(CopyexParser.FunctionContext context)
+    {
+        Node returnNode = context.type.getType() != CopyexLexer.VOID ? pop() : null;
+        MultiNode body = (MultiNode) pop();
+        
+        if (returnNode != null)
+        {
+            body.addNode(returnNode);
+        }
+        
+        BinaryNode<String> node = binaryNode("function", NodeType.FUNCTION);
+        node.setLeft(pop());
+        node.setRight(body);
+        
+        push(node);
+    }
+    
+    /**
+     * Create binary operation node.
+     *
+     * @param context - Binary operation context.
+     */
+    @Override
+    public void exitBinaryOperation(CopyexParser.BinaryOperationContext context)
+    {
+        binary(context.operator.getText());
+    }
+    
+    /**
+     * Create grouping negation node.
+     *
+     * @param context - Grouping negation context.
+     */
+    @Override
+    public void exitGroupingNegation(CopyexParser.GroupingNegationContext context)
+    {
+        unary(context.operator.getText(), NodeType.NEGATION);
+    }
+    
+    /**
+     * Create value negation node.
+     *
+     * @param context - Value negation context.
+     */
+    @Override
+    public void exitValueNegation(CopyexParser.ValueNegationContext context)
+    {
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.NEGATION);
+        node.setLeft(leaf(context.value));
+        push(node);
+    }
+    
+    /**
+     * Create nested negation node.
+     *
+     * @param context - Nested negation context.
+     */
+    @Override
+    public void exitNestedNegation(CopyexParser.NestedNegationContext context)
+    {
+        unary(context.operator.getText(), NodeType.NEGATION);
+    }
+    
+    /**
+     * Create number node.
+     *
+     * @param context - Number context.
+     */
+    @Override
+    public void exitNumber(CopyexParser.NumberContext context)
+    {
+        push(leaf(context.start));
+    }
+    
+    /**
+     * Create variable node.
+     *
+     * @param context - Variable context.
+     */
+    @Override
+    public void exitVariable(CopyexParser.VariableContext context)
+    {
+        push(leaf(context.start));
+    }
+    
+    /**
+     * Create comparison operation node.
+     *
+     * @param context - Comparison operation context.
+     */
+    @Override
+    public void exitComparisonOperation(CopyexParser.ComparisonOperationContext context)
+    {
+        binary(context.operator.getText());
+    }
+    
+    /**
+     * Create not operation node.
+     *
+     * @param context - Not operation context.
+     */
+    @Override
+    public void exitNotOperation(CopyexParser.NotOperationContext context)
+    {
+        unary(context.operator.getText(), NodeType.NOT);
+    }
+    
+    /**
+     * Create binary logic operation node.
+     *
+     * @param context - Binary logic operation context.
+     */
+    @Override
+    public void exitBinaryLogicOperation(CopyexParser.BinaryLogicOperationContext context)
+    {
+        binary(context.operator.getText());
+    }
+    
+    /**
+     * Create assignment node.
+     *
+     * @param operator - Assignment operator.
+     * @param variable - Assigned variable, or declaration of the initialised variable.
+     * @param value    - Assigned value.
+     *
+     * @return - Assignment node.
+     */
+    private Node assignment(String operator, Node variable, Node value)
+    {
+        BinaryNode node = binaryNode(operator, NodeType.ASSIGNMENT);
+        node.setLeft(variable);
+        node.setRight(value);
+        
+        return node;
+    }
+    
+    /**
+     * Create declaration node of a variable, with the variable as its child node.
+     *
+     * @param def  - Type token of the variable.
+     * @param name - Name token of the variable.
+     *
+     * @return - Declaration node.
+     */
+    private Node declaration(Token def, Token name)
+    {
+        BinaryNode<String> node = binaryNode(def.getText(), NodeType.DECLARATION);
+        node.setPosition(def.getLine(), def.getCharPositionInLine());
+        node.setLeft(leaf(name));
+        
+        return node;
+    }
+    
+    /**
+     * Create empty function call node, at the position of the function name.
+     *
+     * @param funcName - Name token of the called function.
+     *
+     * @return - Function call node.
+     */
+    private MultiNode<String> call(Token funcName)
+    {
+        MultiNode<String> node = multiNode(funcName.getText(), NodeType.CALL);
+        node.setPosition(funcName.getLine(), funcName.getCharPositionInLine());
+        
+        return node;
+    }
+    
+    /**
+     * Create leaf node of a token, at the position of the token.
+     *
+     * @param token - Variable, number or name token.
+     *
+     * @return - Leaf node.
+     */
+    private Node leaf(Token token)
+    {
+        BinaryNode<String> node = binaryNode(token.getText(), NodeType.LEAF);
+        node.setPosition(token.getLine(), token.getCharPositionInLine());
+        
+        return node;
+    }
+    
+    /**
+     * Replace the two top nodes with an operation node.
+     *
+     * @param operator - Operator of the operation.
+     */
+    private void binary(String operator)
+    {
+        BinaryNode node = binaryNode(operator, NodeType.INFIXOP);
+        Node right = pop();
+        node.setLeft(pop());
+        node.setRight(right);
+        push(node);
+    }
+    
+    /**
+     * Replace the top node with an operation node.
+     *
+     * @param operator - Operator of the operation.
+     * @param type     - Type of the operation node.
+     */
+    private void unary(String operator, NodeType type)
+    {
+        BinaryNode node = binaryNode(operator, type);
+        node.setLeft(pop());
+        push(node);
+    }
+    
+    /**
+     * Check if a context is a top-level statement, conditional, loop or function.
+     *
+     * @param context - Context to check.
+     *
+     * @return - Whether or not the context is at the top level of the code.
+     */
+    private static boolean isTopLevel(ParserRuleContext context)
+    {
+        if (context instanceof CopyexParser.FunctionContext)
+        {
+            return true;
+        }
+        
+        if (context instanceof CopyexParser.LineContext || context instanceof CopyexParser.ConditionalContext || context instanceof CopyexParser.LoopContext)
+        {
+            // Lines and labelled blocks are the only contexts between the node and the code block.
+            ParserRuleContext codeBlock = context.getParent().getParent();
+            return codeBlock.getParent() instanceof CopyexParser.FileBlockContext;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Create empty code block node, named after the rule the block belongs to.
+     *
+     * @param parent - Context of the rule the block belongs to.
+     *
+     * @return - Code block node.
+     */
+    private MultiNode<String> blockNode(ParserRuleContext parent)
+    {
+        if (parent instanceof CopyexParser.ConditionalContext)
+        {
+            // The else block is the only one parsed after the else token.
+            Token otherwise = ((CopyexParser.ConditionalContext) parent).otherwise;
+            return otherwise == null ? multiNode("if", NodeType.IF) : multiNode(otherwise.getText(), NodeType.ELSE);
+        }
+        
+        if (parent instanceof CopyexParser.LoopContext || parent instanceof CopyexParser.FunctionContext)
+        {
+            return multiNode("body", NodeType.BODY);
+        }
+        
+        return multiNode("block", NodeType.BLOCK);
+    }
+    
+    /**
+     * Move the nodes from a position to the top into a multi node.
+     *
+     * @param node  - Node to add the nodes to.
+     * @param start - Position of the first node.
+     *
+     * @return - The multi node.
+     */
+    private MultiNode popAll(MultiNode node, int start)
+    {
+        List<Node> children = nodes.subList(start, nodes.size());
+        
+        for (Node child : children)
+        {
+            node.addNode(child);
+        }
+        
+        children.clear();
+        
+        return node;
+    }
+    
+    /**
+     * Add a node to the top.
+     *
+     * @param node - Node to add, null for statements without a node.
+     */
+    private void push(Node node)
+    {
+        nodes.add(node);
+    }
+    
+    /**
+     * Remove the top node.
+     *
+     * @return - The removed node.
+     */
+    private Node pop()
+    {
+        return nodes.remove(nodes.size() - 1);
+    }
+    
+    /**
+     * Create binary node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Binary node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private BinaryNode<String> binaryNode(String value, NodeType type)
+    {
+        if (budget != null)
+        {
+            budget.addNode();
+        }
+        
+        return new BinaryNode<>(value, type);
+    }
+    
+    /**
+     * Create multi node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Multi node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private MultiNode<String> multiNode(String value, NodeType type)
+    {
+        if (budget != null)
+        {
+            budget.addNode();
+        }
+        
+        return new MultiNode<>(value, type);
+    }
+}
@@ -3,13 +3,13 @@ package copyex;
 import AbstractTree.BinaryNode;
 import AbstractTree.MultiNode;
 import AbstractTree.Node;
-import org.antlr.v4.runtime.ParserRuleContext;
+import AbstractTree.NodeType;
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author DMarinov
@@ -17,32 +17,45 @@ import java.util.Map;
  */
 public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
 {
-    
-    private Map<String, Map<String, List<String>>> scope = new HashMap<>();
-    Map<String, String> declaredFunctions = new HashMap<>();
-    private String currentScope;
+    private final CompileBudget budget;
+    private int steps = 0;
     
     /**
-     * Visitor Constructor.
-     * Create scopes and assign them.
+     * Create visitor without a budget.
      */
     public CopyexVisitor()
     {
-        Map<String, List<String>> global = new HashMap();
-        
-        List<String> declaredNum = new ArrayList<>();
-        List<String> declaredBool = new ArrayList<>();
-        List<String> assignedNum = new ArrayList<>();
-        List<String> assignedBool = new ArrayList<>();
-        
-        global.put("declaredNum", declaredNum);
-        global.put("declaredBool", declaredBool);
-        global.put("assignedNum", assignedNum);
-        global.put("assignedBool", assignedBool);
-        
-        scope.put("global", global);
+        this(null);
+    }
+    
+    /**
+     * Create visitor which checks the budget of the compilation as it visits the parse tree.
+     *
+     * @param budget - Budget of the compilation, or null.
+     */
+    public CopyexVisitor(CompileBudget budget)
+    {
+        this.budget = budget;
+    }
+    
+    /**
+     * Visit parse tree and create node, checking the budget once every CHECK_INTERVAL visits.
+     *
+     * @param tree - Parse tree.
+     *
+     * @return - Node of the parse tree.
+     *
+     * @throws compiler.CompileAbortedException - If the time limit has passed or the compilation was interrupted.
+     */
+    @Override
+    public Node visit(ParseTree tree)
+    {
+        if (budget != null && (++steps & (CompileBudget.CHECK_INTERVAL - 1)) == 0)
+        {
+            budget.check();
+        }
         
-        currentScope = "global";
+        return super.visit(tree);
     }
     
     /**
@@ -55,11 +68,11 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitFile(CopyexParser.FileContext context)
     {
-        MultiNode node = new MultiNode("file");
+        MultiNode node = multiNode("file", NodeType.FILE);
         
-        for (int i = 0; i < context.fileBlock().size(); i++)
+        for (CopyexParser.FileBlockContext fileBlock : context.fileBlock())
         {
-            node.addNode(this.visit(context.fileBlock(i)));
+            node.addNode(this.visit(fileBlock));
         }
         
         return node;
@@ -75,10 +88,10 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitCodeBlock(CopyexParser.CodeBlockContext context)
     {
-        MultiNode node = new MultiNode("block");
-        for (int i = 0; i < context.block().size(); i++)
+        MultiNode node = multiNode("block", NodeType.BLOCK);
+        for (CopyexParser.BlockContext block : context.block())
         {
-            node.addNode(this.visit(context.block(i)));
+            node.addNode(this.visit(block));
         }
         
         return node;
@@ -94,10 +107,10 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitLines(CopyexParser.LinesContext context)
     {
-        MultiNode node = new MultiNode("lines");
-        for (int i = 0; i < context.line().size(); i++)
+        MultiNode node = multiNode("lines", NodeType.LINES);
+        for (CopyexParser.LineContext line : context.line())
         {
-            node.addNode(this.visit(context.line(i)));
+            node.addNode(this.visit(line));
         }
         
         return node;
@@ -134,23 +147,8 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitInitNum(CopyexParser.InitNumContext context)
     {
-        String var = context.name.getText();
-        
-        if (!scope.get(currentScope).get("declaredNum").contains(var))
-        {
-            scope.get(currentScope).get("declaredNum").add(var);
-        }
-        
-        if (!scope.get(currentScope).get("assignedNum").contains(var))
-        {
-            scope.get(currentScope).get("assignedNum").add(var);
-        }
-        
-        scope.get(currentScope).get("declaredBool").remove(var);
-        scope.get(currentScope).get("assignedBool").remove(var);
-        
-        BinaryNode node = new BinaryNode<>(context.assign.getText());
-        node.setLeft(new BinaryNode<>(context.name.getText()));
+        BinaryNode node = binaryNode(context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(declaration(context.def, context.name));
         node.setRight(this.visit(context.value));
         
         return node;
@@ -166,18 +164,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitDeclarationNum(CopyexParser.DeclarationNumContext context)
     {
-        String var = context.name.getText();
-        
-        if (!scope.get(currentScope).get("declaredNum").contains(var))
-        {
-            scope.get(currentScope).get("declaredNum").add(context.name.getText());
-        }
-        
-        scope.get(currentScope).get("declaredBool").remove(var);
-        scope.get(currentScope).get("assignedBool").remove(var);
-        scope.get(currentScope).get("assignedNum").remove(var);
-        
-        return null;
+        return declaration(context.def, context.name);
     }
     
     /**
@@ -190,34 +177,11 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitAssignmentNum(CopyexParser.AssignmentNumContext context)
     {
-        String var = context.name.getText();
+        BinaryNode node = binaryNode(context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(context.name));
+        node.setRight(this.visit(context.value));
         
-        if (checkScopes("declaredNum", var))
-        {
-            BinaryNode node = new BinaryNode<>(context.assign.getText());
-            node.setLeft(new BinaryNode<>(var));
-            node.setRight(this.visit(context.value));
-            
-            if (!checkScopes("assignedNum", var))
-            {
-                scope.get(currentScope).get("assignedNum").add(context.name.getText());
-            }
-            
-            return node;
-        }
-        else
-        {
-            if (scope.get(currentScope).get("declaredBool").contains(var))
-            {
-                String location = location(context);
-                throw new CopyexException("Compile error!\n'" + var + "' is not of type number!\nLocation " + location);
-            }
-            else
-            {
-                String location = location(context);
-                throw new CopyexException("Compile error!\n'" + var + "' is not a defined variable!\nLocation " + location);
-            }
-        }
+        return node;
     }
     
     /**
@@ -230,34 +194,8 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitInitBool(CopyexParser.InitBoolContext context)
     {
-        
-        String var = context.name.getText();
-        
-        try
-        {
-            ((CopyexParser.ComparisonOperationContext) context.value).logicalOp();
-        }
-        catch (Exception e)
-        {
-            String location = location(context);
-            throw new CopyexException("Compile error!\n'" + var + "' is not of type boolean!\nLocation " + location);
-        }
-        
-        if (!scope.get(currentScope).get("declaredBool").contains(var))
-        {
-            scope.get(currentScope).get("declaredBool").add(var);
-        }
-        
-        if (!scope.get(currentScope).get("assignedBool").contains(var))
-        {
-            scope.get(currentScope).get("assignedBool").add(var);
-        }
-        
-        scope.get(currentScope).get("declaredNum").remove(var);
-        scope.get(currentScope).get("assignedNum").remove(var);
-        
-        BinaryNode node = new BinaryNode<>(context.assign.getText());
-        node.setLeft(new BinaryNode<>(context.name.getText()));
+        BinaryNode node = binaryNode(context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(declaration(context.def, context.name));
         node.setRight(this.visit(context.value));
         
         return node;
@@ -273,18 +211,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitDeclarationBool(CopyexParser.DeclarationBoolContext context)
     {
-        String var = context.name.getText();
-        
-        if (!scope.get(currentScope).get("declaredBool").contains(var))
-        {
-            scope.get(currentScope).get("declaredBool").add(context.name.getText());
-        }
-        
-        scope.get(currentScope).get("declaredNum").remove(var);
-        scope.get(currentScope).get("assignedNum").remove(var);
-        scope.get(currentScope).get("assignedBool").remove(var);
-        
-        return null;
+        return declaration(context.def, context.name);
     }
     
     /**
@@ -297,34 +224,11 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitAssignmentBool(CopyexParser.AssignmentBoolContext context)
     {
-        String var = context.name.getText();
+        BinaryNode node = binaryNode(context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(context.name));
+        node.setRight(this.visit(context.value));
         
-        if (checkScopes("declaredBool", var))
-        {
-            BinaryNode node = new BinaryNode<>(context.assign.getText());
-            node.setLeft(new BinaryNode<>(var));
-            node.setRight(this.visit(context.value));
-            
-            if (!checkScopes("assignedBool", var))
-            {
-                scope.get(currentScope).get("assignedBool").add(context.name.getText());
-            }
-            
-            return node;
-        }
-        else
-        {
-            if (scope.get(currentScope).get("declaredNum").contains(var))
-            {
-                String location = location(context);
-                throw new CopyexException("Compile error!\n'" + var + "' is not of type boolean!\nLocation " + location);
-            }
-            else
-            {
-                String location = location(context);
-                throw new CopyexException("Compile error!\n'" + var + "' is not a defined variable!\nLocation " + location);
-            }
-        }
+        return node;
     }
     
     /**
@@ -337,18 +241,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitFunctionCall(CopyexParser.FunctionCallContext context)
     {
-        String funcName = context.value.getText();
-        if (declaredFunctions.containsKey(funcName))
-        {
-            BinaryNode node = new BinaryNode<>(context.getText() + "\n");
-            
-            return node;
-        }
-        else
-        {
-            String location = location(context);
-            throw new CopyexException("Compile error!\n'" + funcName + "'() is not a defined function!\nLocation " + location);
-        }
+        return call(context.value, context.parameters());
     }
     
     /**
@@ -361,102 +254,35 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitAssignmentFunction(CopyexParser.AssignmentFunctionContext context)
     {
-        String var = context.name.getText();
-        String funcName = context.value.getText();
+        BinaryNode node = binaryNode(context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(context.name));
+        node.setRight(call(context.value, context.parameters()));
+        
+        return node;
+    }
+    
+    /**
+     * Create function call node with the parameters as child nodes, at the position of the function name.
+     *
+     * @param funcName   - Name token of the called function.
+     * @param parameters - Parameters context, or null if there are no parameters.
+     *
+     * @return - Function call node.
+     */
+    private Node call(Token funcName, CopyexParser.ParametersContext parameters)
+    {
+        MultiNode<String> node = multiNode(funcName.getText(), NodeType.CALL);
+        node.setPosition(funcName.getLine(), funcName.getCharPositionInLine());
         
-        if (declaredFunctions.containsKey(funcName))
+        if (parameters != null)
         {
-            String funcType = declaredFunctions.get(funcName);
-            
-            if (funcType.equals("bool"))
+            for (CopyexParser.OperationContext operation : parameters.operation())
             {
-                if (checkScopes("declaredBool", var))
-                {
-                    BinaryNode node = new BinaryNode<>(context.assign.getText());
-                    node.setLeft(new BinaryNode<>(var));
-                    
-                    StringBuilder parameters = new StringBuilder();
-                    if (context.parameters() != null)
-                    {
-                        for (ParseTree para : context.parameters().children)
-                        {
-                            parameters.append(para.getText());
-                        }
-                    }
-                    
-                    node.setRight(new BinaryNode<>(funcName + "(" + parameters + ")"));
-                    
-                    if (!checkScopes("assignedBool", var))
-                    {
-                        scope.get(currentScope).get("assignedBool").add(context.name.getText());
-                    }
-                    
-                    return node;
-                }
-                else
-                {
-                    if (checkScopes("declaredNum", var))
-                    {
-                        String location = location(context);
-                        throw new CopyexException("Compile error!\n'" + var + "' is not of type boolean!\nLocation " + location);
-                    }
-                    else
-                    {
-                        String location = location(context);
-                        throw new CopyexException("Compile error!\n'" + var + "' is not a defined variable!\nLocation " + location);
-                    }
-                }
+                node.addNode(this.visit(operation));
             }
-            
-            if (funcType.equals("num"))
-            {
-                if (checkScopes("declaredNum", var))
-                {
-                    BinaryNode node = new BinaryNode<>(context.assign.getText());
-                    node.setLeft(new BinaryNode<>(var));
-                    
-                    StringBuilder parameters = new StringBuilder();
-                    
-                    if (context.parameters() != null)
-                    {
-                        for (ParseTree para : context.parameters().children)
-                        {
-                            parameters.append(para.getText());
-                        }
-                    }
-                    
-                    node.setRight(new BinaryNode<>(funcName + "(" + parameters + ")"));
-                    
-                    if (!checkScopes("assignedNum", var))
-                    {
-                        scope.get(currentScope).get("assignedNum").add(context.name.getText());
-                    }
-                    
-                    return node;
-                }
-                else
-                {
-                    if (checkScopes("declaredBool", var))
-                    {
-                        String location = location(context);
-                        throw new CopyexException("Compile error!\n'" + var + "' is not of type number!\nLocation " + location);
-                    }
-                    else
-                    {
-                        String location = location(context);
-                        throw new CopyexException("Compile error!\n'" + var + "' is not a defined variable!\nLocation " + location);
-                    }
-                }
-            }
-            
-            String location = location(context);
-            throw new CopyexException("Compile error!\n'" + funcName + "'() does not return a value!\nLocation " + location);
-        }
-        else
-        {
-            String location = location(context);
-            throw new CopyexException("Compile error!\n'" + funcName + "'() is not a defined function!\nLocation " + location);
         }
+        
+        return node;
     }
     
     /**
@@ -469,27 +295,10 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitAugmented(CopyexParser.AugmentedContext context)
     {
-        String variable = context.name.getText();
-        if (checkScopes("declaredNum", variable))
-        {
-            if (checkScopes("assignedNum", variable))
-            {
-                BinaryNode node = new BinaryNode<>(context.operator.getText() + context.assign.getText());
-                node.setLeft(new BinaryNode<>(variable));
-                node.setRight(this.visit(context.value));
-                return node;
-            }
-            else
-            {
-                String location = location(context);
-                throw new CopyexException("Initialization error!\n'" + variable + "' has not been initialized yet!\nLocation: " + location);
-            }
-        }
-        else
-        {
-            String location = location(context);
-            throw new CopyexException("Compile error!\n'" + variable + "' is not a defined variable!\nLocation " + location);
-        }
+        BinaryNode node = binaryNode(context.operator.getText() + context.assign.getText(), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(context.name));
+        node.setRight(this.visit(context.value));
+        return node;
     }
     
     /**
@@ -502,7 +311,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitEvaluation(CopyexParser.EvaluationContext context)
     {
-        BinaryNode node = new BinaryNode<>(context.op.getText());
+        BinaryNode node = binaryNode(context.op.getText(), NodeType.PRINT);
         node.setLeft(this.visit(context.arithmetic()));
         return node;
     }
@@ -517,26 +326,26 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitConditional(CopyexParser.ConditionalContext context)
     {
-        MultiNode<String> node = new MultiNode<>("conditional");
+        MultiNode<String> node = multiNode("conditional", NodeType.CONDITION);
         
         node.addNode(this.visit(context.condition));
         
-        MultiNode<String> conditionTrue = new MultiNode<>("if");
+        MultiNode<String> conditionTrue = multiNode("if", NodeType.IF);
         
-        for (int i = 0; i < context.ifBlock.block().size(); i++)
+        for (CopyexParser.BlockContext block : context.ifBlock.block())
         {
-            conditionTrue.addNode(this.visit(context.ifBlock.block(i)));
+            conditionTrue.addNode(this.visit(block));
         }
         
         node.addNode(conditionTrue);
         
         if (context.elseBlock != null)
         {
-            MultiNode<String> conditionFalse = new MultiNode<>(context.otherwise.getText());
+            MultiNode<String> conditionFalse = multiNode(context.otherwise.getText(), NodeType.ELSE);
             
-            for (int i = 0; i < context.elseBlock.block().size(); i++)
+            for (CopyexParser.BlockContext block : context.elseBlock.block())
             {
-                conditionFalse.addNode(this.visit(context.elseBlock.block(i)));
+                conditionFalse.addNode(this.visit(block));
             }
             
             node.addNode(conditionFalse);
@@ -555,14 +364,14 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitLoop(CopyexParser.LoopContext context)
     {
-        BinaryNode<String> node = new BinaryNode<>("loop");
+        BinaryNode<String> node = binaryNode("loop", NodeType.LOOP);
         node.setLeft(this.visit(context.condition));
         
-        MultiNode<String> body = new MultiNode<>("body");
+        MultiNode<String> body = multiNode("body", NodeType.BODY);
         
-        for (int i = 0; i < context.whileBlock.block().size(); i++)
+        for (CopyexParser.BlockContext block : context.whileBlock.block())
         {
-            body.addNode(this.visit(context.whileBlock.block(i)));
+            body.addNode(this.visit(block));
         }
         
         node.setRight(body);
@@ -580,70 +389,39 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitFunction(CopyexParser.FunctionContext context)
     {
-        BinaryNode<String> node = new BinaryNode<>("function");
-        MultiNode<String> signature = new MultiNode<>("signature");
+        BinaryNode<String> node = binaryNode("function", NodeType.FUNCTION);
+        MultiNode<String> signature = multiNode("signature", NodeType.SIGNATURE);
         
-        BinaryNode<String> funcName = new BinaryNode<>("name");
-        funcName.setLeft(new BinaryNode<>(context.name.getText()));
+        BinaryNode<String> funcName = binaryNode(context.type.getText(), NodeType.NAME);
+        funcName.setLeft(leaf(context.name));
         signature.addNode(funcName);
         
-        Map<String, List<String>> functionScope = new HashMap();
-        
-        List<String> declaredNum = new ArrayList<>();
-        List<String> declaredBool = new ArrayList<>();
-        List<String> assignedNum = new ArrayList<>();
-        List<String> assignedBool = new ArrayList<>();
-        
-        functionScope.put("declaredNum", declaredNum);
-        functionScope.put("declaredBool", declaredBool);
-        functionScope.put("assignedNum", assignedNum);
-        functionScope.put("assignedBool", assignedBool);
-        
-        scope.put(context.name.getText(), functionScope);
-        
-        declaredFunctions.put(context.name.getText(), context.type.getText());
-        
-        currentScope = context.name.getText();
         if (context.arguments() != null)
         {
             for (int i = 0; i < context.arguments().ID().size(); i++)
             {
-                String type = context.arguments().varType(i).getText();
-                
-                if (type.equals("num"))
-                {
-                    scope.get(currentScope).get("declaredNum").add(context.arguments().ID(i).getText());
-                    scope.get(currentScope).get("assignedNum").add(context.arguments().ID(i).getText());
-                }
-                
-                if (type.equals("bool"))
-                {
-                    scope.get(currentScope).get("declaredBool").add(context.arguments().ID(i).getText());
-                    scope.get(currentScope).get("assignedBool").add(context.arguments().ID(i).getText());
-                }
-                
-                BinaryNode<String> arg = new BinaryNode<>("arg");
-                arg.setLeft(new BinaryNode<>(context.arguments().ID(i).getText()));
+                BinaryNode<String> arg = binaryNode(context.arguments().varType(i).getText(), NodeType.ARG);
+                arg.setLeft(leaf(context.arguments().ID(i).getSymbol()));
                 signature.addNode(arg);
             }
         }
-        MultiNode<String> body = new MultiNode<>("body");
+        MultiNode<String> body = multiNode("body", NodeType.BODY);
         
-        for (int i = 0; i < context.funcBlock.block().size(); i++)
+        for (CopyexParser.BlockContext block : context.funcBlock.block())
         {
-            body.addNode(this.visit(context.funcBlock.block(i)));
+            body.addNode(this.visit(block));
         }
         
         if (context.returnNum() != null)
         {
-            BinaryNode<String> returnNode = new BinaryNode<>("return");
+            BinaryNode<String> returnNode = binaryNode("return", NodeType.RETURN);
             returnNode.setLeft(this.visit(context.returnNum().arithmetic()));
             body.addNode(returnNode);
         }
         
         if (context.returnBool() != null)
         {
-            BinaryNode<String> returnNode = new BinaryNode<>("return");
+            BinaryNode<String> returnNode = binaryNode("return", NodeType.RETURN);
             returnNode.setLeft(this.visit(context.returnBool().logical()));
             body.addNode(returnNode);
         }
@@ -651,13 +429,13 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
         node.setLeft(signature);
         node.setRight(body);
         
-        currentScope = "global";
-        
         return node;
     }
     
     /**
      * Visit binary operation and create node.
+     * A chain of operations such as a + b + c is nested in the left operands, so the chain is followed in a loop
+     * and the nodes are created from the innermost operation, instead of visiting the left operands recursively.
      *
      * @param context - Binary operation context.
      *
@@ -666,9 +444,24 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitBinaryOperation(CopyexParser.BinaryOperationContext context)
     {
-        BinaryNode node = new BinaryNode<>(context.operator.getText());
-        node.setLeft(this.visit(context.left));
-        node.setRight(this.visit(context.right));
+        List<CopyexParser.BinaryOperationContext> chain = new ArrayList<>();
+        CopyexParser.ArithmeticContext left = context;
+        
+        while (left instanceof CopyexParser.BinaryOperationContext)
+        {
+            chain.add((CopyexParser.BinaryOperationContext) left);
+            left = ((CopyexParser.BinaryOperationContext) left).left;
+        }
+        
+        Node node = this.visit(left);
+        
+        for (int i = chain.size() - 1; i >= 0; i--)
+        {
+            BinaryNode operation = binaryNode(chain.get(i).operator.getText(), NodeType.INFIXOP);
+            operation.setLeft(node);
+            operation.setRight(this.visit(chain.get(i).right));
+            node = operation;
+        }
         
         return node;
     }
@@ -683,7 +476,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitGroupingNegation(CopyexParser.GroupingNegationContext context)
     {
-        BinaryNode node = new BinaryNode(context.operator.getText());
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.NEGATION);
         node.setLeft(this.visit(context.grouping()));
         
         return node;
@@ -699,8 +492,8 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitValueNegation(CopyexParser.ValueNegationContext context)
     {
-        BinaryNode node = new BinaryNode(context.operator.getText());
-        node.setLeft(new BinaryNode<>(context.value.getText()));
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.NEGATION);
+        node.setLeft(leaf(context.value));
         
         return node;
     }
@@ -715,7 +508,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitNestedNegation(CopyexParser.NestedNegationContext context)
     {
-        BinaryNode node = new BinaryNode(context.operator.getText());
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.NEGATION);
         node.setLeft(this.visit(context.negation()));
         
         return node;
@@ -744,7 +537,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitNumber(CopyexParser.NumberContext context)
     {
-        return new BinaryNode<>(context.getText());
+        return leaf(context.start);
     }
     
     /**
@@ -757,16 +550,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitVariable(CopyexParser.VariableContext context)
     {
-        String variable = context.getText();
-        if (checkScopes("assignedNum", variable) || checkScopes("assignedBool", variable))
-        {
-            return new BinaryNode<>(context.getText());
-        }
-        else
-        {
-            String location = location(context);
-            throw new CopyexException("Initialization error!\n'" + variable + "' has not been initialized yet!\nLocation: " + location);
-        }
+        return leaf(context.start);
     }
     
     /**
@@ -779,7 +563,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitComparisonOperation(CopyexParser.ComparisonOperationContext context)
     {
-        BinaryNode node = new BinaryNode<>(context.operator.getText());
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.INFIXOP);
         node.setLeft(this.visit(context.left));
         node.setRight(this.visit(context.right));
         
@@ -796,7 +580,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitNotOperation(CopyexParser.NotOperationContext context)
     {
-        BinaryNode node = new BinaryNode<>(context.operator.getText());
+        BinaryNode node = binaryNode(context.operator.getText(), NodeType.NOT);
         node.setLeft(this.visit(context.value));
         
         return node;
@@ -804,6 +588,7 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     
     /**
      * Visit binary logic operation and create node.
+     * A chain of operations such as a and b and c is followed in a loop, the same way as arithmetic operations.
      *
      * @param context - Binary logic operation context.
      *
@@ -812,46 +597,97 @@ public class CopyexVisitor extends CopyexParserBaseVisitor<Node>
     @Override
     public Node visitBinaryLogicOperation(CopyexParser.BinaryLogicOperationContext context)
     {
-        BinaryNode node = new BinaryNode<>(context.operator.getText());
-        node.setLeft(this.visit(context.left));
-        node.setRight(this.visit(context.right));
+        List<CopyexParser.BinaryLogicOperationContext> chain = new ArrayList<>();
+        CopyexParser.LogicalContext left = context;
+        
+        while (left instanceof CopyexParser.BinaryLogicOperationContext)
+        {
+            chain.add((CopyexParser.BinaryLogicOperationContext) left);
+            left = ((CopyexParser.BinaryLogicOperationContext) left).left;
+        }
+        
+        Node node = this.visit(left);
+        
+        for (int i = chain.size() - 1; i >= 0; i--)
+        {
+            BinaryNode operation = binaryNode(chain.get(i).operator.getText(), NodeType.INFIXOP);
+            operation.setLeft(node);
+            operation.setRight(this.visit(chain.get(i).right));
+            node = operation;
+        }
         
         return node;
     }
     
     /**
-     * Find the location of an element from the context.
+     * Create declaration node of a variable, with the variable as its child node.
      *
-     * @param context - Context of the element to locate.
+     * @param def  - Type token of the variable.
+     * @param name - Name token of the variable.
      *
-     * @return - String - Line and position description.
+     * @return - Declaration node.
      */
-    private String location(ParserRuleContext context)
+    private Node declaration(Token def, Token name)
     {
-        String line = String.valueOf(context.start.getLine());
-        String position = String.valueOf(context.start.getCharPositionInLine());
-        return "line " + line + ":" + position;
+        BinaryNode<String> node = binaryNode(def.getText(), NodeType.DECLARATION);
+        node.setPosition(def.getLine(), def.getCharPositionInLine());
+        node.setLeft(leaf(name));
+        
+        return node;
     }
     
     /**
-     * Check if a variable exist in any of the scopes for a specific register.
+     * Create leaf node of a token, at the position of the token.
      *
-     * @param register - Register to check.
-     * @param variable - Variable to check for.
+     * @param token - Variable, number or name token.
      *
-     * @return - Whether or not the variable exist in the specific register.
+     * @return - Leaf node.
      */
-    private Boolean checkScopes(String register, String variable)
+    private Node leaf(Token token)
     {
-        Boolean inCurrentScope = scope.get(currentScope).get(register).contains(variable);
+        BinaryNode<String> node = binaryNode(token.getText(), NodeType.LEAF);
+        node.setPosition(token.getLine(), token.getCharPositionInLine());
         
-        if (!inCurrentScope)
+        return node;
+    }
+    
+    /**
+     * Create binary node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Binary node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private BinaryNode<String> binaryNode(String value, NodeType type)
+    {
+        if (budget != null)
         {
-            return scope.get("global").get(register).contains(variable);
+            budget.addNode();
         }
-        else
+        
+        return new BinaryNode<>(value, type);
+    }
+    
+    /**
+     * Create multi node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Multi node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private MultiNode<String> multiNode(String value, NodeType type)
+    {
+        if (budget != null)
         {
-            return true;
+            budget.addNode();
         }
+        
+        return new MultiNode<>(value, type);
     }
 }
@@ -0,0 +1,392 @@
+package copyex;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.AtomTransition;
+import org.antlr.v4.runtime.atn.BlockStartState;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PlusLoopbackState;
+import org.antlr.v4.runtime.atn.RuleStopState;
+import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.atn.SetTransition;
+import org.antlr.v4.runtime.atn.StarLoopEntryState;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class DecisionProfiler
+{
+    private static final int MAX_ELEMENTS = 8;
+    private static final int MAX_STEPS = 64;
+    private static final String HEADER = "%8s  %-16s %-10s %11s %9s %8s %8s %10s%n";
+    private static final String ROW = "%8d  %-16s %-10s %11d %9d %8d %8d %10.3f%n";
+    private static final Map<String, String> LABELS = new LabelParser().findLabels();
+    
+    private final CopyexLexer lexer;
+    private final CommonTokenStream tokens;
+    private final CopyexParser parser;
+    private int files;
+    private int failed;
+    
+    /**
+     * Create profiler which parses with full LL prediction, the same way as the Copyex parser.
+     * The prediction states are shared with the other parsers, so decisions which were predicted before are
+     * profiled the way they are predicted in a long running process.
+     */
+    public DecisionProfiler()
+    {
+        lexer = new CopyexLexer(null);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new CopyexLexerErrorListener());
+        tokens = new CommonTokenStream(lexer);
+        parser = new CopyexParser(null);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new CopyexParserErrorStrategy());
+        parser.setBuildParseTree(false);
+        parser.setProfile(true);
+    }
+    
+    /**
+     * Parse a file and add its predictions to the profile.
+     * Files with errors are profiled up to the first error.
+     *
+     * @param file - File with code to be parsed.
+     *
+     * @return - Whether or not the file was parsed without errors.
+     */
+    public boolean profile(File file)
+    {
+        try
+        {
+            return profile(CharStreams.fromPath(file.toPath()));
+        }
+        catch (IOException e)
+        {
+            System.out.println(e.getMessage());
+            failed++;
+            return false;
+        }
+    }
+    
+    /**
+     * Parse a string of code and add its predictions to the profile.
+     *
+     * @param code - Code to be parsed.
+     *
+     * @return - Whether or not the code was parsed without errors.
+     */
+    public boolean profile(String code)
+    {
+        return profile(CharStreams.fromString(code));
+    }
+    
+    /**
+     * Parse a stream of characters and add its predictions to the profile.
+     *
+     * @param input - Characters to be parsed.
+     *
+     * @return - Whether or not the characters were parsed without errors.
+     */
+    private boolean profile(CharStream input)
+    {
+        files++;
+        lexer.setInputStream(input);
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+        parser.setState(ATNState.INVALID_STATE_NUMBER);
+        
+        try
+        {
+            parser.file();
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            // Syntax errors cancel the parse and errors of the lexer are runtime exceptions as well.
+            failed++;
+            return false;
+        }
+    }
+    
+    /**
+     * Return the predictions of the decisions which were invoked, starting with the slowest one.
+     *
+     * @return - Prediction statistics of the decisions.
+     */
+    public List<DecisionInfo> getDecisions()
+    {
+        List<DecisionInfo> decisions = new ArrayList<>();
+        
+        for (DecisionInfo decision : parser.getParseInfo().getDecisionInfo())
+        {
+            if (decision.invocations > 0)
+            {
+                decisions.add(decision);
+            }
+        }
+        
+        decisions.sort(Comparator.comparingLong((DecisionInfo decision) -> decision.timeInPrediction).reversed());
+        
+        return decisions;
+    }
+    
+    /**
+     * Create a report of the decisions which were invoked, starting with the slowest one.
+     * Every decision is followed by the alternatives it chooses between, as they are written in the grammar.
+     * Labelled alternatives of a rule are named by their label in the grammar.
+     *
+     * @return - Profile report.
+     */
+    public String report()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Profiled %d files, %d with errors.%n", files, failed));
+        report.append(String.format("Total prediction time %.3f ms.%n%n", parser.getParseInfo().getTotalTimeInPrediction() / 1e6));
+        report.append(String.format(HEADER, "Decision", "Rule", "Kind", "Invocations", "Fallbacks", "SLL look", "LL look", "Time (ms)"));
+        
+        for (DecisionInfo decision : getDecisions())
+        {
+            DecisionState state = CopyexParser._ATN.getDecisionState(decision.decision);
+            
+            report.append(String.format(ROW, decision.decision, CopyexParser.ruleNames[state.ruleIndex], kind(state), decision.invocations, decision.LL_Fallback, decision.SLL_MaxLook, decision.LL_MaxLook, decision.timeInPrediction / 1e6));
+            
+            boolean outer = CopyexParser._ATN.ruleToStartState[state.ruleIndex].transition(0).target == state;
+            
+            for (int alt = 1; alt <= state.getNumberOfTransitions(); alt++)
+            {
+                String label = outer ? LABELS.get(state.ruleIndex + ":" + alt) : null;
+                report.append(String.format("%10s alt %d%s: %s%n", "", alt, label == null ? "" : " " + label, describe(state, alt)));
+            }
+        }
+        
+        return report.toString();
+    }
+    
+    /**
+     * Return the kind of construct a decision chooses in.
+     *
+     * @param state - Decision state.
+     *
+     * @return - Kind of the decision.
+     */
+    private static String kind(DecisionState state)
+    {
+        if (state instanceof StarLoopEntryState)
+        {
+            return ((StarLoopEntryState) state).isPrecedenceDecision ? "operators" : "loop (*)";
+        }
+        
+        if (state instanceof PlusLoopbackState)
+        {
+            return "loop (+)";
+        }
+        
+        return "block";
+    }
+    
+    /**
+     * Describe an alternative of a decision by the tokens and rules it starts with.
+     * The description stops at the end of the alternative or at the next decision, which is shown as "...".
+     * Alternatives which leave a loop at the end of the rule are shown as the end of the rule.
+     *
+     * @param decision - Decision state.
+     * @param alt      - Number of the alternative, starting from 1.
+     *
+     * @return - Description of the alternative.
+     */
+    private static String describe(DecisionState decision, int alt)
+    {
+        ATNState end = decision instanceof BlockStartState ? ((BlockStartState) decision).endState : null;
+        ATNState state = decision.transition(alt - 1).target;
+        List<String> elements = new ArrayList<>();
+        
+        for (int step = 0; step < MAX_STEPS && elements.size() < MAX_ELEMENTS; step++)
+        {
+            if (state instanceof RuleStopState && elements.isEmpty())
+            {
+                return "<end of " + CopyexParser.ruleNames[state.ruleIndex] + ">";
+            }
+            
+            if (state == end || state == decision || state instanceof RuleStopState || state.getNumberOfTransitions() == 0)
+            {
+                break;
+            }
+            
+            if (state instanceof DecisionState && state.getNumberOfTransitions() > 1)
+            {
+                elements.add("...");
+                break;
+            }
+            
+            Transition transition = state.transition(0);
+            
+            if (transition instanceof RuleTransition)
+            {
+                elements.add(CopyexParser.ruleNames[transition.target.ruleIndex]);
+                state = ((RuleTransition) transition).followState;
+            }
+            else
+            {
+                if (transition instanceof AtomTransition || transition instanceof SetTransition)
+                {
+                    elements.add(transition.label().toString(CopyexParser.VOCABULARY));
+                }
+                
+                state = transition.target;
+            }
+        }
+        
+        return elements.isEmpty() ? "<empty>" : String.join(" ", elements);
+    }
+    
+    /**
+     * Parser which finds the labels of the alternatives of the rules, so that the report can show the names of
+     * the alternatives given in the grammar. Each alternative of the first decision of a rule is entered once,
+     * with the prediction forced to the alternative and a single token it can start with as the input.
+     */
+    private static class LabelParser extends CopyexParser
+    {
+        private final Map<String, String> labels = new HashMap<>();
+        private int alt;
+        
+        /**
+         * Create parser without an input, which predicts the alternative it is told to enter.
+         */
+        LabelParser()
+        {
+            super(null);
+            removeErrorListeners();
+            setInterpreter(new ParserATNSimulator(this, _ATN, _decisionToDFA, _sharedContextCache)
+            {
+                @Override
+                public int adaptivePredict(TokenStream input, int decision, ParserRuleContext outerContext)
+                {
+                    return alt;
+                }
+            });
+        }
+        
+        /**
+         * Enter every alternative of the first decision of every rule and return the labels of the alternatives.
+         *
+         * @return - Labels of the alternatives by rule index and number of the alternative.
+         */
+        Map<String, String> findLabels()
+        {
+            for (int rule = 0; rule < ruleNames.length; rule++)
+            {
+                ATNState state = _ATN.ruleToStartState[rule].transition(0).target;
+                
+                if (!(state instanceof DecisionState))
+                {
+                    continue;
+                }
+                
+                for (alt = 1; alt <= state.getNumberOfTransitions(); alt++)
+                {
+                    setTokenStream(new CommonTokenStream(new ListTokenSource(Collections.singletonList(new CommonToken(firstToken(state, alt))))));
+                    
+                    try
+                    {
+                        CopyexParser.class.getMethod(ruleNames[rule]).invoke(this);
+                    }
+                    catch (InvocationTargetException e)
+                    {
+                        if (!(e.getCause() instanceof EnteredException))
+                        {
+                            throw new IllegalStateException("Cannot enter rule " + ruleNames[rule], e.getCause());
+                        }
+                    }
+                    catch (ReflectiveOperationException e)
+                    {
+                        throw new IllegalStateException("Cannot enter rule " + ruleNames[rule], e);
+                    }
+                }
+            }
+            
+            return labels;
+        }
+        
+        /**
+         * Return a token which an alternative of a decision can start with.
+         *
+         * @param state - Decision state.
+         * @param alt   - Number of the alternative, starting from 1.
+         *
+         * @return - Type of the token, or the end of the input if the alternative can be empty.
+         */
+        private static int firstToken(ATNState state, int alt)
+        {
+            IntervalSet first = _ATN.nextTokens(state.transition(alt - 1).target);
+            
+            for (int type : first.toList())
+            {
+                if (type >= Token.MIN_USER_TOKEN_TYPE)
+                {
+                    return type;
+                }
+            }
+            
+            return Token.EOF;
+        }
+        
+        /**
+         * Record the label of an alternative and stop the rule before it parses the alternative. Only labelled
+         * alternatives have their own context class, the others use the class of the rule.
+         *
+         * @param localctx - Context of the alternative.
+         * @param altNum   - Number of the alternative, starting from 1.
+         *
+         * @throws EnteredException - Always, to stop the rule.
+         */
+        @Override
+        public void enterOuterAlt(ParserRuleContext localctx, int altNum)
+        {
+            Class<?> type = localctx.getClass();
+            
+            if (type.getSuperclass() != ParserRuleContext.class)
+            {
+                String name = type.getSimpleName().substring(0, type.getSimpleName().length() - "Context".length());
+                labels.put(localctx.getRuleIndex() + ":" + altNum, Character.toLowerCase(name.charAt(0)) + name.substring(1));
+            }
+            
+            throw new EnteredException();
+        }
+    }
+    
+    /**
+     * Exception which stops a rule once the label parser has entered an alternative.
+     */
+    private static class EnteredException extends RuntimeException
+    {
+        /**
+         * Create exception without a message or a stack trace.
+         */
+        EnteredException()
+        {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,675 @@
+package copyex;
+
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class DfaSnapshot
+{
+    private static final int MAGIC = 0x43504458;
+    private static final int VERSION = 1;
+    
+    private static final int NO_STATE = -1;
+    private static final int ERROR_STATE = -2;
+    
+    private static final int NONE = 0;
+    private static final int PRECEDENCE = 1;
+    private static final int PREDICATE = 2;
+    private static final int AND = 3;
+    private static final int OR = 4;
+    
+    private static final int EMPTY_CONTEXT = 0;
+    private static final int SINGLETON_CONTEXT = 1;
+    private static final int ARRAY_CONTEXT = 2;
+    
+    /**
+     * Write the prediction states which the Copyex parsers share.
+     * The states are written together with a hash of the grammar, so a snapshot is never restored into a parser
+     * generated from a different grammar.
+     *
+     * @param out - Stream to write the snapshot to.
+     *
+     * @throws IOException - If the snapshot cannot be written.
+     */
+    static void save(DataOutputStream out) throws IOException
+    {
+        DFA[] dfas = CopyexParser._decisionToDFA;
+        List<List<DFAState>> states = new ArrayList<>(dfas.length);
+        Map<PredictionContext, Integer> contexts = new IdentityHashMap<>();
+        List<PredictionContext> contextOrder = new ArrayList<>();
+        
+        for (DFA dfa : dfas)
+        {
+            List<DFAState> dfaStates;
+            
+            synchronized (dfa.states)
+            {
+                dfaStates = new ArrayList<>(dfa.states.values());
+            }
+            
+            for (DFAState state : dfaStates)
+            {
+                for (ATNConfig config : state.configs)
+                {
+                    collect(config.context, contexts, contextOrder);
+                }
+            }
+            
+            states.add(dfaStates);
+        }
+        
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(CopyexParser._serializedATN.hashCode());
+        out.writeInt(dfas.length);
+        
+        out.writeInt(contextOrder.size());
+        
+        for (PredictionContext context : contextOrder)
+        {
+            writeContext(out, context, contexts);
+        }
+        
+        for (int i = 0; i < dfas.length; i++)
+        {
+            writeDfa(out, dfas[i], states.get(i), contexts);
+        }
+        
+        out.flush();
+    }
+    
+    /**
+     * Replace the prediction states which the Copyex parsers share with the states of a snapshot.
+     * Nothing is replaced if the snapshot was saved from a different grammar.
+     *
+     * @param in - Buffer with the snapshot.
+     *
+     * @return - Whether or not the snapshot was restored.
+     *
+     * @throws IOException - If the snapshot is incomplete or damaged.
+     */
+    static boolean load(ByteBuffer in) throws IOException
+    {
+        try
+        {
+            return restore(in);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            throw new IOException("DFA snapshot is incomplete or damaged!", e);
+        }
+    }
+    
+    /**
+     * Read the states of every decision and only replace the states of the parsers once all of them are read.
+     *
+     * @param in - Buffer with the snapshot.
+     *
+     * @return - Whether or not the snapshot was restored.
+     *
+     * @throws IOException - If the snapshot has an unknown semantic context.
+     */
+    private static boolean restore(ByteBuffer in) throws IOException
+    {
+        DFA[] dfas = CopyexParser._decisionToDFA;
+        
+        if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getInt() != CopyexParser._serializedATN.hashCode() || in.getInt() != dfas.length)
+        {
+            return false;
+        }
+        
+        PredictionContext[] contexts = new PredictionContext[in.getInt()];
+        
+        for (int i = 0; i < contexts.length; i++)
+        {
+            contexts[i] = readContext(in, contexts);
+        }
+        
+        List<DFAState[]> states = new ArrayList<>(dfas.length);
+        List<DFAState> starts = new ArrayList<>(dfas.length);
+        
+        for (DFA dfa : dfas)
+        {
+            if (readBoolean(in) != dfa.isPrecedenceDfa())
+            {
+                return false;
+            }
+            
+            DFAState[] dfaStates = readStates(in, contexts);
+            states.add(dfaStates);
+            starts.add(readStart(in, dfa, dfaStates));
+        }
+        
+        for (int i = 0; i < dfas.length; i++)
+        {
+            DFA dfa = dfas[i];
+            
+            synchronized (dfa.states)
+            {
+                dfa.states.clear();
+                
+                for (DFAState state : states.get(i))
+                {
+                    dfa.states.put(state, state);
+                }
+                
+                dfa.s0 = starts.get(i);
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Add a prediction context and its parents to the contexts to be written, parents first.
+     *
+     * @param context  - Prediction context.
+     * @param contexts - Index of every context collected so far.
+     * @param order    - Contexts in the order they are written.
+     */
+    private static void collect(PredictionContext context, Map<PredictionContext, Integer> contexts, List<PredictionContext> order)
+    {
+        if (context == null || contexts.containsKey(context))
+        {
+            return;
+        }
+        
+        if (context != PredictionContext.EMPTY)
+        {
+            for (int i = 0; i < context.size(); i++)
+            {
+                collect(context.getParent(i), contexts, order);
+            }
+        }
+        
+        contexts.put(context, order.size());
+        order.add(context);
+    }
+    
+    /**
+     * Write a prediction context with the indexes of its parents.
+     *
+     * @param out      - Stream to write to.
+     * @param context  - Prediction context.
+     * @param contexts - Index of every context.
+     *
+     * @throws IOException - If the context cannot be written.
+     */
+    private static void writeContext(DataOutputStream out, PredictionContext context, Map<PredictionContext, Integer> contexts) throws IOException
+    {
+        if (context == PredictionContext.EMPTY)
+        {
+            out.writeByte(EMPTY_CONTEXT);
+            return;
+        }
+        
+        out.writeByte(context instanceof SingletonPredictionContext ? SINGLETON_CONTEXT : ARRAY_CONTEXT);
+        out.writeInt(context.size());
+        
+        for (int i = 0; i < context.size(); i++)
+        {
+            PredictionContext parent = context.getParent(i);
+            out.writeInt(parent == null ? NO_STATE : contexts.get(parent));
+            out.writeInt(context.getReturnState(i));
+        }
+    }
+    
+    /**
+     * Read a prediction context whose parents have already been read.
+     *
+     * @param in       - Buffer to read from.
+     * @param contexts - Contexts read so far.
+     *
+     * @return - Prediction context.
+     
+     */
+    private static PredictionContext readContext(ByteBuffer in, PredictionContext[] contexts)
+    {
+        int kind = in.get();
+        
+        if (kind == EMPTY_CONTEXT)
+        {
+            return PredictionContext.EMPTY;
+        }
+        
+        int size = in.getInt();
+        PredictionContext[] parents = new PredictionContext[size];
+        int[] returnStates = new int[size];
+        
+        for (int i = 0; i < size; i++)
+        {
+            int parent = in.getInt();
+            parents[i] = parent == NO_STATE ? null : contexts[parent];
+            returnStates[i] = in.getInt();
+        }
+        
+        if (kind == SINGLETON_CONTEXT)
+        {
+            return SingletonPredictionContext.create(parents[0], returnStates[0]);
+        }
+        
+        return new ArrayPredictionContext(parents, returnStates);
+    }
+    
+    /**
+     * Write the states of a decision, followed by their edges and the start state.
+     *
+     * @param out      - Stream to write to.
+     * @param dfa      - Prediction states of the decision.
+     * @param states   - States of the decision, in the order they are written.
+     * @param contexts - Index of every prediction context.
+     *
+     * @throws IOException - If the states cannot be written.
+     */
+    private static void writeDfa(DataOutputStream out, DFA dfa, List<DFAState> states, Map<PredictionContext, Integer> contexts) throws IOException
+    {
+        Map<DFAState, Integer> index = new IdentityHashMap<>();
+        
+        out.writeBoolean(dfa.isPrecedenceDfa());
+        out.writeInt(states.size());
+        
+        for (DFAState state : states)
+        {
+            index.put(state, index.size());
+            writeConfigs(out, state.configs, contexts);
+            
+            out.writeBoolean(state.isAcceptState);
+            out.writeInt(state.prediction);
+            out.writeBoolean(state.requiresFullContext);
+            
+            if (state.predicates == null)
+            {
+                out.writeInt(NO_STATE);
+            }
+            else
+            {
+                out.writeInt(state.predicates.length);
+                
+                for (DFAState.PredPrediction predicate : state.predicates)
+                {
+                    writeSemanticContext(out, predicate.pred);
+                    out.writeInt(predicate.alt);
+                }
+            }
+        }
+        
+        for (DFAState state : states)
+        {
+            writeEdges(out, state.edges, index);
+        }
+        
+        DFAState start = dfa.s0;
+        
+        if (dfa.isPrecedenceDfa())
+        {
+            writeEdges(out, start.edges, index);
+        }
+        else
+        {
+            out.writeInt(start == null ? NO_STATE : index.getOrDefault(start, NO_STATE));
+        }
+    }
+    
+    /**
+     * Read the states of a decision and their edges.
+     *
+     * @param in       - Buffer to read from.
+     * @param contexts - Prediction contexts of the snapshot.
+     *
+     * @return - States of the decision.
+     *
+     * @throws IOException - If the states cannot be read.
+     */
+    private static DFAState[] readStates(ByteBuffer in, PredictionContext[] contexts) throws IOException
+    {
+        DFAState[] states = new DFAState[in.getInt()];
+        
+        for (int i = 0; i < states.length; i++)
+        {
+            boolean fullContext = readBoolean(in);
+            SnapshotConfigSet configs = readConfigs(in, fullContext, contexts);
+            
+            DFAState state = new DFAState(configs);
+            state.stateNumber = i;
+            state.isAcceptState = readBoolean(in);
+            state.prediction = in.getInt();
+            state.requiresFullContext = readBoolean(in);
+            configs.finish(state.requiresFullContext);
+            
+            int predicates = in.getInt();
+            
+            if (predicates != NO_STATE)
+            {
+                state.predicates = new DFAState.PredPrediction[predicates];
+                
+                for (int j = 0; j < predicates; j++)
+                {
+                    SemanticContext predicate = readSemanticContext(in);
+                    state.predicates[j] = new DFAState.PredPrediction(predicate, in.getInt());
+                }
+            }
+            
+            states[i] = state;
+        }
+        
+        for (DFAState state : states)
+        {
+            state.edges = readEdges(in, states);
+        }
+        
+        return states;
+    }
+    
+    /**
+     * Read the start state of a decision. Precedence decisions have a start state for every precedence, which
+     * are stored as the edges of a placeholder state.
+     *
+     * @param in     - Buffer to read from.
+     * @param dfa    - Prediction states of the decision.
+     * @param states - States of the decision.
+     *
+     * @return - Start state of the decision, or null if it has none.
+     
+     */
+    private static DFAState readStart(ByteBuffer in, DFA dfa, DFAState[] states)
+    {
+        if (dfa.isPrecedenceDfa())
+        {
+            DFAState start = new DFAState(new ATNConfigSet());
+            start.edges = readEdges(in, states);
+            start.isAcceptState = false;
+            start.requiresFullContext = false;
+            
+            if (start.edges == null)
+            {
+                start.edges = new DFAState[0];
+            }
+            
+            return start;
+        }
+        
+        int start = in.getInt();
+        
+        return start == NO_STATE ? null : states[start];
+    }
+    
+    /**
+     * Write the configurations of a state.
+     *
+     * @param out      - Stream to write to.
+     * @param configs  - Configurations of the state.
+     * @param contexts - Index of every prediction context.
+     *
+     * @throws IOException - If the configurations cannot be written.
+     */
+    private static void writeConfigs(DataOutputStream out, ATNConfigSet configs, Map<PredictionContext, Integer> contexts) throws IOException
+    {
+        out.writeBoolean(configs.fullCtx);
+        out.writeInt(configs.uniqueAlt);
+        out.writeBoolean(configs.hasSemanticContext);
+        out.writeBoolean(configs.dipsIntoOuterContext);
+        out.writeInt(configs.size());
+        
+        for (ATNConfig config : configs)
+        {
+            out.writeInt(config.state.stateNumber);
+            out.writeInt(config.alt);
+            out.writeInt(contexts.get(config.context));
+            writeSemanticContext(out, config.semanticContext);
+            // Also holds the flag of configurations which are not filtered by precedence.
+            out.writeInt(config.reachesIntoOuterContext);
+        }
+    }
+    
+    /**
+     * Read the configurations of a state.
+     * The conflicting alternatives are not written, as they are not visible outside of the runtime. They are
+     * computed again once it is known whether or not the state requires full context.
+     *
+     * @param in          - Buffer to read from.
+     * @param fullContext - Whether or not the configurations were predicted with full context.
+     * @param contexts    - Prediction contexts of the snapshot.
+     *
+     * @return - Configurations of the state.
+     *
+     * @throws IOException - If the configurations cannot be read.
+     */
+    private static SnapshotConfigSet readConfigs(ByteBuffer in, boolean fullContext, PredictionContext[] contexts) throws IOException
+    {
+        SnapshotConfigSet configs = new SnapshotConfigSet(fullContext);
+        int uniqueAlt = in.getInt();
+        boolean hasSemanticContext = readBoolean(in);
+        boolean dipsIntoOuterContext = readBoolean(in);
+        int size = in.getInt();
+        
+        for (int i = 0; i < size; i++)
+        {
+            int state = in.getInt();
+            int alt = in.getInt();
+            PredictionContext context = contexts[in.getInt()];
+            SemanticContext semanticContext = readSemanticContext(in);
+            
+            ATNConfig config = new ATNConfig(CopyexParser._ATN.states.get(state), alt, context, semanticContext);
+            config.reachesIntoOuterContext = in.getInt();
+            // The configurations of a state are unique, so they are added without looking up duplicates.
+            configs.configs.add(config);
+        }
+        
+        configs.uniqueAlt = uniqueAlt;
+        configs.hasSemanticContext = hasSemanticContext;
+        configs.dipsIntoOuterContext = dipsIntoOuterContext;
+        
+        return configs;
+    }
+    
+    /**
+     * Write the edges of a state as indexes of their target states.
+     *
+     * @param out   - Stream to write to.
+     * @param edges - Edges of the state, or null.
+     * @param index - Index of every state of the decision.
+     *
+     * @throws IOException - If the edges cannot be written.
+     */
+    private static void writeEdges(DataOutputStream out, DFAState[] edges, Map<DFAState, Integer> index) throws IOException
+    {
+        if (edges == null)
+        {
+            out.writeInt(NO_STATE);
+            return;
+        }
+        
+        out.writeInt(edges.length);
+        
+        for (DFAState target : edges)
+        {
+            if (target == ATNSimulator.ERROR)
+            {
+                out.writeInt(ERROR_STATE);
+            }
+            else
+            {
+                // States added by another parser after the snapshot was started are left out.
+                out.writeInt(target == null ? NO_STATE : index.getOrDefault(target, NO_STATE));
+            }
+        }
+    }
+    
+    /**
+     * Read the edges of a state.
+     *
+     * @param in     - Buffer to read from.
+     * @param states - States of the decision.
+     *
+     * @return - Edges of the state, or null.
+     
+     */
+    private static DFAState[] readEdges(ByteBuffer in, DFAState[] states)
+    {
+        int length = in.getInt();
+        
+        if (length == NO_STATE)
+        {
+            return null;
+        }
+        
+        DFAState[] edges = new DFAState[length];
+        
+        for (int i = 0; i < length; i++)
+        {
+            int target = in.getInt();
+            
+            if (target == ERROR_STATE)
+            {
+                edges[i] = ATNSimulator.ERROR;
+            }
+            else if (target != NO_STATE)
+            {
+                edges[i] = states[target];
+            }
+        }
+        
+        return edges;
+    }
+    
+    /**
+     * Write a semantic context. The Copyex grammar only has precedence predicates, but every kind is written.
+     *
+     * @param out     - Stream to write to.
+     * @param context - Semantic context.
+     *
+     * @throws IOException - If the context cannot be written.
+     */
+    private static void writeSemanticContext(DataOutputStream out, SemanticContext context) throws IOException
+    {
+        if (context == SemanticContext.NONE)
+        {
+            out.writeByte(NONE);
+        }
+        else if (context instanceof SemanticContext.PrecedencePredicate)
+        {
+            out.writeByte(PRECEDENCE);
+            out.writeInt(((SemanticContext.PrecedencePredicate) context).precedence);
+        }
+        else if (context instanceof SemanticContext.Predicate)
+        {
+            SemanticContext.Predicate predicate = (SemanticContext.Predicate) context;
+            out.writeByte(PREDICATE);
+            out.writeInt(predicate.ruleIndex);
+            out.writeInt(predicate.predIndex);
+            out.writeBoolean(predicate.isCtxDependent);
+        }
+        else
+        {
+            SemanticContext[] operands = context instanceof SemanticContext.AND ? ((SemanticContext.AND) context).opnds : ((SemanticContext.OR) context).opnds;
+            out.writeByte(context instanceof SemanticContext.AND ? AND : OR);
+            out.writeInt(operands.length);
+            
+            for (SemanticContext operand : operands)
+            {
+                writeSemanticContext(out, operand);
+            }
+        }
+    }
+    
+    /**
+     * Read a semantic context.
+     *
+     * @param in - Buffer to read from.
+     *
+     * @return - Semantic context.
+     *
+     * @throws IOException - If the context cannot be read.
+     */
+    private static SemanticContext readSemanticContext(ByteBuffer in) throws IOException
+    {
+        int kind = in.get();
+        
+        switch (kind)
+        {
+            case NONE:
+                return SemanticContext.NONE;
+            case PRECEDENCE:
+                return new SemanticContext.PrecedencePredicate(in.getInt());
+            case PREDICATE:
+                return new SemanticContext.Predicate(in.getInt(), in.getInt(), readBoolean(in));
+            case AND:
+            case OR:
+                int size = in.getInt();
+                SemanticContext context = readSemanticContext(in);
+                
+                for (int i = 1; i < size; i++)
+                {
+                    SemanticContext operand = readSemanticContext(in);
+                    context = kind == AND ? SemanticContext.and(context, operand) : SemanticContext.or(context, operand);
+                }
+                
+                return context;
+            default:
+                throw new IOException("Unknown semantic context in DFA snapshot!");
+        }
+    }
+    
+    /**
+     * Read a boolean written by a data output stream.
+     *
+     * @param in - Buffer to read from.
+     *
+     * @return - Boolean value.
+     */
+    private static boolean readBoolean(ByteBuffer in)
+    {
+        return in.get() != 0;
+    }
+    
+    /**
+     * Configurations of a restored state.
+     */
+    private static class SnapshotConfigSet extends ATNConfigSet
+    {
+        /**
+         * Create an empty set of configurations.
+         *
+         * @param fullContext - Whether or not the configurations were predicted with full context.
+         */
+        SnapshotConfigSet(boolean fullContext)
+        {
+            super(fullContext);
+        }
+        
+        /**
+         * Compute the conflicting alternatives of a state which requires full context and make the set read only.
+         *
+         * @param requiresFullContext - Whether or not the state requires full context.
+         */
+        void finish(boolean requiresFullContext)
+        {
+            if (requiresFullContext)
+            {
+                conflictingAlts = PredictionMode.getAlts(PredictionMode.getConflictingAltSubsets(this));
+            }
+            
+            setReadonly(true);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package copyex;
+
+import AbstractTree.Node;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class DiagnosticVisitor extends CopyexVisitor
+{
+    /**
+     * Visit a parse tree which the parser recovered from syntax errors in, and create its node.
+     * Parts of the parse tree which are missing, or which cannot be visited because of a syntax error, have no
+     * node, so that the rest of the code can still be checked.
+     *
+     * @param tree - Parse tree, or null if it is missing.
+     *
+     * @return - Node of the parse tree, or null if it is missing or incomplete.
+     */
+    @Override
+    public Node visit(ParseTree tree)
+    {
+        if (tree == null)
+        {
+            return null;
+        }
+        
+        try
+        {
+            return super.visit(tree);
+        }
+        catch (RuntimeException e)
+        {
+            if (!hasSyntaxError(tree))
+            {
+                throw e;
+            }
+            
+            return null;
+        }
+    }
+    
+    /**
+     * Check if the parser recovered from a syntax error inside a context.
+     *
+     * @param tree - Context to check.
+     *
+     * @return - Whether or not the context has a syntax error.
+     */
+    private static boolean hasSyntaxError(ParseTree tree)
+    {
+        Deque<ParseTree> stack = new ArrayDeque<>();
+        stack.push(tree);
+        
+        while (!stack.isEmpty())
+        {
+            ParseTree next = stack.pop();
+            
+            if (next instanceof ErrorNode || (next instanceof ParserRuleContext && ((ParserRuleContext) next).exception != null))
+            {
+                return true;
+            }
+            
+            for (int i = 0; i < next.getChildCount(); i++)
+            {
+                stack.push(next.getChild(i));
+            }
+        }
+        
+        return false;
+    }
+}
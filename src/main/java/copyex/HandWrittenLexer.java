@@ -0,0 +1,270 @@
+package copyex;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class HandWrittenLexer
+{
+    private static final int MAX_KEYWORD_LENGTH = 8;
+    private static final String[] KEYWORDS = new String[16];
+    private static final int[] KEYWORD_TYPES = new int[16];
+    private static final int[] OPERATORS = new int[128];
+    
+    private final char[] word = new char[MAX_KEYWORD_LENGTH];
+    
+    static
+    {
+        addKeyword("print", CopyexLexer.PRINT);
+        addKeyword("if", CopyexLexer.IF);
+        addKeyword("else", CopyexLexer.ELSE);
+        addKeyword("and", CopyexLexer.AND);
+        addKeyword("or", CopyexLexer.OR);
+        addKeyword("not", CopyexLexer.NOT);
+        addKeyword("while", CopyexLexer.WHILE);
+        addKeyword("function", CopyexLexer.FUNC);
+        addKeyword("void", CopyexLexer.VOID);
+        addKeyword("return", CopyexLexer.RETURN);
+        addKeyword("num", CopyexLexer.NUM);
+        addKeyword("bool", CopyexLexer.BOOL);
+        
+        OPERATORS['='] = CopyexLexer.EQUALS;
+        OPERATORS['('] = CopyexLexer.LPAREN;
+        OPERATORS[')'] = CopyexLexer.RPAREN;
+        OPERATORS['{'] = CopyexLexer.LCPAREN;
+        OPERATORS['}'] = CopyexLexer.RCPAREN;
+        OPERATORS['+'] = CopyexLexer.PLUS;
+        OPERATORS['-'] = CopyexLexer.MINUS;
+        OPERATORS['*'] = CopyexLexer.MULT;
+        OPERATORS['/'] = CopyexLexer.DIV;
+        OPERATORS['%'] = CopyexLexer.MOD;
+        OPERATORS['>'] = CopyexLexer.GT;
+        OPERATORS['<'] = CopyexLexer.LT;
+        OPERATORS[','] = CopyexLexer.COMMA;
+        OPERATORS[';'] = CopyexLexer.TERM;
+    }
+    
+    /**
+     * Add a keyword to the keyword table.
+     *
+     * @param keyword - Text of the keyword.
+     * @param type    - Token type of the keyword.
+     */
+    private static void addKeyword(String keyword, int type)
+    {
+        int hash = hash(keyword.length(), keyword.charAt(0), keyword.charAt(keyword.length() - 1));
+        
+        if (KEYWORDS[hash] != null)
+        {
+            throw new IllegalStateException("Keywords '" + keyword + "' and '" + KEYWORDS[hash] + "' have the same hash!");
+        }
+        
+        KEYWORDS[hash] = keyword;
+        KEYWORD_TYPES[hash] = type;
+    }
+    
+    /**
+     * Perfect hash of the keywords, which gives every keyword its own slot in the keyword table.
+     *
+     * @param length - Length of the word.
+     * @param first  - First character of the word.
+     * @param last   - Last character of the word.
+     *
+     * @return - Slot in the keyword table.
+     */
+    private static int hash(int length, int first, int last)
+    {
+        return (length + first + 2 * last) & 15;
+    }
+    
+    /**
+     * Lex the characters into a token buffer with the same tokens as the CopyexLexer.
+     * Lexing stops at the first character which does not start a token, so that the error can be reported
+     * by the CopyexLexer.
+     *
+     * @param input  - Characters to be lexed.
+     * @param line   - Line at which the characters start.
+     * @param column - Position in line at which the characters start.
+     * @param buffer - Buffer for the tokens.
+     */
+    void lex(CharStream input, int line, int column, TokenBuffer buffer)
+    {
+        buffer.reset(input);
+        input.seek(0);
+        
+        while (true)
+        {
+            int start = input.index();
+            int character = input.LA(1);
+            
+            if (character == IntStream.EOF)
+            {
+                buffer.add(Token.EOF, start, start - 1, line, column);
+                buffer.finish();
+                return;
+            }
+            
+            if (character == ' ' || character == '\t' || character == '\r')
+            {
+                input.consume();
+                column++;
+            }
+            else if (character == '\n')
+            {
+                input.consume();
+                line++;
+                column = 0;
+            }
+            else if (character < OPERATORS.length && OPERATORS[character] != 0)
+            {
+                input.consume();
+                buffer.add(OPERATORS[character], start, start, line, column);
+                column++;
+            }
+            else if (isDigit(character))
+            {
+                consumeDigits(input);
+                
+                if (input.LA(1) == '.' && isDigit(input.LA(2)))
+                {
+                    input.consume();
+                    consumeDigits(input);
+                }
+                
+                buffer.add(CopyexLexer.NUMBER, start, input.index() - 1, line, column);
+                column += input.index() - start;
+            }
+            else if (isLetter(character))
+            {
+                int length = 0;
+                
+                do
+                {
+                    if (length < MAX_KEYWORD_LENGTH)
+                    {
+                        word[length] = (char) character;
+                    }
+                    
+                    length++;
+                    input.consume();
+                    character = input.LA(1);
+                }
+                while (isLetter(character) || isDigit(character));
+                
+                buffer.add(keyword(length), start, input.index() - 1, line, column);
+                column += length;
+            }
+            else if (character == '#')
+            {
+                int commentLine = line;
+                int commentColumn = column;
+                
+                input.consume();
+                column++;
+                
+                do
+                {
+                    character = input.LA(1);
+                    
+                    if (character == IntStream.EOF)
+                    {
+                        buffer.stop(start, commentLine, commentColumn);
+                        return;
+                    }
+                    
+                    input.consume();
+                    
+                    if (character == '\n')
+                    {
+                        line++;
+                        column = 0;
+                    }
+                    else
+                    {
+                        column++;
+                    }
+                }
+                while (character != '#');
+            }
+            else
+            {
+                buffer.stop(start, line, column);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Find the token type of the word which was just read.
+     *
+     * @param length - Length of the word.
+     *
+     * @return - Type of the keyword or ID.
+     */
+    private int keyword(int length)
+    {
+        if (length > MAX_KEYWORD_LENGTH)
+        {
+            return CopyexLexer.ID;
+        }
+        
+        int hash = hash(length, word[0], word[length - 1]);
+        String keyword = KEYWORDS[hash];
+        
+        if (keyword == null || keyword.length() != length)
+        {
+            return CopyexLexer.ID;
+        }
+        
+        for (int i = 0; i < length; i++)
+        {
+            if (keyword.charAt(i) != word[i])
+            {
+                return CopyexLexer.ID;
+            }
+        }
+        
+        return KEYWORD_TYPES[hash];
+    }
+    
+    /**
+     * Consume a sequence of digits.
+     *
+     * @param input - Characters being lexed.
+     */
+    private static void consumeDigits(CharStream input)
+    {
+        while (isDigit(input.LA(1)))
+        {
+            input.consume();
+        }
+    }
+    
+    /**
+     * Check if a character is a digit.
+     *
+     * @param character - Character to check.
+     *
+     * @return - Whether or not the character is a digit.
+     */
+    private static boolean isDigit(int character)
+    {
+        return character >= '0' && character <= '9';
+    }
+    
+    /**
+     * Check if a character is a letter.
+     *
+     * @param character - Character to check.
+     *
+     * @return - Whether or not the character is a letter.
+     */
+    private static boolean isLetter(int character)
+    {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+}
@@ -0,0 +1,800 @@
+package copyex;
+
+import AbstractTree.BinaryNode;
+import AbstractTree.MultiNode;
+import AbstractTree.Node;
+import AbstractTree.NodeType;
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class HandWrittenParser
+{
+    private static final SyntaxError SYNTAX_ERROR = new SyntaxError();
+    
+    private final TokenBuffer tokens;
+    private final CompileBudget budget;
+    private int index = 0;
+    private int steps = 0;
+    
+    /**
+     * Signals that the tokens do not match the grammar.
+     * The error is reported by parsing the code again with the ANTLR parser.
+     */
+    static class SyntaxError extends RuntimeException
+    {
+        /**
+         * Create syntax error without a stack trace, as it is only used to stop parsing.
+         */
+        private SyntaxError()
+        {
+            super("Syntax error!", null, false, false);
+        }
+    }
+    
+    /**
+     * Create parser for a complete token buffer, which checks the budget of the compilation as it consumes tokens.
+     *
+     * @param tokens - Tokens of the code, ending with EOF.
+     * @param budget - Budget of the compilation, or null.
+     */
+    HandWrittenParser(TokenBuffer tokens, CompileBudget budget)
+    {
+        this.tokens = tokens;
+        this.budget = budget;
+    }
+    
+    /**
+     * Parse the tokens and create the same nodes as the CopyexVisitor.
+     *
+     * @return - File node.
+     *
+     * @throws SyntaxError - If the tokens do not match the grammar.
+     */
+    Node parseFile()
+    {
+        if (budget != null)
+        {
+            budget.resetNodes(0);
+        }
+        
+        MultiNode node = multiNode("file", NodeType.FILE);
+        
+        while (type(1) != Token.EOF)
+        {
+            node.addNode(type(1) == CopyexLexer.FUNC ? function() : codeBlock("block", NodeType.BLOCK));
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Parse function and create node.
+     *
+     * @return - Function node.
+     */
+    private Node function()
+    {
+        match(CopyexLexer.FUNC);
+        int type = next();
+        
+        if (tokens.getType(type) != CopyexLexer.VOID && tokens.getType(type) != CopyexLexer.NUM && tokens.getType(type) != CopyexLexer.BOOL)
+        {
+            throw SYNTAX_ERROR;
+        }
+        
+        int name = match(CopyexLexer.ID);
+        
+        BinaryNode<String> node = binaryNode("function", NodeType.FUNCTION);
+        MultiNode<String> signature = multiNode("signature", NodeType.SIGNATURE);
+        
+        BinaryNode<String> funcName = binaryNode(text(type), NodeType.NAME);
+        funcName.setLeft(leaf(name));
+        signature.addNode(funcName);
+        
+        match(CopyexLexer.LPAREN);
+        
+        if (type(1) != CopyexLexer.RPAREN)
+        {
+            do
+            {
+                int argType = next();
+                
+                if (tokens.getType(argType) != CopyexLexer.NUM && tokens.getType(argType) != CopyexLexer.BOOL)
+                {
+                    throw SYNTAX_ERROR;
+                }
+                
+                int argName = match(CopyexLexer.ID);
+                
+                BinaryNode<String> arg = binaryNode(text(argType), NodeType.ARG);
+                arg.setLeft(leaf(argName));
+                signature.addNode(arg);
+            }
+            while (accept(CopyexLexer.COMMA));
+        }
+        
+        match(CopyexLexer.RPAREN);
+        match(CopyexLexer.LCPAREN);
+        
+        MultiNode<String> body = codeBlock("body", NodeType.BODY);
+        
+        if (tokens.getType(type) != CopyexLexer.VOID)
+        {
+            match(CopyexLexer.RETURN);
+            
+            BinaryNode<String> returnNode = binaryNode("return", NodeType.RETURN);
+            returnNode.setLeft(tokens.getType(type) == CopyexLexer.NUM ? arithmetic(0) : logical(0));
+            body.addNode(returnNode);
+            
+            match(CopyexLexer.TERM);
+        }
+        
+        match(CopyexLexer.RCPAREN);
+        
+        node.setLeft(signature);
+        node.setRight(body);
+        
+        return node;
+    }
+    
+    /**
+     * Parse one or more blocks and add them to a new node.
+     *
+     * @param name - Name of the node.
+     * @param type - Type of the node.
+     *
+     * @return - Node with the blocks.
+     */
+    private MultiNode<String> codeBlock(String name, NodeType type)
+    {
+        MultiNode<String> node = multiNode(name, type);
+        
+        do
+        {
+            node.addNode(block());
+        }
+        while (startsBlock(type(1)));
+        
+        return node;
+    }
+    
+    /**
+     * Parse block and create node.
+     *
+     * @return - Conditional, loop or lines node.
+     */
+    private Node block()
+    {
+        if (type(1) == CopyexLexer.IF)
+        {
+            return conditional();
+        }
+        
+        if (type(1) == CopyexLexer.WHILE)
+        {
+            return loop();
+        }
+        
+        MultiNode node = multiNode("lines", NodeType.LINES);
+        
+        do
+        {
+            node.addNode(line());
+        }
+        while (startsLine(type(1)));
+        
+        return node;
+    }
+    
+    /**
+     * Parse conditional and create node.
+     *
+     * @return - Conditional node.
+     */
+    private Node conditional()
+    {
+        MultiNode<String> node = multiNode("conditional", NodeType.CONDITION);
+        
+        match(CopyexLexer.IF);
+        node.addNode(condition());
+        
+        match(CopyexLexer.LCPAREN);
+        node.addNode(codeBlock("if", NodeType.IF));
+        match(CopyexLexer.RCPAREN);
+        
+        if (type(1) == CopyexLexer.ELSE)
+        {
+            int otherwise = next();
+            match(CopyexLexer.LCPAREN);
+            node.addNode(codeBlock(text(otherwise), NodeType.ELSE));
+            match(CopyexLexer.RCPAREN);
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Parse loop and create node.
+     *
+     * @return - Loop node.
+     */
+    private Node loop()
+    {
+        BinaryNode<String> node = binaryNode("loop", NodeType.LOOP);
+        
+        match(CopyexLexer.WHILE);
+        node.setLeft(condition());
+        
+        match(CopyexLexer.LCPAREN);
+        node.setRight(codeBlock("body", NodeType.BODY));
+        match(CopyexLexer.RCPAREN);
+        
+        return node;
+    }
+    
+    /**
+     * Parse the condition of a conditional or loop in parentheses.
+     *
+     * @return - Condition node.
+     */
+    private Node condition()
+    {
+        match(CopyexLexer.LPAREN);
+        Node node = logical(0);
+        match(CopyexLexer.RPAREN);
+        
+        return node;
+    }
+    
+    /**
+     * Parse line and create node.
+     *
+     * @return - Statement node.
+     */
+    private Node line()
+    {
+        Node node = statement();
+        match(CopyexLexer.TERM);
+        
+        return node;
+    }
+    
+    /**
+     * Parse statement and create node.
+     *
+     * @return - Statement node.
+     */
+    private Node statement()
+    {
+        switch (type(1))
+        {
+            case CopyexLexer.NUM:
+            case CopyexLexer.BOOL:
+                return initialisation();
+            case CopyexLexer.PRINT:
+                return evaluation();
+            case CopyexLexer.ID:
+                if (type(2) == CopyexLexer.EQUALS && type(3) != CopyexLexer.EQUALS)
+                {
+                    return assignment();
+                }
+                
+                if (isOperator(type(2)) && type(3) == CopyexLexer.EQUALS)
+                {
+                    return augmented();
+                }
+                
+                if (type(2) == CopyexLexer.LPAREN)
+                {
+                    return functionCall();
+                }
+                
+                break;
+            default:
+                break;
+        }
+        
+        return logical(0);
+    }
+    
+    /**
+     * Parse initialisation or declaration and create node.
+     *
+     * @return - Initialisation or declaration node.
+     */
+    private Node initialisation()
+    {
+        int def = next();
+        int name = match(CopyexLexer.ID);
+        
+        BinaryNode<String> declaration = binaryNode(text(def), NodeType.DECLARATION);
+        declaration.setPosition(tokens.getLine(def), tokens.getColumn(def));
+        declaration.setLeft(leaf(name));
+        
+        if (type(1) != CopyexLexer.EQUALS)
+        {
+            return declaration;
+        }
+        
+        int assign = next();
+        
+        BinaryNode node = binaryNode(text(assign), NodeType.ASSIGNMENT);
+        node.setLeft(declaration);
+        node.setRight(tokens.getType(def) == CopyexLexer.NUM ? arithmetic(0) : logical(0));
+        
+        return node;
+    }
+    
+    /**
+     * Parse assignment and create node.
+     *
+     * @return - Assignment node.
+     */
+    private Node assignment()
+    {
+        int name = next();
+        int assign = next();
+        
+        BinaryNode node = binaryNode(text(assign), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(name));
+        
+        if (type(1) == CopyexLexer.ID && type(2) == CopyexLexer.LPAREN)
+        {
+            node.setRight(call(next()));
+        }
+        else
+        {
+            node.setRight(logical(0));
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Parse augmented assignment and create node.
+     *
+     * @return - Augmented assignment node.
+     */
+    private Node augmented()
+    {
+        int name = next();
+        int operator = next();
+        int assign = next();
+        
+        BinaryNode node = binaryNode(text(operator) + text(assign), NodeType.ASSIGNMENT);
+        node.setLeft(leaf(name));
+        node.setRight(arithmetic(0));
+        
+        return node;
+    }
+    
+    /**
+     * Parse evaluation and create node.
+     *
+     * @return - Evaluation node.
+     */
+    private Node evaluation()
+    {
+        int op = next();
+        
+        BinaryNode node = binaryNode(text(op), NodeType.PRINT);
+        match(CopyexLexer.LPAREN);
+        node.setLeft(arithmetic(0));
+        match(CopyexLexer.RPAREN);
+        
+        return node;
+    }
+    
+    /**
+     * Parse function call and create node.
+     *
+     * @return - Function call node.
+     */
+    private Node functionCall()
+    {
+        return call(next());
+    }
+    
+    /**
+     * Parse the parameters of a function call in parentheses and create call node.
+     *
+     * @param value - Index of the function name token.
+     *
+     * @return - Function call node.
+     */
+    private Node call(int value)
+    {
+        MultiNode<String> node = multiNode(text(value), NodeType.CALL);
+        node.setPosition(tokens.getLine(value), tokens.getColumn(value));
+        match(CopyexLexer.LPAREN);
+        
+        if (type(1) != CopyexLexer.RPAREN)
+        {
+            do
+            {
+                node.addNode(logical(0));
+            }
+            while (accept(CopyexLexer.COMMA));
+        }
+        
+        match(CopyexLexer.RPAREN);
+        
+        return node;
+    }
+    
+    /**
+     * Parse logical expression using precedence climbing and create node.
+     *
+     * @param precedence - Lowest precedence of operators which can be parsed.
+     *
+     * @return - Logical expression node.
+     */
+    private Node logical(int precedence)
+    {
+        Node node;
+        
+        if (type(1) == CopyexLexer.NOT)
+        {
+            BinaryNode not = binaryNode(text(next()), NodeType.NOT);
+            not.setLeft(logical(4));
+            node = not;
+        }
+        else
+        {
+            node = arithmetic(0);
+            
+            if (isComparison(type(1)))
+            {
+                BinaryNode comparison = binaryNode(comparisonOperator(), NodeType.INFIXOP);
+                comparison.setLeft(node);
+                comparison.setRight(arithmetic(0));
+                node = comparison;
+            }
+        }
+        
+        while (true)
+        {
+            int next;
+            
+            if (type(1) == CopyexLexer.AND && precedence <= 3)
+            {
+                next = 4;
+            }
+            else if (type(1) == CopyexLexer.OR && precedence <= 2)
+            {
+                next = 3;
+            }
+            else
+            {
+                return node;
+            }
+            
+            BinaryNode binary = binaryNode(text(next()), NodeType.INFIXOP);
+            binary.setLeft(node);
+            binary.setRight(logical(next));
+            node = binary;
+        }
+    }
+    
+    /**
+     * Parse comparison operator.
+     *
+     * @return - Text of the operator.
+     */
+    private String comparisonOperator()
+    {
+        int operator = next();
+        
+        if (tokens.getType(operator) == CopyexLexer.EQUALS)
+        {
+            return text(operator) + text(match(CopyexLexer.EQUALS));
+        }
+        
+        if (type(1) == CopyexLexer.EQUALS)
+        {
+            return text(operator) + text(next());
+        }
+        
+        return text(operator);
+    }
+    
+    /**
+     * Parse arithmetic expression using precedence climbing and create node.
+     *
+     * @param precedence - Lowest precedence of operators which can be parsed.
+     *
+     * @return - Arithmetic expression node.
+     */
+    private Node arithmetic(int precedence)
+    {
+        Node node = operand();
+        
+        while (true)
+        {
+            int type = type(1);
+            int next;
+            
+            if ((type == CopyexLexer.DIV || type == CopyexLexer.MULT || type == CopyexLexer.MOD) && precedence <= 6)
+            {
+                next = 7;
+            }
+            else if ((type == CopyexLexer.PLUS || type == CopyexLexer.MINUS) && precedence <= 5)
+            {
+                next = 6;
+            }
+            else
+            {
+                return node;
+            }
+            
+            BinaryNode binary = binaryNode(text(next()), NodeType.INFIXOP);
+            binary.setLeft(node);
+            binary.setRight(arithmetic(next));
+            node = binary;
+        }
+    }
+    
+    /**
+     * Parse operand of an arithmetic expression and create node.
+     *
+     * @return - Operand node.
+     */
+    private Node operand()
+    {
+        switch (type(1))
+        {
+            case CopyexLexer.MINUS:
+                return negation();
+            case CopyexLexer.LPAREN:
+                return grouping();
+            case CopyexLexer.ID:
+            case CopyexLexer.NUMBER:
+                return leaf(next());
+            default:
+                throw SYNTAX_ERROR;
+        }
+    }
+    
+    /**
+     * Parse negation and create node.
+     *
+     * @return - Negation node.
+     */
+    private Node negation()
+    {
+        BinaryNode node = binaryNode(text(match(CopyexLexer.MINUS)), NodeType.NEGATION);
+        
+        switch (type(1))
+        {
+            case CopyexLexer.LPAREN:
+                node.setLeft(grouping());
+                break;
+            case CopyexLexer.ID:
+            case CopyexLexer.NUMBER:
+                node.setLeft(leaf(next()));
+                break;
+            case CopyexLexer.MINUS:
+                node.setLeft(negation());
+                break;
+            default:
+                throw SYNTAX_ERROR;
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Parse arithmetic expression in parentheses.
+     *
+     * @return - Arithmetic expression node.
+     */
+    private Node grouping()
+    {
+        match(CopyexLexer.LPAREN);
+        Node node = arithmetic(0);
+        match(CopyexLexer.RPAREN);
+        
+        return node;
+    }
+    
+    /**
+     * Look at the type of a token relative to the current position.
+     *
+     * @param offset - Offset from the current position, starting from 1.
+     *
+     * @return - Type of the token.
+     */
+    private int type(int offset)
+    {
+        return tokens.getType(Math.min(index + offset - 1, tokens.size() - 1));
+    }
+    
+    /**
+     * Consume the current token.
+     *
+     * @return - Index of the consumed token.
+     */
+    private int next()
+    {
+        if (tokens.getType(index) == Token.EOF)
+        {
+            throw SYNTAX_ERROR;
+        }
+        
+        if (budget != null && (++steps & (CompileBudget.CHECK_INTERVAL - 1)) == 0)
+        {
+            budget.check();
+        }
+        
+        return index++;
+    }
+    
+    /**
+     * Consume the current token if it is of the expected type.
+     *
+     * @param type - Expected type.
+     *
+     * @return - Index of the consumed token.
+     *
+     * @throws SyntaxError - If the token is of a different type.
+     */
+    private int match(int type)
+    {
+        if (type(1) != type)
+        {
+            throw SYNTAX_ERROR;
+        }
+        
+        return next();
+    }
+    
+    /**
+     * Consume the current token if it is of a type.
+     *
+     * @param type - Type to accept.
+     *
+     * @return - Whether or not the token was consumed.
+     */
+    private boolean accept(int type)
+    {
+        if (type(1) != type)
+        {
+            return false;
+        }
+        
+        index++;
+        return true;
+    }
+    
+    /**
+     * Check if a token can start a block.
+     *
+     * @param type - Type of the token.
+     *
+     * @return - Whether or not the token can start a block.
+     */
+    private static boolean startsBlock(int type)
+    {
+        return type == CopyexLexer.IF || type == CopyexLexer.WHILE || startsLine(type);
+    }
+    
+    /**
+     * Check if a token can start a line.
+     *
+     * @param type - Type of the token.
+     *
+     * @return - Whether or not the token can start a line.
+     */
+    private static boolean startsLine(int type)
+    {
+        switch (type)
+        {
+            case CopyexLexer.PRINT:
+            case CopyexLexer.LPAREN:
+            case CopyexLexer.MINUS:
+            case CopyexLexer.NOT:
+            case CopyexLexer.NUMBER:
+            case CopyexLexer.NUM:
+            case CopyexLexer.BOOL:
+            case CopyexLexer.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Check if a token is an operator of an augmented assignment.
+     *
+     * @param type - Type of the token.
+     *
+     * @return - Whether or not the token is an operator.
+     */
+    private static boolean isOperator(int type)
+    {
+        return type == CopyexLexer.PLUS || type == CopyexLexer.MINUS || type == CopyexLexer.MULT || type == CopyexLexer.DIV || type == CopyexLexer.MOD;
+    }
+    
+    /**
+     * Check if a token starts a comparison operator.
+     *
+     * @param type - Type of the token.
+     *
+     * @return - Whether or not the token starts a comparison operator.
+     */
+    private static boolean isComparison(int type)
+    {
+        return type == CopyexLexer.GT || type == CopyexLexer.LT || type == CopyexLexer.EQUALS;
+    }
+    
+    /**
+     * Return the text of a token.
+     *
+     * @param token - Index of the token.
+     *
+     * @return - Text of the token.
+     */
+    private String text(int token)
+    {
+        return tokens.getText(token);
+    }
+    
+    /**
+     * Create leaf node of a token, at the position of the token.
+     *
+     * @param token - Index of the variable, number or name token.
+     *
+     * @return - Leaf node.
+     */
+    private Node leaf(int token)
+    {
+        BinaryNode<String> node = binaryNode(text(token), NodeType.LEAF);
+        node.setPosition(tokens.getLine(token), tokens.getColumn(token));
+        
+        return node;
+    }
+    
+    /**
+     * Create binary node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Binary node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private BinaryNode<String> binaryNode(String value, NodeType type)
+    {
+        if (budget != null)
+        {
+            budget.addNode();
+        }
+        
+        return new BinaryNode<>(value, type);
+    }
+    
+    /**
+     * Create multi node and count it in the budget of the compilation.
+     *
+     * @param value - Value of the node.
+     * @param type  - Type of the node.
+     *
+     * @return - Multi node.
+     *
+     * @throws compiler.CompileAbortedException - If the tree has more nodes than the budget allows.
+     */
+    private MultiNode<String> multiNode(String value, NodeType type)
+    {
+        if (budget != null)
+        {
+            budget.addNode();
+        }
+        
+        return new MultiNode<>(value, type);
+    }
+}
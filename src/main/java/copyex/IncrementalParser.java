@@ -0,0 +1,444 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+import AbstractTree.MultiNode;
+import AbstractTree.Node;
+import AbstractTree.NodeType;
+import compiler.CompileAbortedException;
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class IncrementalParser
+{
+    private final Copyex copyex;
+    private String code;
+    private List<Segment> segments;
+    private Map<String, String> functions;
+    private MultiNode root;
+    private AbstractSyntaxTree abstractTree;
+    private CompileBudget budget;
+    
+    /**
+     * A top-level block of the code together with the whitespace and comments that follow it.
+     */
+    private static class Segment
+    {
+        private int start;
+        private int end;
+        private int line;
+        private int column;
+        private CopyexParser.FileBlockContext context;
+        private Node node;
+        private ScopeTable scopes;
+        private int nodes;
+        
+        /**
+         * Create a segment.
+         *
+         * @param start   - Offset of the first character of the segment.
+         * @param end     - Offset after the last character of the segment.
+         * @param line    - Line of the first character of the segment.
+         * @param column  - Position in line of the first character of the segment.
+         * @param context - Parsed block.
+         */
+        private Segment(int start, int end, int line, int column, CopyexParser.FileBlockContext context)
+        {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.column = column;
+            this.context = context;
+        }
+        
+        /**
+         * Check if the segment holds a code block.
+         *
+         * @return - Whether or not the block is a code block.
+         */
+        private boolean isCodeBlock()
+        {
+            return context.codeBlock() != null;
+        }
+    }
+    
+    /**
+     * Create incremental parser which uses the lexer and parser settings of a Copyex instance.
+     *
+     * @param copyex - Copyex instance used for parsing.
+     */
+    IncrementalParser(Copyex copyex)
+    {
+        this.copyex = copyex;
+    }
+    
+    /**
+     * Parse the code, reusing the blocks which were not touched since the last parse.
+     *
+     * The blocks which are checked and visited again check the budget of the compilation.
+     *
+     * @param code   - Code to be parsed.
+     * @param budget - Budget of the compilation, or null.
+     *
+     * @return - Abstract Syntax Tree representing the parsed code.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    AbstractSyntaxTree parse(String code, CompileBudget budget)
+    {
+        this.budget = budget;
+        
+        if (this.code != null && this.code.equals(code))
+        {
+            return abstractTree;
+        }
+        
+        try
+        {
+            if (this.code == null || segments.isEmpty() || !reparse(code))
+            {
+                parseAll(code);
+            }
+            
+            this.code = code;
+            return abstractTree;
+        }
+        catch (RuntimeException e)
+        {
+            this.code = null;
+            throw e;
+        }
+    }
+    
+    /**
+     * Parse, visit and check the whole code.
+     *
+     * @param code - Code to be parsed.
+     */
+    private void parseAll(String code)
+    {
+        CopyexParser.FileContext file = copyex.parseFile(CharStreams.fromString(code), 1, 0);
+        
+        segments = createSegments(file, 0, code.length());
+        
+        if (budget != null)
+        {
+            // The file node.
+            budget.resetNodes(1);
+        }
+        
+        visitSegments(new CopyexVisitor(budget), segments);
+        functions = SemanticAnalyzer.findFunctions(nodes(segments));
+        
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.setBudget(budget);
+        analyzer.declareFunctions(functions);
+        checkSegments(analyzer, segments);
+        
+        root = new MultiNode("file", NodeType.FILE);
+        root.getNodes().addAll(nodes(segments));
+        abstractTree = new AbstractSyntaxTree(root);
+    }
+    
+    /**
+     * Parse, visit and check only the blocks touched by the difference between the old and the new code.
+     *
+     * @param code - New code.
+     *
+     * @return - Whether or not the blocks could be parsed on their own.
+     */
+    private boolean reparse(String code)
+    {
+        int oldLength = this.code.length();
+        int newLength = code.length();
+        int limit = Math.min(oldLength, newLength);
+        
+        int prefix = 0;
+        while (prefix < limit && this.code.charAt(prefix) == code.charAt(prefix))
+        {
+            prefix++;
+        }
+        
+        int suffix = 0;
+        while (suffix < limit - prefix && this.code.charAt(oldLength - suffix - 1) == code.charAt(newLength - suffix - 1))
+        {
+            suffix++;
+        }
+        
+        // Include one untouched neighbour on each side, so that the edit can never be at the border of the region.
+        int first = Math.max(0, findSegment(prefix) - 1);
+        int last = Math.min(segments.size() - 1, findSegment(Math.max(prefix, oldLength - suffix - 1)) + 1);
+        int delta = newLength - oldLength;
+        
+        Segment firstSegment = segments.get(first);
+        int regionStart = firstSegment.start;
+        int regionEnd = segments.get(last).end + delta;
+        
+        List<Segment> region;
+        
+        try
+        {
+            String text = code.substring(regionStart, regionEnd);
+            CopyexParser.FileContext file = copyex.parseFile(CharStreams.fromString(text), firstSegment.line, firstSegment.column);
+            region = createSegments(file, regionStart, regionEnd);
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            // Report errors with the messages and locations of a full parse.
+            return false;
+        }
+        
+        if (region.isEmpty())
+        {
+            return false;
+        }
+        
+        // Adjacent code blocks would be merged into one block by a full parse.
+        if (first > 0 && segments.get(first - 1).isCodeBlock() && region.get(0).isCodeBlock())
+        {
+            return false;
+        }
+        
+        if (last + 1 < segments.size() && segments.get(last + 1).isCodeBlock() && region.get(region.size() - 1).isCodeBlock())
+        {
+            return false;
+        }
+        
+        if (budget != null)
+        {
+            // The file node and the nodes of the blocks which are kept.
+            int kept = 1;
+            
+            for (int i = 0; i < segments.size(); i++)
+            {
+                kept += i < first || i > last ? segments.get(i).nodes : 0;
+            }
+            
+            budget.resetNodes(kept);
+        }
+        
+        visitSegments(new CopyexVisitor(budget), region);
+        
+        // The functions are declared before any block is checked, so every block is checked again if they changed.
+        List<Node> blocks = new ArrayList<>(nodes(segments.subList(0, first)));
+        blocks.addAll(nodes(region));
+        blocks.addAll(nodes(segments.subList(last + 1, segments.size())));
+        
+        if (!SemanticAnalyzer.findFunctions(blocks).equals(functions))
+        {
+            return false;
+        }
+        
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(firstSegment.scopes.copy());
+        analyzer.setBudget(budget);
+        
+        try
+        {
+            checkSegments(analyzer, region);
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            return false;
+        }
+        
+        int lines = countLines(code, regionStart, regionEnd) - countLines(this.code, regionStart, regionEnd - delta);
+        
+        for (int i = last + 1; i < segments.size(); i++)
+        {
+            Segment segment = segments.get(i);
+            segment.start += delta;
+            segment.end += delta;
+            segment.line += lines;
+            segment.column = segment.start - (code.lastIndexOf('\n', segment.start - 1) + 1);
+        }
+        
+        // Blocks after the region only have to be checked again if the region changed the scopes they start with.
+        int next = last + 1;
+        
+        try
+        {
+            while (next < segments.size() && !segments.get(next).scopes.equals(analyzer.getScopes()))
+            {
+                checkSegments(analyzer, segments.subList(next, next + 1));
+                next++;
+            }
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            return false;
+        }
+        
+        root.getNodes().subList(first, last + 1).clear();
+        root.getNodes().addAll(first, nodes(region));
+        segments.subList(first, last + 1).clear();
+        segments.addAll(first, region);
+        
+        return true;
+    }
+    
+    /**
+     * Visit the blocks of segments and remember the node and the number of nodes each block creates.
+     *
+     * @param visitor  - Visitor creating the nodes.
+     * @param segments - Segments to visit.
+     */
+    private void visitSegments(CopyexVisitor visitor, List<Segment> segments)
+    {
+        for (Segment segment : segments)
+        {
+            int before = budget == null ? 0 : budget.getNodes();
+            
+            segment.node = visitor.visit(segment.context);
+            
+            segment.nodes = budget == null ? 0 : budget.getNodes() - before;
+        }
+    }
+    
+    /**
+     * Check the nodes of segments and remember the scopes each block starts with.
+     *
+     * @param analyzer - Analyzer holding the scopes before the first segment.
+     * @param segments - Segments to check.
+     */
+    private static void checkSegments(SemanticAnalyzer analyzer, List<Segment> segments)
+    {
+        for (Segment segment : segments)
+        {
+            segment.scopes = analyzer.getScopes().copy();
+            analyzer.visit(segment.node);
+        }
+    }
+    
+    /**
+     * Return the nodes of segments.
+     *
+     * @param segments - Visited segments.
+     *
+     * @return - Block node of every segment.
+     */
+    private static List<Node> nodes(List<Segment> segments)
+    {
+        List<Node> nodes = new ArrayList<>();
+        
+        for (Segment segment : segments)
+        {
+            nodes.add(segment.node);
+        }
+        
+        return nodes;
+    }
+    
+    /**
+     * Split parsed code into segments, one for each top-level block.
+     *
+     * @param file  - Parsed code.
+     * @param start - Offset of the parsed code.
+     * @param end   - Offset after the end of the parsed code.
+     *
+     * @return - List of segments.
+     */
+    private static List<Segment> createSegments(CopyexParser.FileContext file, int start, int end)
+    {
+        List<Segment> segments = new ArrayList<>();
+        List<CopyexParser.FileBlockContext> blocks = file.fileBlock();
+        
+        for (int i = 0; i < blocks.size(); i++)
+        {
+            CopyexParser.FileBlockContext block = blocks.get(i);
+            int segmentStart = start;
+            int line = block.start.getLine();
+            int column = block.start.getCharPositionInLine();
+            
+            if (i == 0)
+            {
+                line = start == 0 ? 1 : line;
+                column = start == 0 ? 0 : column;
+            }
+            else
+            {
+                segmentStart = start + block.start.getStartIndex();
+            }
+            
+            if (i > 0)
+            {
+                segments.get(i - 1).end = segmentStart;
+            }
+            
+            segments.add(new Segment(segmentStart, end, line, column, block));
+        }
+        
+        return segments;
+    }
+    
+    /**
+     * Find the index of the segment holding a character.
+     *
+     * @param offset - Offset of the character.
+     *
+     * @return - Index of the segment.
+     */
+    private int findSegment(int offset)
+    {
+        int low = 0;
+        int high = segments.size() - 1;
+        
+        while (low < high)
+        {
+            int middle = (low + high + 1) / 2;
+            
+            if (segments.get(middle).start <= offset)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Count the line breaks in a part of the code.
+     *
+     * @param code  - Code to count in.
+     * @param start - Offset of the first character.
+     * @param end   - Offset after the last character.
+     *
+     * @return - Number of line breaks.
+     */
+    private static int countLines(String code, int start, int end)
+    {
+        int lines = 0;
+        
+        for (int i = start; i < end; i++)
+        {
+            if (code.charAt(i) == '\n')
+            {
+                lines++;
+            }
+        }
+        
+        return lines;
+    }
+}
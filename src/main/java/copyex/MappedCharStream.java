@@ -0,0 +1,196 @@
+package copyex;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class MappedCharStream implements CharStream
+{
+    private final ByteBuffer buffer;
+    private final String name;
+    private final int size;
+    private int index = 0;
+    
+    /**
+     * Create a char stream which reads the characters directly from a byte buffer.
+     * Every byte is a single character, so the buffer must only contain ASCII characters.
+     *
+     * @param buffer - Buffer holding the code.
+     * @param name   - Name of the source.
+     */
+    MappedCharStream(ByteBuffer buffer, String name)
+    {
+        this.buffer = buffer;
+        this.name = name;
+        this.size = buffer.limit();
+    }
+    
+    /**
+     * Check if a buffer can be read as a char stream without decoding it.
+     *
+     * @param buffer - Buffer to check.
+     *
+     * @return - Whether or not the buffer contains only ASCII characters.
+     */
+    static boolean isAscii(ByteBuffer buffer)
+    {
+        for (int i = 0; i < buffer.limit(); i++)
+        {
+            if (buffer.get(i) < 0)
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Move to the next character.
+     */
+    @Override
+    public void consume()
+    {
+        if (index >= size)
+        {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        
+        index++;
+    }
+    
+    /**
+     * Look at a character relative to the current position.
+     *
+     * @param offset - Offset from the current position.
+     *
+     * @return - Character value or EOF.
+     */
+    @Override
+    public int LA(int offset)
+    {
+        if (offset == 0)
+        {
+            return 0;
+        }
+        
+        int position = offset > 0 ? index + offset - 1 : index + offset;
+        
+        if (position < 0 || position >= size)
+        {
+            return IntStream.EOF;
+        }
+        
+        return buffer.get(position);
+    }
+    
+    /**
+     * The whole buffer is always available, so marks are not needed.
+     *
+     * @return - Marker value.
+     */
+    @Override
+    public int mark()
+    {
+        return -1;
+    }
+    
+    /**
+     * The whole buffer is always available, so there is nothing to release.
+     *
+     * @param marker - Marker to release.
+     */
+    @Override
+    public void release(int marker)
+    {
+    }
+    
+    /**
+     * Return the current position in the stream.
+     *
+     * @return - Current position.
+     */
+    @Override
+    public int index()
+    {
+        return index;
+    }
+    
+    /**
+     * Move to a position in the stream.
+     *
+     * @param index - Position to move to.
+     */
+    @Override
+    public void seek(int index)
+    {
+        this.index = Math.min(index, size);
+    }
+    
+    /**
+     * Return the number of characters in the stream.
+     *
+     * @return - Number of characters.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Return the name of the source.
+     *
+     * @return - Name of the source.
+     */
+    @Override
+    public String getSourceName()
+    {
+        return name;
+    }
+    
+    /**
+     * Return the text of the characters in an interval.
+     *
+     * @param interval - Interval of characters.
+     *
+     * @return - Text of the interval.
+     */
+    @Override
+    public String getText(Interval interval)
+    {
+        int start = interval.a;
+        int stop = Math.min(interval.b, size - 1);
+        
+        if (start >= size || stop < start)
+        {
+            return "";
+        }
+        
+        char[] text = new char[stop - start + 1];
+        
+        for (int i = 0; i < text.length; i++)
+        {
+            text[i] = (char) buffer.get(start + i);
+        }
+        
+        return new String(text);
+    }
+    
+    /**
+     * Create string representation of the stream.
+     *
+     * @return - Whole text of the stream.
+     */
+    @Override
+    public String toString()
+    {
+        return getText(Interval.of(0, size - 1));
+    }
+}
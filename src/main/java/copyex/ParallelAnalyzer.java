@@ -0,0 +1,250 @@
+package copyex;
+
+import AbstractTree.BinaryNode;
+import AbstractTree.MultiNode;
+import AbstractTree.Node;
+import AbstractTree.NodeType;
+import compiler.CompileAbortedException;
+import compiler.CompileBudget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class ParallelAnalyzer
+{
+    private final CompileBudget budget;
+    
+    /**
+     * Create analyzer which handles the functions of a file in parallel.
+     *
+     * @param budget - Budget of the compilation, or null.
+     */
+    ParallelAnalyzer(CompileBudget budget)
+    {
+        this.budget = budget;
+    }
+    
+    /**
+     * Create the abstract syntax tree of the parse tree of a file, creating the nodes of the functions in parallel.
+     * The top-level code is visited first, in order, then every function is visited by a fork/join task.
+     *
+     * @param file - Parse tree of the file.
+     *
+     * @return - Root node of the file.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent.
+     */
+    Node createTree(CopyexParser.FileContext file)
+    {
+        List<CopyexParser.FileBlockContext> blocks = file.fileBlock();
+        Node[] nodes = new Node[blocks.size()];
+        List<Integer> functions = new ArrayList<>();
+        CopyexVisitor visitor = new CopyexVisitor(budget);
+        
+        for (int i = 0; i < blocks.size(); i++)
+        {
+            if (blocks.get(i).functionBlock() == null)
+            {
+                nodes[i] = visitor.visit(blocks.get(i));
+            }
+            else
+            {
+                functions.add(i);
+            }
+        }
+        
+        invoke(functions.size(), index -> nodes[functions.get(index)] = new CopyexVisitor(budget).visit(blocks.get(functions.get(index))));
+        
+        MultiNode<String> root = new MultiNode<>("file", NodeType.FILE);
+        
+        if (budget != null)
+        {
+            budget.addNode();
+        }
+        
+        for (Node node : nodes)
+        {
+            root.addNode(node);
+        }
+        
+        return root;
+    }
+    
+    /**
+     * Check the semantics of the tree of a file, checking the functions in parallel.
+     * The top-level code is checked first, in order, and every function is entered without checking its body,
+     * only recording which functions it calls. Then the body of every function before the first error is checked
+     * by a fork/join task, with a copy of the scopes as they were when the function was entered.
+     * The error thrown is the first error of the code, the same as when checking it sequentially.
+     *
+     * @param file - File node.
+     *
+     * @throws CopyexException         - If the code is not semantically correct.
+     * @throws CompileAbortedException - If the budget of the compilation is spent.
+     */
+    void check(Node file)
+    {
+        List<Node> blocks = file.getNodes();
+        RuntimeException[] errors = new RuntimeException[blocks.size()];
+        List<Integer> functions = new ArrayList<>();
+        List<ScopeTable> functionScopes = new ArrayList<>();
+        
+        ScopeTable scopes = new ScopeTable();
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(scopes);
+        analyzer.setBudget(budget);
+        analyzer.declareFunctions(SemanticAnalyzer.findFunctions(blocks));
+        int end = blocks.size();
+        
+        for (int i = 0; i < end; i++)
+        {
+            Node block = blocks.get(i);
+            
+            if (block.getType() != NodeType.FUNCTION)
+            {
+                try
+                {
+                    analyzer.visit(block);
+                }
+                catch (CompileAbortedException e)
+                {
+                    throw e;
+                }
+                catch (RuntimeException e)
+                {
+                    errors[i] = e;
+                    end = i;
+                }
+                
+                continue;
+            }
+            
+            functions.add(i);
+            functionScopes.add(scopes.fork());
+            
+            BinaryNode name = (BinaryNode) ((BinaryNode) block).getLeft().getNode(0);
+            scopes.enterFunction(name.getLeft().getValue().toString(), name.getValue().toString());
+            addCalls(scopes, block);
+            scopes.exitFunction();
+        }
+        
+        invoke(functions.size(), index ->
+        {
+            try
+            {
+                SemanticAnalyzer functionAnalyzer = new SemanticAnalyzer(functionScopes.get(index));
+                functionAnalyzer.setBudget(budget);
+                functionAnalyzer.visit(blocks.get(functions.get(index)));
+            }
+            catch (CompileAbortedException e)
+            {
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                errors[functions.get(index)] = e;
+            }
+        });
+        
+        for (int i = 0; i <= end && i < blocks.size(); i++)
+        {
+            if (errors[i] != null)
+            {
+                throw errors[i];
+            }
+        }
+    }
+    
+    /**
+     * Record the functions called by the body of a function, in the order in which checking the body finds them.
+     * The calls are statements, so they are found in the order of the code.
+     *
+     * @param scopes   - Scopes in which the function is entered.
+     * @param function - Function node.
+     */
+    private static void addCalls(ScopeTable scopes, Node function)
+    {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(function);
+        
+        while (!stack.isEmpty())
+        {
+            Node next = stack.pop();
+            
+            if (next.getType() == NodeType.CALL)
+            {
+                scopes.addCall(next.getValue().toString());
+            }
+            
+            for (int i = next.getNodeCount() - 1; i >= 0; i--)
+            {
+                if (next.getNode(i) != null)
+                {
+                    stack.push(next.getNode(i));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Run an action for every function, each by a fork/join task.
+     *
+     * @param count  - Number of functions.
+     * @param action - Action taking the position of a function in the list of functions.
+     */
+    private static void invoke(int count, IntConsumer action)
+    {
+        if (count > 0)
+        {
+            ForkJoinPool.commonPool().invoke(new FunctionTask(action, 0, count));
+        }
+    }
+    
+    /**
+     * Task handling a range of the functions, split in halves until each task handles a single function.
+     */
+    private static class FunctionTask extends RecursiveAction
+    {
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+        
+        /**
+         * Create task for a range of the functions.
+         *
+         * @param action - Action taking the position of a function in the list of functions.
+         * @param from   - Position of the first function.
+         * @param to     - Position after the last function.
+         */
+        FunctionTask(IntConsumer action, int from, int to)
+        {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Handle the function of the task, or split the range between two tasks.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                action.accept(from);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(new FunctionTask(action, from, middle), new FunctionTask(action, middle, to));
+        }
+    }
+}
@@ -0,0 +1,804 @@
+package copyex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class ScopeTable
+{
+    private static final int DECLARED_NUM = 1;
+    private static final int DECLARED_BOOL = 2;
+    private static final int ASSIGNED_NUM = 4;
+    private static final int ASSIGNED_BOOL = 8;
+    
+    private final Symbols symbols;
+    private final Scope global;
+    private Scope currentScope;
+    private Map<String, String> declaredFunctions = new HashMap<>();
+    private boolean sharesFunctions = false;
+    private Map<String, Set<String>> calls = new HashMap<>();
+    private Set<String> callable = new HashSet<>();
+    private String currentFunction;
+    
+    /**
+     * Create scope table with an empty global scope.
+     */
+    ScopeTable()
+    {
+        this(new Symbols(), new Scope(null));
+    }
+    
+    /**
+     * Create scope table with a global scope.
+     *
+     * @param symbols - Symbols of the variable names.
+     * @param global  - Global scope.
+     */
+    private ScopeTable(Symbols symbols, Scope global)
+    {
+        this.symbols = symbols;
+        this.global = global;
+        this.currentScope = global;
+    }
+    
+    /**
+     * Check if a variable has a state in the current scope.
+     *
+     * @param state    - State to check, one of the state bits.
+     * @param variable - Variable to check for.
+     *
+     * @return - Whether or not the variable has the state.
+     */
+    private boolean contains(int state, String variable)
+    {
+        int symbol = symbols.find(variable);
+        return symbol >= 0 && (currentScope.get(symbol) & state) != 0;
+    }
+    
+    /**
+     * Add a state to a variable in the current scope.
+     *
+     * @param state    - State bits to add.
+     * @param variable - Variable to add to.
+     */
+    private void add(int state, String variable)
+    {
+        int symbol = symbols.intern(variable);
+        currentScope.set(symbol, currentScope.get(symbol) | state);
+    }
+    
+    /**
+     * Remove a state from a variable in the current scope.
+     *
+     * @param state    - State bits to remove.
+     * @param variable - Variable to remove from.
+     */
+    private void remove(int state, String variable)
+    {
+        int symbol = symbols.find(variable);
+        
+        if (symbol >= 0)
+        {
+            currentScope.set(symbol, currentScope.get(symbol) & ~state);
+        }
+    }
+    
+    /**
+     * Check if a variable has a state in the current scope or any scope enclosing it.
+     *
+     * @param state    - State to check, one or more of the state bits.
+     * @param variable - Variable to check for.
+     *
+     * @return - Whether or not the variable has one of the states.
+     */
+    private boolean checkScopes(int state, String variable)
+    {
+        int symbol = symbols.find(variable);
+        
+        if (symbol < 0)
+        {
+            return false;
+        }
+        
+        for (Scope scope = currentScope; scope != null; scope = scope.parent)
+        {
+            if ((scope.get(symbol) & state) != 0)
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Return the declared state bit for a variable type.
+     *
+     * @param type - Type of the variable, either num or bool.
+     *
+     * @return - Declared state bit.
+     */
+    private static int declared(String type)
+    {
+        return type.equals("num") ? DECLARED_NUM : DECLARED_BOOL;
+    }
+    
+    /**
+     * Return the assigned state bit for a variable type.
+     *
+     * @param type - Type of the variable, either num or bool.
+     *
+     * @return - Assigned state bit.
+     */
+    private static int assigned(String type)
+    {
+        return type.equals("num") ? ASSIGNED_NUM : ASSIGNED_BOOL;
+    }
+    
+    /**
+     * Return the other variable type.
+     *
+     * @param type - Type of the variable, either num or bool.
+     *
+     * @return - The other type.
+     */
+    private static String otherType(String type)
+    {
+        return type.equals("num") ? "bool" : "num";
+    }
+    
+    /**
+     * Return the description of a variable type used in error messages.
+     *
+     * @param type - Type of the variable, either num or bool.
+     *
+     * @return - Description of the type.
+     */
+    private static String typeName(String type)
+    {
+        return type.equals("num") ? "number" : "boolean";
+    }
+    
+    /**
+     * Declare and assign a variable in the current scope.
+     *
+     * @param type     - Type of the variable.
+     * @param variable - Name of the variable.
+     */
+    void initialise(String type, String variable)
+    {
+        add(declared(type) | assigned(type), variable);
+        remove(declared(otherType(type)) | assigned(otherType(type)), variable);
+    }
+    
+    /**
+     * Declare a variable without a value in the current scope.
+     *
+     * @param type     - Type of the variable.
+     * @param variable - Name of the variable.
+     */
+    void declare(String type, String variable)
+    {
+        add(declared(type), variable);
+        remove(declared(otherType(type)) | assigned(otherType(type)) | assigned(type), variable);
+    }
+    
+    /**
+     * Declare a function argument in the current scope.
+     *
+     * @param type     - Type of the argument.
+     * @param variable - Name of the argument.
+     */
+    void declareArgument(String type, String variable)
+    {
+        add(declared(type) | assigned(type), variable);
+    }
+    
+    /**
+     * Mark a variable as assigned.
+     *
+     * @param type     - Type of the variable.
+     * @param variable - Name of the variable.
+     */
+    void assign(String type, String variable)
+    {
+        if (!checkScopes(assigned(type), variable))
+        {
+            add(assigned(type), variable);
+        }
+    }
+    
+    /**
+     * Check that a variable can be assigned a value of a type.
+     *
+     * @param type     - Type of the value.
+     * @param variable - Name of the variable.
+     * @param line     - Line of the assignment.
+     * @param column   - Position in line of the assignment.
+     *
+     * @throws CopyexException - If the variable is not declared with that type.
+     */
+    void checkAssignment(String type, String variable, int line, int column)
+    {
+        checkDeclared(type, variable, line, column, false);
+    }
+    
+    /**
+     * Check that a variable can be assigned the result of a function call.
+     *
+     * @param function - Name of the function.
+     * @param variable - Name of the variable.
+     * @param line     - Line of the assignment.
+     * @param column   - Position in line of the assignment.
+     *
+     * @return - Return type of the function.
+     *
+     * @throws CopyexException - If the function does not exist, does not return a value or returns the wrong type.
+     */
+    String checkFunctionAssignment(String function, String variable, int line, int column)
+    {
+        String type = checkFunction(function, line, column);
+        
+        if (type.equals("num") || type.equals("bool"))
+        {
+            checkDeclared(type, variable, line, column, true);
+            return type;
+        }
+        
+        throw new CopyexException("Compile error!\n'" + function + "'() does not return a value!\nLocation " + location(line, column), line, column);
+    }
+    
+    /**
+     * Check that a variable is declared with a type.
+     *
+     * @param type     - Expected type of the variable.
+     * @param variable - Name of the variable.
+     * @param line     - Line of the variable.
+     * @param column   - Position in line of the variable.
+     * @param anyScope - Whether to look for the variable with the other type in all scopes or only the current one.
+     *
+     * @throws CopyexException - If the variable is not declared with that type.
+     */
+    private void checkDeclared(String type, String variable, int line, int column, boolean anyScope)
+    {
+        if (checkScopes(declared(type), variable))
+        {
+            return;
+        }
+        
+        int other = declared(otherType(type));
+        
+        if (anyScope ? checkScopes(other, variable) : contains(other, variable))
+        {
+            throw new CopyexException("Compile error!\n'" + variable + "' is not of type " + typeName(type) + "!\nLocation " + location(line, column), line, column);
+        }
+        
+        throw new CopyexException("Compile error!\n'" + variable + "' is not a defined variable!\nLocation " + location(line, column), line, column);
+    }
+    
+    /**
+     * Check that a variable can be used in an augmented assignment.
+     *
+     * @param variable - Name of the variable.
+     * @param line     - Line of the assignment.
+     * @param column   - Position in line of the assignment.
+     *
+     * @throws CopyexException - If the variable is not a declared and initialised number.
+     */
+    void checkAugmented(String variable, int line, int column)
+    {
+        if (!checkScopes(DECLARED_NUM, variable))
+        {
+            throw new CopyexException("Compile error!\n'" + variable + "' is not a defined variable!\nLocation " + location(line, column), line, column);
+        }
+        
+        if (!checkScopes(ASSIGNED_NUM, variable))
+        {
+            throw new CopyexException("Initialization error!\n'" + variable + "' has not been initialized yet!\nLocation: " + location(line, column), line, column);
+        }
+    }
+    
+    /**
+     * Check that a variable has a value.
+     *
+     * @param variable - Name of the variable.
+     * @param line     - Line of the variable.
+     * @param column   - Position in line of the variable.
+     *
+     * @throws CopyexException - If the variable has not been assigned.
+     */
+    void checkInitialised(String variable, int line, int column)
+    {
+        if (!checkScopes(ASSIGNED_NUM | ASSIGNED_BOOL, variable))
+        {
+            throw new CopyexException("Initialization error!\n'" + variable + "' has not been initialized yet!\nLocation: " + location(line, column), line, column);
+        }
+    }
+    
+    /**
+     * Check that a function is declared.
+     * A function body may call any declared function, as it only runs when it is called. The top-level code may
+     * only call a function which is defined before the call, together with every function it calls.
+     *
+     * @param function - Name of the function.
+     * @param line     - Line of the call.
+     * @param column   - Position in line of the call.
+     *
+     * @return - Return type of the function.
+     *
+     * @throws CopyexException - If the function is not declared, or is called by the top-level code too early.
+     */
+    String checkFunction(String function, int line, int column)
+    {
+        String type = declaredFunctions.get(function);
+        
+        if (type == null)
+        {
+            throw new CopyexException("Compile error!\n'" + function + "'() is not a defined function!\nLocation " + location(line, column), line, column);
+        }
+        
+        if (currentFunction != null)
+        {
+            calls.get(currentFunction).add(function);
+        }
+        else
+        {
+            checkDefined(function, line, column);
+        }
+        
+        return type;
+    }
+    
+    /**
+     * Check that a function called by the top-level code and every function it calls are already defined.
+     * The python code runs from top to bottom, so a function defined after the call does not exist yet.
+     *
+     * @param function - Name of the function.
+     * @param line     - Line of the call.
+     * @param column   - Position in line of the call.
+     *
+     * @throws CopyexException - If one of the functions is defined after the call.
+     */
+    private void checkDefined(String function, int line, int column)
+    {
+        if (callable.contains(function))
+        {
+            return;
+        }
+        
+        Set<String> reached = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        reached.add(function);
+        stack.push(function);
+        
+        while (!stack.isEmpty())
+        {
+            String next = stack.pop();
+            Set<String> called = calls.get(next);
+            
+            if (called == null)
+            {
+                throw new CopyexException("Compile error!\n'" + next + "'() is called before it is defined!\nLocation " + location(line, column), line, column);
+            }
+            
+            for (String callee : called)
+            {
+                if (!callable.contains(callee) && reached.add(callee))
+                {
+                    stack.push(callee);
+                }
+            }
+        }
+        
+        callable.addAll(reached);
+    }
+    
+    /**
+     * Describe the location of an error.
+     *
+     * @param line   - Line of the error.
+     * @param column - Position in line of the error.
+     *
+     * @return - String - Line and position description.
+     */
+    private static String location(int line, int column)
+    {
+        return "line " + line + ":" + column;
+    }
+    
+    /**
+     * Declare the signature of a function before it is defined, so that it can be called by the code before it.
+     * A function defined more than once keeps the type of its first definition until the next one is entered.
+     *
+     * @param name - Name of the function.
+     * @param type - Return type of the function.
+     */
+    void declareFunction(String name, String type)
+    {
+        if (!declaredFunctions.containsKey(name))
+        {
+            setFunctionType(name, type);
+        }
+    }
+    
+    /**
+     * Set the return type of a function, copying the return types first if they are shared with another table.
+     *
+     * @param name - Name of the function.
+     * @param type - Return type of the function.
+     */
+    private void setFunctionType(String name, String type)
+    {
+        if (sharesFunctions)
+        {
+            declaredFunctions = new HashMap<>(declaredFunctions);
+            sharesFunctions = false;
+        }
+        
+        declaredFunctions.put(name, type);
+    }
+    
+    /**
+     * Define a function and make its new scope the current scope.
+     * The scope of the function encloses the global scope.
+     *
+     * @param name - Name of the function.
+     * @param type - Return type of the function.
+     */
+    void enterFunction(String name, String type)
+    {
+        if (!type.equals(declaredFunctions.get(name)))
+        {
+            setFunctionType(name, type);
+        }
+        
+        calls.put(name, new LinkedHashSet<>());
+        // A function defined again may call other functions than before.
+        callable.clear();
+        currentFunction = name;
+        currentScope = new Scope(global);
+    }
+    
+    /**
+     * Make the global scope the current scope.
+     * The scope of the function is not used anymore, as it is created again when the function is entered.
+     */
+    void exitFunction()
+    {
+        currentFunction = null;
+        currentScope = global;
+    }
+    
+    /**
+     * Record a call of a declared function by the current function, without checking the call.
+     * Used when the body of the function is checked separately, as the calls of a function decide which
+     * functions the top-level code after it can call.
+     *
+     * @param function - Name of the called function.
+     */
+    void addCall(String function)
+    {
+        if (declaredFunctions.containsKey(function))
+        {
+            calls.get(currentFunction).add(function);
+        }
+    }
+    
+    /**
+     * Create an independent copy of the scope table.
+     * The copy shares the symbols of the variable names, which are only ever added to.
+     *
+     * @return - Copy of the scope table.
+     */
+    ScopeTable copy()
+    {
+        ScopeTable copy = new ScopeTable(symbols, global.copy(null));
+        
+        if (currentScope != global)
+        {
+            copy.currentScope = currentScope.copy(copy.global);
+        }
+        
+        copy.declaredFunctions.putAll(declaredFunctions);
+        
+        for (Map.Entry<String, Set<String>> entry : calls.entrySet())
+        {
+            copy.calls.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+        }
+        
+        copy.callable.addAll(callable);
+        copy.currentFunction = currentFunction;
+        
+        return copy;
+    }
+    
+    /**
+     * Create a copy of the global scope for checking the body of a function on another thread.
+     * The copy does not have the calls of the functions, which only the top-level code checks, and shares the
+     * return types of the functions until either table changes them. It adds new variable names to its own
+     * symbols, so the symbols of this table must not change anymore once the copy is used.
+     *
+     * @return - Copy of the scope table.
+     */
+    ScopeTable fork()
+    {
+        ScopeTable fork = new ScopeTable(new Symbols(symbols), global.copy(null));
+        fork.declaredFunctions = declaredFunctions;
+        fork.sharesFunctions = true;
+        sharesFunctions = true;
+        
+        return fork;
+    }
+    
+    /**
+     * Compare the state of two scope tables.
+     *
+     * @param other - Object to compare with.
+     *
+     * @return - Whether or not both tables hold the same scopes.
+     */
+    @Override
+    public boolean equals(Object other)
+    {
+        if (!(other instanceof ScopeTable))
+        {
+            return false;
+        }
+        
+        ScopeTable table = (ScopeTable) other;
+        
+        if (!Objects.equals(currentFunction, table.currentFunction) || !declaredFunctions.equals(table.declaredFunctions) || !calls.equals(table.calls))
+        {
+            return false;
+        }
+        
+        return sameStates(global, table, table.global) && sameStates(currentScope, table, table.currentScope);
+    }
+    
+    /**
+     * Compare the states of the variables of a scope with a scope of another table.
+     *
+     * @param scope      - Scope of this table.
+     * @param table      - Other table.
+     * @param otherScope - Scope of the other table.
+     *
+     * @return - Whether or not every variable has the same state in both scopes.
+     */
+    private boolean sameStates(Scope scope, ScopeTable table, Scope otherScope)
+    {
+        if (symbols == table.symbols)
+        {
+            return scope.sameStates(otherScope);
+        }
+        
+        // The tables were created independently, so the variables are compared by name.
+        for (int symbol = 0; symbol < symbols.size(); symbol++)
+        {
+            int otherSymbol = table.symbols.find(symbols.name(symbol));
+            
+            if (scope.get(symbol) != (otherSymbol < 0 ? 0 : otherScope.get(otherSymbol)))
+            {
+                return false;
+            }
+        }
+        
+        for (int symbol = 0; symbol < table.symbols.size(); symbol++)
+        {
+            if (otherScope.get(symbol) != 0 && symbols.find(table.symbols.name(symbol)) < 0)
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Create hash code from the state of the scope table.
+     *
+     * @return - Hash code.
+     */
+    @Override
+    public int hashCode()
+    {
+        int hash = 0;
+        
+        for (int symbol = 0; symbol < symbols.size(); symbol++)
+        {
+            hash += symbols.name(symbol).hashCode() * (31 * global.get(symbol) + currentScope.get(symbol));
+        }
+        
+        return (hash * 31 + declaredFunctions.hashCode()) * 31 + calls.hashCode();
+    }
+    
+    /**
+     * Variable names, each of which is given a number the first time it is used.
+     * Symbols with a parent continue its numbers, and only add the names which the parent does not have.
+     */
+    private static class Symbols
+    {
+        private final Symbols parent;
+        private final Map<String, Integer> numbers = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        
+        /**
+         * Create symbols without any names.
+         */
+        Symbols()
+        {
+            this(null);
+        }
+        
+        /**
+         * Create symbols which continue the names of a parent, which must not change anymore.
+         *
+         * @param parent - Symbols with the first names, or null.
+         */
+        Symbols(Symbols parent)
+        {
+            this.parent = parent;
+        }
+        
+        /**
+         * Return the number of a variable name, giving it the next number if it does not have one yet.
+         *
+         * @param name - Variable name.
+         *
+         * @return - Number of the name.
+         */
+        int intern(String name)
+        {
+            int number = find(name);
+            
+            if (number < 0)
+            {
+                number = size();
+                numbers.put(name, number);
+                names.add(name);
+            }
+            
+            return number;
+        }
+        
+        /**
+         * Return the number of a variable name.
+         *
+         * @param name - Variable name.
+         *
+         * @return - Number of the name, or -1 if the name was never used.
+         */
+        int find(String name)
+        {
+            if (parent != null)
+            {
+                int number = parent.find(name);
+                
+                if (number >= 0)
+                {
+                    return number;
+                }
+            }
+            
+            Integer number = numbers.get(name);
+            return number == null ? -1 : number;
+        }
+        
+        /**
+         * Return the variable name with a number.
+         *
+         * @param number - Number of the name.
+         *
+         * @return - Variable name.
+         */
+        String name(int number)
+        {
+            int first = parent == null ? 0 : parent.size();
+            return number < first ? parent.name(number) : names.get(number - first);
+        }
+        
+        /**
+         * Return the number of variable names.
+         *
+         * @return - Number of names.
+         */
+        int size()
+        {
+            return (parent == null ? 0 : parent.size()) + names.size();
+        }
+    }
+    
+    /**
+     * Scope holding the state bits of every variable by its number.
+     */
+    private static class Scope
+    {
+        private final Scope parent;
+        private byte[] states = new byte[16];
+        
+        /**
+         * Create an empty scope.
+         *
+         * @param parent - Scope enclosing the scope, or null for the global scope.
+         */
+        Scope(Scope parent)
+        {
+            this.parent = parent;
+        }
+        
+        /**
+         * Return the state bits of a variable.
+         *
+         * @param symbol - Number of the variable.
+         *
+         * @return - State bits of the variable.
+         */
+        int get(int symbol)
+        {
+            return symbol < states.length ? states[symbol] : 0;
+        }
+        
+        /**
+         * Set the state bits of a variable.
+         *
+         * @param symbol - Number of the variable.
+         * @param state  - State bits of the variable.
+         */
+        void set(int symbol, int state)
+        {
+            if (symbol >= states.length)
+            {
+                states = Arrays.copyOf(states, Math.max(symbol + 1, states.length * 2));
+            }
+            
+            states[symbol] = (byte) state;
+        }
+        
+        /**
+         * Compare the states of the variables with another scope using the same numbers.
+         *
+         * @param other - Scope to compare with.
+         *
+         * @return - Whether or not every variable has the same state in both scopes.
+         */
+        boolean sameStates(Scope other)
+        {
+            int length = Math.max(states.length, other.states.length);
+            
+            for (int symbol = 0; symbol < length; symbol++)
+            {
+                if (get(symbol) != other.get(symbol))
+                {
+                    return false;
+                }
+            }
+            
+            return true;
+        }
+        
+        /**
+         * Create an independent copy of the scope.
+         *
+         * @param parent - Scope enclosing the copy.
+         *
+         * @return - Copy of the scope.
+         */
+        Scope copy(Scope parent)
+        {
+            Scope copy = new Scope(parent);
+            copy.states = states.clone();
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package copyex;
+
+import AbstractTree.AstVisitor;
+import AbstractTree.BinaryNode;
+import AbstractTree.Node;
+import AbstractTree.NodeType;
+import compiler.CompileAbortedException;
+import compiler.CompileBudget;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class SemanticAnalyzer implements AstVisitor<Void>
+{
+    private final ScopeTable scopes;
+    private final List<CopyexDiagnostic> diagnostics;
+    private CompileBudget budget;
+    private int steps = 0;
+    
+    /**
+     * Create analyzer with empty scopes.
+     */
+    SemanticAnalyzer()
+    {
+        this(new ScopeTable());
+    }
+    
+    /**
+     * Create analyzer which continues from existing scopes.
+     *
+     * @param scopes - Scopes to use.
+     */
+    SemanticAnalyzer(ScopeTable scopes)
+    {
+        this.scopes = scopes;
+        this.diagnostics = null;
+    }
+    
+    /**
+     * Create analyzer which adds the semantic errors to a list of diagnostics instead of stopping at the first one.
+     *
+     * @param diagnostics - List of diagnostics.
+     */
+    SemanticAnalyzer(List<CopyexDiagnostic> diagnostics)
+    {
+        this.scopes = new ScopeTable();
+        this.diagnostics = diagnostics;
+    }
+    
+    /**
+     * Set the budget of the compilation, which is checked while the code is checked.
+     *
+     * @param budget - Budget of the compilation, null to check without one.
+     */
+    void setBudget(CompileBudget budget)
+    {
+        this.budget = budget;
+    }
+    
+    /**
+     * Return the scopes of the analyzer.
+     *
+     * @return - Scope table.
+     */
+    ScopeTable getScopes()
+    {
+        return scopes;
+    }
+    
+    /**
+     * Find the return types of the functions of top-level nodes.
+     * A function defined more than once has the type of its first definition.
+     *
+     * @param blocks - Top-level nodes, which may be null for code with syntax errors.
+     *
+     * @return - Return types by function name.
+     */
+    static Map<String, String> findFunctions(List<Node> blocks)
+    {
+        Map<String, String> functions = new HashMap<>();
+        
+        for (Node block : blocks)
+        {
+            if (block != null && block.getType() == NodeType.FUNCTION)
+            {
+                BinaryNode name = (BinaryNode) ((BinaryNode) block).getLeft().getNode(0);
+                functions.putIfAbsent(name.getLeft().getValue().toString(), name.getValue().toString());
+            }
+        }
+        
+        return functions;
+    }
+    
+    /**
+     * Declare the signatures of functions before any block is checked, so that they can be called before they
+     * are defined.
+     *
+     * @param functions - Return types by function name.
+     */
+    void declareFunctions(Map<String, String> functions)
+    {
+        for (Map.Entry<String, String> function : functions.entrySet())
+        {
+            scopes.declareFunction(function.getKey(), function.getValue());
+        }
+    }
+    
+    /**
+     * Check a part of the abstract syntax tree, checking the budget once every CHECK_INTERVAL visits.
+     *
+     * @param node - Node of the part, nothing is checked for a missing node.
+     *
+     * @return - Nothing.
+     *
+     * @throws CopyexException         - If the code is not semantically correct.
+     * @throws CompileAbortedException - If the time limit has passed or the compilation was interrupted.
+     */
+    Void visit(Node<?> node)
+    {
+        if (budget != null && (++steps & (CompileBudget.CHECK_INTERVAL - 1)) == 0)
+        {
+            budget.check();
+        }
+        
+        return node == null ? null : node.accept(this);
+    }
+    
+    /**
+     * Declare the functions of the file and check its blocks.
+     *
+     * @param node - File node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitFile(Node node)
+    {
+        List<Node> blocks = node.getNodes();
+        declareFunctions(findFunctions(blocks));
+        
+        for (Node block : blocks)
+        {
+            visitChecked(block);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check the blocks of a code block.
+     *
+     * @param node - Block node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitBlock(Node node)
+    {
+        return visitBlocks(node);
+    }
+    
+    /**
+     * Check the blocks of a conditional which run if its condition is true.
+     *
+     * @param node - If node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitIf(Node node)
+    {
+        return visitBlocks(node);
+    }
+    
+    /**
+     * Check the blocks of a conditional which run if its condition is false.
+     *
+     * @param node - Else node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitElse(Node node)
+    {
+        return visitBlocks(node);
+    }
+    
+    /**
+     * Check the blocks of a loop or a function, and the return of the function.
+     *
+     * @param node - Body node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitBody(Node node)
+    {
+        return visitBlocks(node);
+    }
+    
+    /**
+     * Check lines.
+     *
+     * @param node - Lines node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitLines(Node node)
+    {
+        return visitBlocks(node);
+    }
+    
+    /**
+     * Declare variable.
+     *
+     * @param node - Variable declaration node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitDeclaration(Node node)
+    {
+        scopes.declare(node.getValue().toString(), variable(node).getValue().toString());
+        
+        return null;
+    }
+    
+    /**
+     * Check an initialisation, an assignment or an augmented assignment.
+     * Number variables are initialised before their value is checked, boolean variables have to be initialised
+     * with a comparison. A value assigned with "=" is a boolean if its top node is a logical operation, otherwise
+     * it is a number, unless it is a function call.
+     *
+     * @param node - Assignment node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitAssignment(Node node)
+    {
+        BinaryNode assignment = (BinaryNode) node;
+        Node variable = assignment.getLeft();
+        Node value = assignment.getRight();
+        String var = variable(variable).getValue().toString();
+        
+        if (variable.getType() == NodeType.DECLARATION)
+        {
+            String type = variable.getValue().toString();
+            
+            if (type.equals("bool") && !isComparison(value))
+            {
+                throw new CopyexException("Compile error!\n'" + var + "' is not of type boolean!\nLocation " + location(variable), variable.getLine(), variable.getColumn());
+            }
+            
+            scopes.initialise(type, var);
+            this.visit(value);
+        }
+        else if (!assignment.getValue().equals("="))
+        {
+            scopes.checkAugmented(var, variable.getLine(), variable.getColumn());
+            this.visit(value);
+        }
+        else if (value != null && value.getType() == NodeType.CALL)
+        {
+            String funcType = scopes.checkFunctionAssignment(value.getValue().toString(), var, variable.getLine(), variable.getColumn());
+            visitParameters(value);
+            scopes.assign(funcType, var);
+        }
+        else
+        {
+            String type = isLogical(value) ? "bool" : "num";
+            
+            scopes.checkAssignment(type, var, variable.getLine(), variable.getColumn());
+            this.visit(value);
+            scopes.assign(type, var);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check that the called function is declared, then check its parameters.
+     *
+     * @param node - Function call node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitCall(Node node)
+    {
+        scopes.checkFunction(node.getValue().toString(), node.getLine(), node.getColumn());
+        visitParameters(node);
+        
+        return null;
+    }
+    
+    /**
+     * Check the parameters of a function call.
+     *
+     * @param node - Function call node.
+     */
+    private void visitParameters(Node node)
+    {
+        for (int i = 0; i < node.getNodeCount(); i++)
+        {
+            this.visit(node.getNode(i));
+        }
+    }
+    
+    /**
+     * Check the value of a print.
+     *
+     * @param node - Print node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitPrint(Node node)
+    {
+        return this.visit(((BinaryNode) node).getLeft());
+    }
+    
+    /**
+     * Check the condition of a conditional, then its blocks.
+     *
+     * @param node - Conditional node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitCondition(Node node)
+    {
+        visitChecked(node.getNode(0));
+        
+        for (int i = 1; i < node.getNodeCount(); i++)
+        {
+            this.visit(node.getNode(i));
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check the condition of a loop, then its body.
+     *
+     * @param node - Loop node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitLoop(Node node)
+    {
+        visitChecked(((BinaryNode) node).getLeft());
+        this.visit(((BinaryNode) node).getRight());
+        
+        return null;
+    }
+    
+    /**
+     * Define function, declare its arguments in its scope and check its body.
+     *
+     * @param node - Function node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitFunction(Node node)
+    {
+        Node signature = ((BinaryNode) node).getLeft();
+        Node name = signature.getNode(0);
+        
+        scopes.enterFunction(variable(name).getValue().toString(), name.getValue().toString());
+        
+        for (int i = 1; i < signature.getNodeCount(); i++)
+        {
+            Node arg = signature.getNode(i);
+            scopes.declareArgument(arg.getValue().toString(), variable(arg).getValue().toString());
+        }
+        
+        this.visit(((BinaryNode) node).getRight());
+        scopes.exitFunction();
+        
+        return null;
+    }
+    
+    /**
+     * Signatures are checked by their function.
+     *
+     * @param node - Signature node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitSignature(Node node)
+    {
+        return null;
+    }
+    
+    /**
+     * Names of functions are checked by their function.
+     *
+     * @param node - Name node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitName(Node node)
+    {
+        return null;
+    }
+    
+    /**
+     * Arguments are declared by their function.
+     *
+     * @param node - Argument node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitArg(Node node)
+    {
+        return null;
+    }
+    
+    /**
+     * Check the returned value of a function.
+     *
+     * @param node - Return node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitReturn(Node node)
+    {
+        visitChecked(((BinaryNode) node).getLeft());
+        
+        return null;
+    }
+    
+    /**
+     * Check the operands of an infix operation in order.
+     * A chain of operations such as a + b + c is nested in the left operands, so the chain is followed in a loop
+     * instead of visiting the left operands recursively.
+     *
+     * @param node - Infix operation node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitInfixOperation(Node node)
+    {
+        Deque<Node> rights = new ArrayDeque<>();
+        Node left = node;
+        
+        while (left != null && left.getType() == NodeType.INFIXOP)
+        {
+            if (((BinaryNode) left).getRight() != null)
+            {
+                rights.push(((BinaryNode) left).getRight());
+            }
+            
+            left = ((BinaryNode) left).getLeft();
+        }
+        
+        this.visit(left);
+        
+        while (!rights.isEmpty())
+        {
+            this.visit(rights.pop());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check the operand of a negation.
+     *
+     * @param node - Negation node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitNegation(Node node)
+    {
+        return this.visit(((BinaryNode) node).getLeft());
+    }
+    
+    /**
+     * Check the operand of a not operation.
+     *
+     * @param node - Not operation node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitNot(Node node)
+    {
+        return this.visit(((BinaryNode) node).getLeft());
+    }
+    
+    /**
+     * Check that a variable has a value. Numbers are leaves as well, but cannot start with a letter.
+     *
+     * @param node - Leaf node.
+     *
+     * @return - Nothing.
+     */
+    @Override
+    public Void visitLeaf(Node node)
+    {
+        String value = node.getValue().toString();
+        
+        if (Character.isLetter(value.charAt(0)))
+        {
+            scopes.checkInitialised(value, node.getLine(), node.getColumn());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check the child nodes of a node one by one, each as a part of the code which can be checked on its own.
+     *
+     * @param node - Node with the blocks, lines or return to check.
+     *
+     * @return - Nothing.
+     */
+    private Void visitBlocks(Node node)
+    {
+        for (int i = 0; i < node.getNodeCount(); i++)
+        {
+            visitChecked(node.getNode(i));
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check a part of the code which can be checked on its own.
+     * When collecting diagnostics a semantic error is added to the diagnostics and the check continues with the
+     * next part. Parts of the code with syntax errors may be incomplete or missing, in which case their nodes are
+     * missing as well.
+     *
+     * @param node - Node of the part.
+     */
+    private void visitChecked(Node node)
+    {
+        if (diagnostics == null)
+        {
+            this.visit(node);
+            return;
+        }
+        
+        try
+        {
+            this.visit(node);
+        }
+        catch (CopyexException e)
+        {
+            diagnostics.add(new CopyexDiagnostic(CopyexDiagnostic.Kind.SEMANTIC, e.getMessage(), e.getLine(), e.getColumn()));
+        }
+    }
+    
+    /**
+     * Return the variable of a declaration, or the name of a function or an argument.
+     * An assigned variable is the node itself.
+     *
+     * @param node - Declaration, assigned variable, name or argument node.
+     *
+     * @return - Leaf node of the variable or name.
+     */
+    private static Node variable(Node node)
+    {
+        return node.getType() == NodeType.LEAF ? node : ((BinaryNode) node).getLeft();
+    }
+    
+    /**
+     * Check if a value is a comparison.
+     *
+     * @param node - Value node.
+     *
+     * @return - Whether or not the value is a comparison.
+     */
+    private static boolean isComparison(Node node)
+    {
+        if (node == null || node.getType() != NodeType.INFIXOP)
+        {
+            return false;
+        }
+        
+        switch (node.getValue().toString())
+        {
+            case ">":
+            case "<":
+            case "==":
+            case ">=":
+            case "<=":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Check if a value is a logical operation, which makes it a boolean.
+     *
+     * @param node - Value node.
+     *
+     * @return - Whether or not the value is a comparison, a not operation or a binary logic operation.
+     */
+    private static boolean isLogical(Node node)
+    {
+        if (node == null)
+        {
+            return false;
+        }
+        
+        if (node.getType() == NodeType.NOT || isComparison(node))
+        {
+            return true;
+        }
+        
+        return node.getType() == NodeType.INFIXOP && (node.getValue().equals("and") || node.getValue().equals("or"));
+    }
+    
+    /**
+     * Find the location of a node.
+     *
+     * @param node - Node to locate.
+     *
+     * @return - String - Line and position description.
+     */
+    private static String location(Node node)
+    {
+        return "line " + node.getLine() + ":" + node.getColumn();
+    }
+}
@@ -0,0 +1,450 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+import AbstractTree.Node;
+import compiler.CompileAbortedException;
+import compiler.CompileBudget;
+import compiler.PythonCompiler;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PlusLoopbackState;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class StreamingCompiler implements ParseTreeListener
+{
+    private static final int BUFFER_SIZE = 4096;
+    
+    private final Writer output;
+    private final PythonCompiler compiler = new PythonCompiler();
+    private final CompileBudget budget;
+    private CopyexTreeBuilder builder;
+    private SemanticAnalyzer analyzer;
+    private RuntimeException semanticError;
+    private RuntimeException builderError;
+    private RuntimeException compileError;
+    
+    /**
+     * Create compiler which writes the python code of every top-level block as soon as it is parsed.
+     *
+     * The budget of the compilation is checked while the code is lexed, parsed and compiled.
+     *
+     * @param output - Writer for the python code.
+     * @param budget - Budget of the compilation, or null.
+     */
+    StreamingCompiler(Writer output, CompileBudget budget)
+    {
+        this.output = output;
+        this.budget = budget;
+        compiler.setBudget(budget);
+    }
+    
+    /**
+     * Compile code while reading it. The characters and tokens are read through unbuffered streams, so only the
+     * top-level statement, conditional, loop or function being parsed and the scopes are kept in memory.
+     * The errors are the same as the errors of parse and compile, but the python code of the blocks before an
+     * error has already been written. Code which the parser skipped is reported as a syntax error, as it cannot be
+     * parsed again with a parse tree.
+     *
+     * @param input - Reader of the code.
+     *
+     * @throws IOException            - If the code cannot be read or the python code cannot be written.
+     * @throws CompileAbortedException - If the budget of the compilation is spent or the thread is interrupted.
+     */
+    void compile(Reader input) throws IOException
+    {
+        CopyexLexer lexer = new CopyexLexer(new ReaderCharStream(input));
+        // The characters are gone once a token is read, so the tokens keep their own text.
+        lexer.setTokenFactory(new TextTokenFactory());
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new CopyexLexerErrorListener());
+        
+        UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<Token>(lexer)
+        {
+            @Override
+            protected void add(Token token)
+            {
+                super.add(token);
+                
+                if (budget != null)
+                {
+                    budget.checkTokens(getBufferStartIndex() + n);
+                }
+            }
+        };
+        
+        CopyexParserErrorStrategy errorHandler = new CopyexParserErrorStrategy();
+        CopyexParser parser = new CopyexParser(tokens);
+        parser.setInterpreter(new TopLevelSimulator(parser));
+        parser.setErrorHandler(errorHandler);
+        parser.removeErrorListeners();
+        parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        parser.setBuildParseTree(false);
+        parser.addParseListener(this);
+        
+        builder = new CopyexTreeBuilder(tokens, this::write, budget);
+        // The code is read while it is compiled, so its functions are only declared when they are defined.
+        analyzer = new SemanticAnalyzer();
+        analyzer.setBudget(budget);
+        semanticError = null;
+        builderError = null;
+        compileError = null;
+        
+        try
+        {
+            parser.file();
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+        
+        // The code cannot be parsed again with a parse tree to report the error, as it was read already.
+        if (errorHandler.getRecoveredError() != null)
+        {
+            throw new ParseCancellationException(errorHandler.getRecoveredError());
+        }
+        
+        if (builderError == null)
+        {
+            builder.flush();
+        }
+        
+        if (semanticError != null)
+        {
+            throw semanticError;
+        }
+        
+        if (builderError != null)
+        {
+            throw builderError;
+        }
+        
+        if (compileError != null)
+        {
+            throw compileError;
+        }
+        
+        output.flush();
+    }
+    
+    /**
+     * Check the semantics of a top-level node, then compile it and write its python code.
+     * The semantic and compile errors are only thrown once the rest of the code was parsed, so that a syntax
+     * error is thrown instead of them, and nothing is written after them.
+     *
+     * @param node - Top-level node.
+     *
+     * @throws CompileAbortedException - If the budget of the compilation is spent.
+     */
+    private void write(Node node)
+    {
+        if (node == null || semanticError != null)
+        {
+            return;
+        }
+        
+        try
+        {
+            analyzer.visit(node);
+        }
+        catch (CopyexException e)
+        {
+            semanticError = e;
+            return;
+        }
+        
+        if (compileError != null)
+        {
+            return;
+        }
+        
+        String python;
+        
+        try
+        {
+            python = compiler.compilePython(new AbstractSyntaxTree(node));
+        }
+        catch (CompileAbortedException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            compileError = e;
+            return;
+        }
+        
+        try
+        {
+            output.write(python);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Pass the entered rule to the tree builder.
+     *
+     * @param context - Entered context.
+     */
+    @Override
+    public void enterEveryRule(ParserRuleContext context)
+    {
+        if (builderError == null)
+        {
+            try
+            {
+                builder.enterEveryRule(context);
+                context.enterRule(builder);
+            }
+            catch (UncheckedIOException | CompileAbortedException e)
+            {
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                stop(e);
+            }
+        }
+    }
+    
+    /**
+     * Pass the exited rule to the tree builder.
+     *
+     * @param context - Exited context.
+     */
+    @Override
+    public void exitEveryRule(ParserRuleContext context)
+    {
+        if (builderError == null)
+        {
+            try
+            {
+                context.exitRule(builder);
+                builder.exitEveryRule(context);
+            }
+            catch (CompileAbortedException e)
+            {
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                stop(e);
+            }
+        }
+    }
+    
+    /**
+     * Pass the matched token to the tree builder.
+     *
+     * @param node - Matched token.
+     */
+    @Override
+    public void visitTerminal(TerminalNode node)
+    {
+        if (builderError == null)
+        {
+            try
+            {
+                builder.visitTerminal(node);
+            }
+            catch (CompileAbortedException e)
+            {
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                stop(e);
+            }
+        }
+    }
+    
+    /**
+     * Pass the skipped token to the tree builder.
+     *
+     * @param node - Skipped token.
+     */
+    @Override
+    public void visitErrorNode(ErrorNode node)
+    {
+        if (builderError == null)
+        {
+            builder.visitErrorNode(node);
+        }
+    }
+    
+    /**
+     * Stop building nodes after the tree builder failed.
+     * The parser also exits the rules it abandons because of a syntax error, in which case the nodes are not
+     * complete. The builder is not notified anymore, so that the syntax error is thrown instead.
+     *
+     * @param e - Error of the tree builder.
+     */
+    private void stop(RuntimeException e)
+    {
+        builderError = e;
+    }
+    
+    /**
+     * Unbuffered char stream which leaves out the end of the input from the text of the characters it holds.
+     * The lexer reports the characters up to the end of the input when a comment is not closed.
+     */
+    private static class ReaderCharStream extends UnbufferedCharStream
+    {
+        /**
+         * Create char stream which reads the characters as they are needed.
+         *
+         * @param input - Reader of the code.
+         */
+        ReaderCharStream(Reader input)
+        {
+            super(input, BUFFER_SIZE);
+        }
+        
+        /**
+         * Return the text of an interval of the characters held by the stream.
+         *
+         * @param interval - Interval of character indexes.
+         *
+         * @return - Text of the characters.
+         */
+        @Override
+        public String getText(Interval interval)
+        {
+            int end = getBufferStartIndex() + n - 1;
+            
+            if (n > 0 && data[n - 1] == IntStream.EOF && interval.b >= end)
+            {
+                interval = Interval.of(interval.a, end - 1);
+            }
+            
+            return super.getText(interval);
+        }
+    }
+    
+    /**
+     * Token factory which copies the text of the tokens, as the characters are not kept after a token is read.
+     * The end of the input is named the same way as by a buffered stream.
+     */
+    private static class TextTokenFactory extends CommonTokenFactory
+    {
+        /**
+         * Create token factory which copies the text of the tokens.
+         */
+        TextTokenFactory()
+        {
+            super(true);
+        }
+        
+        /**
+         * Create a token with the text of its characters.
+         *
+         * @param source  - Lexer and characters of the token.
+         * @param type    - Type of the token.
+         * @param text    - Text of the token, or null to copy it from the characters.
+         * @param channel - Channel of the token.
+         * @param start   - Index of the first character.
+         * @param stop    - Index of the last character.
+         * @param line    - Line of the token.
+         * @param column  - Position in line of the token.
+         *
+         * @return - Created token.
+         */
+        @Override
+        public CommonToken create(Pair<TokenSource, CharStream> source, int type, String text, int channel, int start, int stop, int line, int column)
+        {
+            return super.create(source, type, type == Token.EOF ? "<EOF>" : text, channel, start, stop, line, column);
+        }
+    }
+    
+    /**
+     * Parser simulator which predicts whether the next top-level block belongs to the current code block from
+     * the next token only.
+     * Both alternatives of that decision match the same code, so the adaptive prediction reads up to the end of
+     * the input before choosing the first one, and the token stream would have to keep every token until then.
+     * The first alternative is chosen whenever the next token can start a block, which is the alternative the
+     * adaptive prediction chooses for code without errors.
+     */
+    private static class TopLevelSimulator extends ParserATNSimulator
+    {
+        private static final int CODE_BLOCK_LOOP = codeBlockLoop();
+        private static final IntervalSet BLOCK_START = CopyexParser._ATN.nextTokens(CopyexParser._ATN.getDecisionState(CODE_BLOCK_LOOP).transition(0).target);
+        
+        /**
+         * Create simulator which shares the prediction states of the other parsers.
+         *
+         * @param parser - Parser using the simulator.
+         */
+        TopLevelSimulator(CopyexParser parser)
+        {
+            super(parser, CopyexParser._ATN, CopyexParser._decisionToDFA, CopyexParser._sharedContextCache);
+        }
+        
+        /**
+         * Predict the alternative of a decision, choosing whether a top-level code block continues from the
+         * next token.
+         *
+         * @param input        - Token stream read by the parser.
+         * @param decision     - Number of the decision.
+         * @param outerContext - Context of the rule making the decision.
+         *
+         * @return - Number of the predicted alternative, starting from 1.
+         */
+        @Override
+        public int adaptivePredict(TokenStream input, int decision, ParserRuleContext outerContext)
+        {
+            if (decision == CODE_BLOCK_LOOP && outerContext.getParent() instanceof CopyexParser.FileBlockContext)
+            {
+                return BLOCK_START.contains(input.LA(1)) ? 1 : 2;
+            }
+            
+            return super.adaptivePredict(input, decision, outerContext);
+        }
+        
+        /**
+         * Find the decision which continues or ends the blocks of a code block.
+         *
+         * @return - Number of the decision.
+         */
+        private static int codeBlockLoop()
+        {
+            for (DecisionState state : CopyexParser._ATN.decisionToState)
+            {
+                if (state.ruleIndex == CopyexParser.RULE_codeBlock && state instanceof PlusLoopbackState)
+                {
+                    return state.decision;
+                }
+            }
+            
+            throw new IllegalStateException("Code block loop not found!");
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package copyex;
+
+import compiler.CompileBudget;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.util.Arrays;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class TokenBuffer
+{
+    private static final String[] LITERALS = createLiterals();
+    private static final int INITIAL_CAPACITY = 256;
+    // Largest capacity kept after a compilation, so that one large code does not keep its arrays for the thread.
+    private static final int MAX_KEPT_CAPACITY = 1 << 16;
+    
+    private CharStream input;
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] stops = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private int size;
+    private boolean complete;
+    private int endIndex;
+    private int endLine;
+    private int endColumn;
+    private CompileBudget budget;
+    
+    /**
+     * Create the text of every token type which always has the same text.
+     *
+     * @return - Texts indexed by token type, null for the other types.
+     */
+    private static String[] createLiterals()
+    {
+        String[] literals = new String[CopyexLexer.VOCABULARY.getMaxTokenType() + 1];
+        
+        for (int type = 1; type < literals.length; type++)
+        {
+            String literal = CopyexLexer.VOCABULARY.getLiteralName(type);
+            
+            if (literal != null)
+            {
+                literals[type] = literal.substring(1, literal.length() - 1);
+            }
+        }
+        
+        return literals;
+    }
+    
+    /**
+     * Set the budget whose largest number of tokens is checked as tokens are added.
+     *
+     * @param budget - Budget of the compilation, null to add tokens without one.
+     */
+    void setBudget(CompileBudget budget)
+    {
+        this.budget = budget;
+    }
+    
+    /**
+     * Empty the buffer to hold the tokens of a new input.
+     * The arrays keep their capacity.
+     *
+     * @param input - Characters the tokens are read from.
+     */
+    void reset(CharStream input)
+    {
+        this.input = input;
+        this.size = 0;
+        this.complete = false;
+    }
+    
+    /**
+     * Empty the buffer and forget its input once the compilation is finished.
+     * Arrays which grew beyond MAX_KEPT_CAPACITY are replaced by arrays of the initial capacity.
+     */
+    void release()
+    {
+        reset(null);
+        
+        if (types.length > MAX_KEPT_CAPACITY)
+        {
+            types = new int[INITIAL_CAPACITY];
+            starts = new int[INITIAL_CAPACITY];
+            stops = new int[INITIAL_CAPACITY];
+            lines = new int[INITIAL_CAPACITY];
+            columns = new int[INITIAL_CAPACITY];
+        }
+    }
+    
+    /**
+     * Add a token to the end of the buffer.
+     *
+     * @param type   - Type of the token.
+     * @param start  - Index of the first character of the token.
+     * @param stop   - Index of the last character of the token.
+     * @param line   - Line of the token.
+     * @param column - Position in line of the token.
+     *
+     * @throws compiler.CompileAbortedException - If the buffer holds more tokens than the budget allows, the time
+     *                                          limit has passed or the compilation was interrupted.
+     */
+    void add(int type, int start, int stop, int line, int column)
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        
+        types[size] = type;
+        starts[size] = start;
+        stops[size] = stop;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+        
+        if (budget != null)
+        {
+            budget.checkTokens(size);
+        }
+    }
+    
+    /**
+     * Mark the buffer as complete, after the EOF token was added.
+     */
+    void finish()
+    {
+        complete = true;
+    }
+    
+    /**
+     * Mark the buffer as incomplete, because the characters at a position could not be lexed.
+     *
+     * @param index  - Index of the first character which could not be lexed.
+     * @param line   - Line of the character.
+     * @param column - Position in line of the character.
+     */
+    void stop(int index, int line, int column)
+    {
+        complete = false;
+        endIndex = index;
+        endLine = line;
+        endColumn = column;
+    }
+    
+    /**
+     * Check if the buffer holds all tokens of the input, ending with EOF.
+     *
+     * @return - Whether or not the buffer is complete.
+     */
+    boolean isComplete()
+    {
+        return complete;
+    }
+    
+    /**
+     * Return the number of tokens in the buffer.
+     *
+     * @return - Number of tokens.
+     */
+    int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Return the characters the tokens are read from.
+     *
+     * @return - Input of the tokens.
+     */
+    CharStream getInput()
+    {
+        return input;
+    }
+    
+    /**
+     * Return the type of a token.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Type of the token.
+     */
+    int getType(int index)
+    {
+        return types[index];
+    }
+    
+    /**
+     * Return the index of the first character of a token.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Index of the character.
+     */
+    int getStart(int index)
+    {
+        return starts[index];
+    }
+    
+    /**
+     * Return the index of the last character of a token.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Index of the character.
+     */
+    int getStop(int index)
+    {
+        return stops[index];
+    }
+    
+    /**
+     * Return the line of a token.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Line of the token.
+     */
+    int getLine(int index)
+    {
+        return lines[index];
+    }
+    
+    /**
+     * Return the position in line of a token.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Position in line of the token.
+     */
+    int getColumn(int index)
+    {
+        return columns[index];
+    }
+    
+    /**
+     * Return the text of a token.
+     * Keywords and operators share a constant text, only numbers and identifiers are read from the input.
+     *
+     * @param index - Index of the token.
+     *
+     * @return - Text of the token.
+     */
+    String getText(int index)
+    {
+        int type = types[index];
+        
+        if (type == Token.EOF)
+        {
+            return "<EOF>";
+        }
+        
+        if (LITERALS[type] != null)
+        {
+            return LITERALS[type];
+        }
+        
+        return input.getText(Interval.of(starts[index], stops[index]));
+    }
+    
+    /**
+     * Return the index of the first character which could not be lexed.
+     *
+     * @return - Index of the character.
+     */
+    int getEndIndex()
+    {
+        return endIndex;
+    }
+    
+    /**
+     * Return the line of the first character which could not be lexed.
+     *
+     * @return - Line of the character.
+     */
+    int getEndLine()
+    {
+        return endLine;
+    }
+    
+    /**
+     * Return the position in line of the first character which could not be lexed.
+     *
+     * @return - Position in line of the character.
+     */
+    int getEndColumn()
+    {
+        return endColumn;
+    }
+}
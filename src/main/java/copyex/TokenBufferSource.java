@@ -0,0 +1,145 @@
+package copyex;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+class TokenBufferSource implements TokenSource
+{
+    private final CopyexLexer lexer;
+    private TokenBuffer buffer;
+    private Pair<TokenSource, CharStream> source;
+    private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+    private int index;
+    private boolean lexing;
+    
+    /**
+     * Create token source which passes the tokens of a buffer to the parser.
+     *
+     * @param lexer - Lexer used for the characters which the buffer does not hold.
+     */
+    TokenBufferSource(CopyexLexer lexer)
+    {
+        this.lexer = lexer;
+    }
+    
+    /**
+     * Start reading the tokens of a buffer.
+     *
+     * @param buffer - Buffer with the tokens.
+     */
+    void reset(TokenBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.source = new Pair<>(this, buffer.getInput());
+        this.index = 0;
+        this.lexing = false;
+    }
+    
+    /**
+     * Create the next token from the buffer.
+     * After the end of an incomplete buffer the lexer continues from the first character the buffer does
+     * not hold, so that lexer errors are reported the same way as without the buffer.
+     *
+     * @return - Next token.
+     */
+    @Override
+    public Token nextToken()
+    {
+        if (index < buffer.size())
+        {
+            int i = index;
+            
+            if (buffer.getType(i) != Token.EOF)
+            {
+                index++;
+            }
+            
+            return factory.create(source, buffer.getType(i), null, Token.DEFAULT_CHANNEL, buffer.getStart(i), buffer.getStop(i), buffer.getLine(i), buffer.getColumn(i));
+        }
+        
+        if (!lexing)
+        {
+            lexer.setInputStream(buffer.getInput());
+            buffer.getInput().seek(buffer.getEndIndex());
+            lexer.setLine(buffer.getEndLine());
+            lexer.setCharPositionInLine(buffer.getEndColumn());
+            lexing = true;
+        }
+        
+        return lexer.nextToken();
+    }
+    
+    /**
+     * Return the line of the next token.
+     *
+     * @return - Line of the next token.
+     */
+    @Override
+    public int getLine()
+    {
+        return index < buffer.size() ? buffer.getLine(index) : lexer.getLine();
+    }
+    
+    /**
+     * Return the position in line of the next token.
+     *
+     * @return - Position in line of the next token.
+     */
+    @Override
+    public int getCharPositionInLine()
+    {
+        return index < buffer.size() ? buffer.getColumn(index) : lexer.getCharPositionInLine();
+    }
+    
+    /**
+     * Return the characters the tokens are read from.
+     *
+     * @return - Input of the tokens.
+     */
+    @Override
+    public CharStream getInputStream()
+    {
+        return buffer.getInput();
+    }
+    
+    /**
+     * Return the name of the source of the characters.
+     *
+     * @return - Name of the source.
+     */
+    @Override
+    public String getSourceName()
+    {
+        return buffer.getInput().getSourceName();
+    }
+    
+    /**
+     * Set the factory used to create the tokens.
+     *
+     * @param factory - Token factory.
+     */
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory)
+    {
+        this.factory = factory;
+    }
+    
+    /**
+     * Return the factory used to create the tokens.
+     *
+     * @return - Token factory.
+     */
+    @Override
+    public TokenFactory<?> getTokenFactory()
+    {
+        return factory;
+    }
+}
@@ -1,9 +1,11 @@
 package gui;
 
+import AbstractTree.AbstractSyntaxTree;
 import copyex.Copyex;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
 import java.io.PrintStream;
 
 /**
@@ -18,6 +20,8 @@ public class CopyexGUI extends JFrame
     static JTextArea outputArea;
     static JTextArea treeArea;
     static Copyex copyex;
+    static File openedFile;
+    static AbstractSyntaxTree hiddenTree;
     
     // Window Size
     private final Integer WINDOW_HEIGHT = 600;
@@ -83,6 +87,7 @@ public class CopyexGUI extends JFrame
         //Add everything to the frame.
         frame.setLayout(flowLayout);
         copyex = new Copyex();
+        copyex.setIncrementalParsing(true);
         frame.setJMenuBar(bar);
         frame.add(inputScrollPane);
         frame.add(outputScrollPane);
@@ -18,6 +18,9 @@ import static gui.FileActionListener.readFile;
  */
 public class ExecutionActionListener implements ActionListener
 {
+    // Largest number of nodes shown in the tree area.
+    private static final int MAX_TREE_NODES = 100000;
+    
     /**
      * Define action for GUI button.
      * <p>
@@ -39,6 +42,7 @@ public class ExecutionActionListener implements ActionListener
         if (action.equals("Show Tree"))
         {
             CopyexGUI.treeFrame.setVisible(!CopyexGUI.treeFrame.isVisible());
+            showTree();
         }
         if (action.equals("Compile File"))
         {
@@ -96,14 +100,25 @@ public class ExecutionActionListener implements ActionListener
     }
     
     /**
-     * Compile the abstract syntax tree and populate the GUI text areas.
+     * Compile the abstract syntax tree and populate the GUI text areas. The tree area is only populated when
+     * the tree frame is open.
+     * Unchanged code that was opened from a file is parsed directly from the file.
      */
     private void compile()
     {
         CopyexGUI.outputArea.setText("");
         CopyexGUI.treeArea.setText("");
-        String code = CopyexGUI.inputArea.getText();
-        AbstractSyntaxTree tree = CopyexGUI.copyex.parse(code);
+        CopyexGUI.hiddenTree = null;
+        AbstractSyntaxTree tree;
+        
+        if (CopyexGUI.openedFile != null)
+        {
+            tree = CopyexGUI.copyex.parse(CopyexGUI.openedFile);
+        }
+        else
+        {
+            tree = CopyexGUI.copyex.parse(CopyexGUI.inputArea.getText());
+        }
         
         if (tree != null)
         {
@@ -112,8 +127,35 @@ public class ExecutionActionListener implements ActionListener
             if (compiledCode != null)
             {
                 CopyexGUI.outputArea.setText(compiledCode);
-                CopyexGUI.treeArea.setText(tree.toString());
+                CopyexGUI.hiddenTree = tree;
+                showTree();
             }
         }
     }
+    
+    /**
+     * Show the tree of the last compilation in the tree area, once the tree frame is open.
+     * Trees with too many nodes to be shown are cut off.
+     */
+    private void showTree()
+    {
+        if (CopyexGUI.hiddenTree == null || !CopyexGUI.treeFrame.isVisible())
+        {
+            return;
+        }
+        
+        StringBuilder text = new StringBuilder();
+        
+        try
+        {
+            CopyexGUI.hiddenTree.render(text, Integer.MAX_VALUE, MAX_TREE_NODES);
+        }
+        catch (IOException e)
+        {
+            JOptionPane.showMessageDialog(CopyexGUI.frame, e.getMessage());
+        }
+        
+        CopyexGUI.treeArea.setText(text.toString());
+        CopyexGUI.hiddenTree = null;
+    }
 }
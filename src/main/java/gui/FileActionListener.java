@@ -1,9 +1,12 @@
 package gui;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.nio.file.Files;
 
 /**
  * @author DMarinov
@@ -58,25 +61,35 @@ public class FileActionListener implements ActionListener
     
     /**
      * Read a file from path and populate the editor with the code.
+     * The file is remembered until the code in the editor is changed, so that it can be compiled from disk.
      *
      * @param file - File with code.
      */
     static void readFile(File file)
     {
-        try
+        try (BufferedReader bufferedReader = Files.newBufferedReader(file.toPath()))
         {
-            String content;
-            
-            FileReader fileReader = new FileReader(file);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            StringBuilder stringBuilder = new StringBuilder(bufferedReader.readLine());
-            
-            while ((content = bufferedReader.readLine()) != null)
+            CopyexGUI.inputArea.read(bufferedReader, file);
+            CopyexGUI.openedFile = file;
+            CopyexGUI.inputArea.getDocument().addDocumentListener(new DocumentListener()
             {
-                stringBuilder.append("\n").append(content);
-            }
-            
-            CopyexGUI.inputArea.setText(stringBuilder.toString());
+                @Override
+                public void insertUpdate(DocumentEvent event)
+                {
+                    CopyexGUI.openedFile = null;
+                }
+                
+                @Override
+                public void removeUpdate(DocumentEvent event)
+                {
+                    CopyexGUI.openedFile = null;
+                }
+                
+                @Override
+                public void changedUpdate(DocumentEvent event)
+                {
+                }
+            });
         }
         catch (Exception evt)
         {
@@ -0,0 +1,164 @@
+package AbstractTree;
+
+import compiler.PythonCompiler;
+import copyex.Copyex;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class AstReaderTest
+{
+    private static final File SAMPLES = new File("src/main/resources/input");
+    private static final int HEADER = 2 * Integer.BYTES;
+    
+    /**
+     * Check that the trees of the samples read back from a stream print and compile the same as the parsed trees.
+     *
+     * @throws IOException - If a sample cannot be read or the tree cannot be written or read.
+     */
+    @Test
+    public void readsWrittenTrees() throws IOException
+    {
+        for (File sample : samples())
+        {
+            AbstractSyntaxTree tree = parse(sample);
+            
+            try (AstReader reader = new AstReader(new ByteArrayInputStream(write(tree))))
+            {
+                AbstractSyntaxTree read = reader.read();
+                
+                assertNotNull(sample.getName(), read);
+                assertEquals(sample.getName(), tree.toString(), read.toString());
+                assertEquals(sample.getName(), new PythonCompiler().compilePython(tree), new PythonCompiler().compilePython(read));
+                assertNull(sample.getName(), reader.read());
+            }
+        }
+    }
+    
+    /**
+     * Check that reading a tree from a stream which ends before the tree does fails with an IOException, for every
+     * length the stream can be cut to.
+     *
+     * @throws IOException - If a sample cannot be read or the tree cannot be written.
+     */
+    @Test
+    public void rejectsTruncatedStreams() throws IOException
+    {
+        for (File sample : samples())
+        {
+            byte[] bytes = write(parse(sample));
+            
+            for (int length = HEADER + 1; length < bytes.length; length++)
+            {
+                assertDamaged(sample.getName() + " cut to " + length + " bytes", Arrays.copyOf(bytes, length));
+            }
+        }
+    }
+    
+    /**
+     * Check that a stream which was not written by an AstWriter, or by one of another version, is rejected.
+     *
+     * @throws IOException - If a sample cannot be read or the tree cannot be written.
+     */
+    @Test
+    public void rejectsDamagedHeaders() throws IOException
+    {
+        byte[] bytes = write(parse(samples()[0]));
+        
+        byte[] magic = bytes.clone();
+        magic[0] ^= 0xFF;
+        assertDamaged("damaged magic number", magic);
+        
+        byte[] version = bytes.clone();
+        version[HEADER - 1] ^= 0xFF;
+        assertDamaged("damaged version", version);
+        
+        assertDamaged("missing header", Arrays.copyOf(bytes, HEADER - 1));
+    }
+    
+    /**
+     * Check that opening a stream and reading a tree from it fails with an IOException.
+     *
+     * @param name  - Name of the stream, shown if it is read without an error.
+     * @param bytes - Bytes of the stream.
+     */
+    private static void assertDamaged(String name, byte[] bytes)
+    {
+        try (AstReader reader = new AstReader(new ByteArrayInputStream(bytes)))
+        {
+            reader.read();
+            fail(name + " was read without an error");
+        }
+        catch (IOException e)
+        {
+            // Expected, the stream is damaged.
+        }
+    }
+    
+    /**
+     * Write a tree to an array of bytes.
+     *
+     * @param tree - Abstract syntax tree.
+     *
+     * @return - Bytes of the written tree.
+     *
+     * @throws IOException - If the tree cannot be written.
+     */
+    private static byte[] write(AbstractSyntaxTree tree) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        
+        try (AstWriter writer = new AstWriter(bytes))
+        {
+            writer.write(tree);
+        }
+        
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Parse a sample into an abstract syntax tree.
+     *
+     * @param sample - File of the sample.
+     *
+     * @return - Abstract syntax tree of the sample.
+     *
+     * @throws IOException - If the sample cannot be read.
+     */
+    private static AbstractSyntaxTree parse(File sample) throws IOException
+    {
+        AbstractSyntaxTree tree = new Copyex().parse(new String(Files.readAllBytes(sample.toPath()), StandardCharsets.UTF_8));
+        assertNotNull(sample.getName(), tree);
+        
+        return tree;
+    }
+    
+    /**
+     * Return the samples, sorted by name.
+     *
+     * @return - Files of the samples.
+     */
+    private static File[] samples()
+    {
+        File[] samples = SAMPLES.listFiles((directory, name) -> name.endsWith(".copyex"));
+        assertNotNull("Samples not found in " + SAMPLES.getAbsolutePath(), samples);
+        Arrays.sort(samples);
+        
+        return samples;
+    }
+}
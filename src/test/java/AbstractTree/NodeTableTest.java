@@ -0,0 +1,90 @@
+package AbstractTree;
+
+import copyex.Copyex;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class NodeTableTest
+{
+    private static final File SAMPLES = new File("src/main/resources/input");
+    
+    /**
+     * Check that equal expressions and statements are shared, while the blocks holding them are kept.
+     */
+    @Test
+    public void sharesEqualBinaryNodes()
+    {
+        MultiNode<String> first = new MultiNode<>("lines", NodeType.LINES);
+        first.addNode(print("a", "1"));
+        first.addNode(print("a", "1"));
+        
+        MultiNode<String> second = new MultiNode<>("lines", NodeType.LINES);
+        second.addNode(print("a", "1"));
+        
+        MultiNode<String> file = new MultiNode<>("file", NodeType.FILE);
+        file.addNode(first);
+        file.addNode(second);
+        
+        NodeTable table = new NodeTable();
+        Node shared = table.share(file);
+        
+        assertSame(file, shared);
+        assertNotSame(first, second);
+        assertSame(first.getNode(0), first.getNode(1));
+        assertSame(first.getNode(0), second.getNode(0));
+        // The print, the addition and its two leaves.
+        assertEquals(4, table.size());
+    }
+    
+    /**
+     * Check that sharing the subtrees of the samples does not change their python code.
+     */
+    @Test
+    public void sharedSamplesCompileTheSame()
+    {
+        File[] samples = SAMPLES.listFiles((directory, name) -> name.endsWith(".copyex"));
+        assertNotNull("Samples not found in " + SAMPLES.getAbsolutePath(), samples);
+        
+        for (File sample : samples)
+        {
+            Copyex plain = new Copyex();
+            assertNotNull(sample.getName(), plain.parse(sample));
+            
+            Copyex shared = new Copyex();
+            shared.setSubtreeSharing(true);
+            assertNotNull(sample.getName(), shared.parse(sample));
+            
+            assertEquals(sample.getName(), plain.compile(), shared.compile());
+        }
+    }
+    
+    /**
+     * Create the node of printing the sum of a variable and a number.
+     *
+     * @param variable - Name of the variable.
+     * @param number   - Number literal.
+     *
+     * @return - Print node.
+     */
+    private static Node<String> print(String variable, String number)
+    {
+        BinaryNode<String> sum = new BinaryNode<>("+", NodeType.INFIXOP);
+        sum.setLeft(new BinaryNode<>(variable, NodeType.LEAF));
+        sum.setRight(new BinaryNode<>(number, NodeType.LEAF));
+        
+        BinaryNode<String> print = new BinaryNode<>("print", NodeType.PRINT);
+        print.setLeft(sum);
+        
+        return print;
+    }
+}
@@ -0,0 +1,110 @@
+package compiler;
+
+import copyex.CompilationResult;
+import copyex.CompileOptions;
+import copyex.Copyex;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class PythonCompilerTest
+{
+    private static final File SAMPLES = new File("src/main/resources/input");
+    
+    /**
+     * Check that a grouped operation which binds less tightly than the operation around it keeps its
+     * parentheses.
+     */
+    @Test
+    public void keepsGroupedLeftOperand()
+    {
+        assertCompiles("num c = (a + 1) * 2;", "c = (a + 1) * 2");
+    }
+    
+    /**
+     * Check that a negated group keeps its parentheses.
+     */
+    @Test
+    public void keepsNegatedGroup()
+    {
+        assertCompiles("num c = -(a + b);", "c = -(a + b)");
+    }
+    
+    /**
+     * Check that a grouped right operand which binds as tightly as the operation around it keeps its
+     * parentheses.
+     */
+    @Test
+    public void keepsGroupedRightOperand()
+    {
+        assertCompiles("num c = a - (a - 1);", "c = a - (a - 1)");
+    }
+    
+    /**
+     * Check that operations which need no grouping are compiled without parentheses.
+     */
+    @Test
+    public void omitsNeedlessParentheses()
+    {
+        assertCompiles("num c = a - a - 1;", "c = a - a - 1");
+        assertCompiles("num c = (a * 2) + 1;", "c = a * 2 + 1");
+    }
+    
+    /**
+     * Check that the samples compile to the same python code when the compiled tree is stored outside of the
+     * heap.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void compilesOffHeapTree() throws IOException
+    {
+        File[] samples = SAMPLES.listFiles((directory, name) -> name.endsWith(".copyex"));
+        assertNotNull("Samples not found in " + SAMPLES.getAbsolutePath(), samples);
+        
+        for (File sample : samples)
+        {
+            CompilationResult expected = Copyex.compile(sample, new CompileOptions());
+            CompilationResult actual = Copyex.compile(sample, new CompileOptions().withOffHeapTree(true));
+            
+            assertEquals(sample.getName(), expected.getPython(), actual.getPython());
+        }
+    }
+    
+    /**
+     * Compile a line after the declarations of the variables a and b with every parser and check the python
+     * code of the line.
+     *
+     * @param line     - Line of code, which may use the variables a and b.
+     * @param expected - Expected python code of the line.
+     */
+    private static void assertCompiles(String line, String expected)
+    {
+        String code = "num a = 1;\nnum b = 2;\n" + line;
+        
+        CompileOptions[] parsers = {
+                new CompileOptions(),
+                new CompileOptions().withTwoStageParsing(true),
+                new CompileOptions().withDirectTreeBuilding(true),
+                new CompileOptions().withHandWrittenParsing(true),
+                new CompileOptions().withHandWrittenParsing(true).withHandWrittenLexing(true)
+        };
+        
+        for (CompileOptions options : parsers)
+        {
+            CompilationResult result = Copyex.compile(code, options);
+            
+            assertTrue(code, result.isSuccessful());
+            assertEquals(code, "a = 1\nb = 2\n" + expected + "\n", result.getPython());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package copyex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class CompileCacheTest
+{
+    private static final String CODE = "num a = 1;\nprint(a + 2);";
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Check that code compiled a second time is found in memory and compiles to the same python code.
+     */
+    @Test
+    public void findsCodeInMemory()
+    {
+        CompileCache cache = new CompileCache(4);
+        CompileOptions options = new CompileOptions().withCompileCache(cache);
+        
+        CompilationResult first = Copyex.compile(CODE, options);
+        CompilationResult second = Copyex.compile(CODE, options);
+        
+        assertTrue(first.isSuccessful());
+        assertEquals(first.getPython(), second.getPython());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getDiskHits());
+        assertEquals(1, cache.size());
+    }
+    
+    /**
+     * Check that code compiled with one cache is found in the directory by a new cache, with its python code and
+     * its tree.
+     *
+     * @throws IOException - If the directory cannot be created.
+     */
+    @Test
+    public void findsCodeOnDisk() throws IOException
+    {
+        File directory = folder.newFolder();
+        CompileCache previous = new CompileCache(4, directory, true);
+        CompilationResult first = Copyex.compile(CODE, new CompileOptions().withCompileCache(previous));
+        
+        CompileCache cache = new CompileCache(4, directory, true);
+        CompilationResult second = Copyex.compile(CODE, new CompileOptions().withCompileCache(cache));
+        
+        assertTrue(first.isSuccessful());
+        assertEquals(first.getPython(), second.getPython());
+        assertNotNull(second.getTree());
+        assertEquals(first.getTree().toString(), second.getTree().toString());
+        assertEquals(0, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getDiskHits());
+    }
+    
+    /**
+     * Check that the least recently used code is evicted from memory once there are more entries than the capacity,
+     * and that it is compiled again when it is used after that.
+     */
+    @Test
+    public void evictsLeastRecentlyUsedCode()
+    {
+        CompileCache cache = new CompileCache(2);
+        CompileOptions options = new CompileOptions().withCompileCache(cache);
+        
+        Copyex.compile("num a = 1;", options);
+        Copyex.compile("num b = 2;", options);
+        Copyex.compile("num a = 1;", options);
+        Copyex.compile("num c = 3;", options);
+        
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        
+        Copyex.compile("num a = 1;", options);
+        Copyex.compile("num b = 2;", options);
+        
+        assertEquals(2, cache.getEvictions());
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+}
@@ -0,0 +1,200 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+import AbstractTree.Node;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class HandWrittenParserTest
+{
+    private static final File SAMPLES = new File("src/main/resources/input");
+    
+    /**
+     * Check that the hand-written parser creates the same tree and python code as the ANTLR parser for every sample.
+     */
+    @Test
+    public void parsesSamplesLikeAntlr()
+    {
+        compareSamples(false);
+    }
+    
+    /**
+     * Check that the hand-written parser with the hand-written lexer creates the same tree and python code as
+     * the ANTLR lexer and parser for every sample.
+     */
+    @Test
+    public void lexesAndParsesSamplesLikeAntlr()
+    {
+        compareSamples(true);
+    }
+    
+    /**
+     * Check that a missing semicolon is reported the same way by both parsers.
+     */
+    @Test
+    public void reportsMissingSemicolonLikeAntlr()
+    {
+        compareErrors("num a = 1\nprint(a);\n", "expected ';'");
+    }
+    
+    /**
+     * Check that an unknown character is reported the same way by both parsers and lexers.
+     */
+    @Test
+    public void reportsUnknownCharacterLikeAntlr()
+    {
+        compareErrors("num a = 1 $ 2;\nprint(a);\n", "'$'");
+    }
+    
+    /**
+     * Check that assigning a variable which was not declared is reported the same way by both parsers.
+     */
+    @Test
+    public void reportsUndeclaredVariableLikeAntlr()
+    {
+        compareErrors("num a = 1;\nb = a + 1;\n", "'b' is not a defined variable!");
+    }
+    
+    /**
+     * Check that using a variable of the wrong type is reported the same way by both parsers.
+     */
+    @Test
+    public void reportsTypeMismatchLikeAntlr()
+    {
+        compareErrors("num a = 1;\nbool b = true;\na = b + 1;\n", "is not of type");
+    }
+    
+    /**
+     * Check that calling a function before it is defined is reported the same way by both parsers.
+     */
+    @Test
+    public void reportsCallBeforeDefinitionLikeAntlr()
+    {
+        compareErrors("num a;\na = f(1);\nfunction num f(num x)\n{\n    num y = x;\n    return y;\n}\n", "'f'() is called before it is defined!");
+    }
+    
+    /**
+     * Compile invalid code with the ANTLR parser and with the hand-written parser, with and without the
+     * hand-written lexer, and compare the errors.
+     *
+     * @param code     - Invalid code.
+     * @param expected - Part of the message of the error.
+     */
+    private static void compareErrors(String code, String expected)
+    {
+        CompilationResult antlr = Copyex.compile(code, new CompileOptions());
+        assertFalse("The ANTLR parser compiled invalid code", antlr.isSuccessful());
+        assertThat(antlr.getDiagnostics().get(0).getMessage(), containsString(expected));
+        
+        for (boolean handWrittenLexing : new boolean[]{false, true})
+        {
+            CompileOptions options = new CompileOptions().withHandWrittenParsing(true).withHandWrittenLexing(handWrittenLexing);
+            CompilationResult handWritten = Copyex.compile(code, options);
+            String name = handWrittenLexing ? "Hand-written lexer and parser" : "Hand-written parser";
+            
+            assertFalse(name + " compiled invalid code", handWritten.isSuccessful());
+            assertSameErrors(name, antlr.getDiagnostics(), handWritten.getDiagnostics());
+        }
+    }
+    
+    /**
+     * Compare the kinds, messages and locations of two lists of errors.
+     *
+     * @param name     - Name of the compared parser, shown if the errors differ.
+     * @param expected - Errors reported with the ANTLR parser.
+     * @param actual   - Errors reported with the compared parser.
+     */
+    private static void assertSameErrors(String name, List<CopyexDiagnostic> expected, List<CopyexDiagnostic> actual)
+    {
+        assertEquals(name, expected.size(), actual.size());
+        
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(name, expected.get(i).getKind(), actual.get(i).getKind());
+            assertEquals(name, expected.get(i).getMessage(), actual.get(i).getMessage());
+            assertEquals(name, expected.get(i).getLine(), actual.get(i).getLine());
+            assertEquals(name, expected.get(i).getColumn(), actual.get(i).getColumn());
+        }
+    }
+    
+    /**
+     * Parse and compile every sample with the ANTLR parser and with the hand-written parser, and compare the
+     * trees and the python code.
+     *
+     * @param handWrittenLexing - Whether or not the hand-written parser reads the tokens of the hand-written lexer.
+     */
+    private static void compareSamples(boolean handWrittenLexing)
+    {
+        File[] samples = SAMPLES.listFiles((directory, name) -> name.endsWith(".copyex"));
+        assertNotNull("Samples not found in " + SAMPLES.getAbsolutePath(), samples);
+        assertTrue("No samples in " + SAMPLES.getAbsolutePath(), samples.length > 0);
+        Arrays.sort(samples);
+        
+        for (File sample : samples)
+        {
+            Copyex antlr = new Copyex();
+            AbstractSyntaxTree expected = antlr.parse(sample);
+            assertNotNull(sample.getName() + " is not parsed by the ANTLR parser", expected);
+            
+            Copyex handWritten = new Copyex();
+            handWritten.setHandWrittenParsing(true);
+            handWritten.setHandWrittenLexing(handWrittenLexing);
+            AbstractSyntaxTree actual = handWritten.parse(sample);
+            assertNotNull(sample.getName() + " is not parsed by the hand-written parser", actual);
+            
+            assertSameTree(sample.getName(), expected.getRoot(), actual.getRoot());
+            assertEquals(sample.getName(), antlr.compile(), handWritten.compile());
+        }
+    }
+    
+    /**
+     * Compare the types, values and child nodes of two trees.
+     * The nodes are compared from a stack instead of recursively, so that deep trees can be compared.
+     *
+     * @param name     - Name of the sample, shown if the trees differ.
+     * @param expected - Root of the tree created by the ANTLR parser.
+     * @param actual   - Root of the tree created by the hand-written parser.
+     */
+    private static void assertSameTree(String name, Node expected, Node actual)
+    {
+        Deque<Node[]> stack = new ArrayDeque<>();
+        stack.push(new Node[]{expected, actual});
+        
+        while (!stack.isEmpty())
+        {
+            Node[] pair = stack.pop();
+            
+            if (pair[0] == null || pair[1] == null)
+            {
+                assertEquals(name, pair[0], pair[1]);
+                continue;
+            }
+            
+            String path = name + " at " + pair[0].getValue();
+            assertEquals(path, pair[0].getType(), pair[1].getType());
+            assertEquals(path, pair[0].getValue(), pair[1].getValue());
+            assertEquals(path, pair[0].getNodeCount(), pair[1].getNodeCount());
+            
+            for (int i = 0; i < pair[0].getNodeCount(); i++)
+            {
+                stack.push(new Node[]{pair[0].getNode(i), pair[1].getNode(i)});
+            }
+        }
+    }
+}
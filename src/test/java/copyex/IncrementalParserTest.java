@@ -0,0 +1,177 @@
+package copyex;
+
+import AbstractTree.AbstractSyntaxTree;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author DMarinov
+ * Created on: 18/Oct/2026
+ */
+public class IncrementalParserTest
+{
+    private static final File SAMPLES = new File("src/main/resources/input");
+    
+    /**
+     * Check that deleting a line of a sample and reverting it creates the same tree and python code as a fresh
+     * parse.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void deletesLines() throws IOException
+    {
+        editSamples((lines, i) -> lines.remove(i));
+    }
+    
+    /**
+     * Check that duplicating a line of a sample and reverting it creates the same tree and python code as a
+     * fresh parse.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void duplicatesLines() throws IOException
+    {
+        editSamples((lines, i) -> lines.add(i, lines.get(i)));
+    }
+    
+    /**
+     * Check that swapping two lines of a sample and reverting them creates the same tree and python code as a
+     * fresh parse.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void swapsLines() throws IOException
+    {
+        editSamples((lines, i) ->
+        {
+            if (i + 1 < lines.size())
+            {
+                Collections.swap(lines, i, i + 1);
+            }
+        });
+    }
+    
+    /**
+     * Check that splitting the first long token of a line in two and reverting it creates the same tree and
+     * python code as a fresh parse.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void splitsTokens() throws IOException
+    {
+        editSamples((lines, i) ->
+        {
+            String line = lines.get(i);
+            
+            for (int j = 1; j < line.length(); j++)
+            {
+                if (Character.isLetterOrDigit(line.charAt(j - 1)) && Character.isLetterOrDigit(line.charAt(j)))
+                {
+                    lines.set(i, line.substring(0, j) + " " + line.substring(j));
+                    return;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Check that inserting a statement before a line, which is inside a function for the lines of function
+     * bodies, and reverting it creates the same tree and python code as a fresh parse.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    @Test
+    public void insertsStatements() throws IOException
+    {
+        editSamples((lines, i) -> lines.add(i, "num edited = 1;"));
+    }
+    
+    /**
+     * Edit every line of every sample in turn, parsing the edited code and then the original code again with
+     * the same incremental parser, and compare both with a fresh parse.
+     *
+     * @param edit - Edit of the lines of a sample at a line index.
+     *
+     * @throws IOException - If a sample cannot be read.
+     */
+    private static void editSamples(Edit edit) throws IOException
+    {
+        File[] samples = SAMPLES.listFiles((directory, name) -> name.endsWith(".copyex"));
+        assertNotNull("Samples not found in " + SAMPLES.getAbsolutePath(), samples);
+        assertTrue("No samples in " + SAMPLES.getAbsolutePath(), samples.length > 0);
+        Arrays.sort(samples);
+        
+        for (File sample : samples)
+        {
+            String original = new String(Files.readAllBytes(sample.toPath()), StandardCharsets.UTF_8);
+            List<String> lines = Arrays.asList(original.split("\n", -1));
+            
+            Copyex incremental = new Copyex();
+            incremental.setIncrementalParsing(true);
+            assertSameParse(sample.getName(), incremental, original);
+            
+            for (int i = 0; i < lines.size(); i++)
+            {
+                List<String> edited = new ArrayList<>(lines);
+                edit.apply(edited, i);
+                
+                String name = sample.getName() + " edited at line " + (i + 1);
+                assertSameParse(name, incremental, String.join("\n", edited));
+                assertSameParse(name + " and reverted", incremental, original);
+            }
+        }
+    }
+    
+    /**
+     * Parse code with an incremental parser and compare the tree and python code with a fresh parse.
+     *
+     * @param name        - Name of the code, shown if the parses differ.
+     * @param incremental - Copyex instance with incremental parsing, which parsed the previous code.
+     * @param code        - Code to be parsed.
+     */
+    private static void assertSameParse(String name, Copyex incremental, String code)
+    {
+        Copyex fresh = new Copyex();
+        AbstractSyntaxTree expected = fresh.parse(code);
+        AbstractSyntaxTree actual = incremental.parse(code);
+        
+        if (expected == null || actual == null)
+        {
+            assertEquals(name, expected == null, actual == null);
+            return;
+        }
+        
+        assertEquals(name, expected.toString(), actual.toString());
+        assertEquals(name, fresh.compile(), incremental.compile());
+    }
+    
+    /**
+     * Edit of the lines of a sample.
+     */
+    private interface Edit
+    {
+        /**
+         * Edit the lines at a line index.
+         *
+         * @param lines - Lines of the sample.
+         * @param index - Index of the edited line.
+         */
+        void apply(List<String> lines, int index);
+    }
+}